@@ -238,6 +238,64 @@ class SystemNodeFuncTest extends AbstractFuncTest {
 
 	}
 
+	def "NodeTask inputs, outputs and build cache"() {
+
+		given:
+		testProjectDir.resolve("settings.gradle").toFile() << """
+			buildCache {
+				local {
+					directory = file("build-cache")
+				}
+			}
+		"""
+		Files.createDirectories(testProjectDir.resolve("src"))
+		writeFile("src/message.txt", "Hello World")
+		writeFile("generate.js", """
+			const fs = require('fs');
+			fs.mkdirSync('build/generated', { recursive: true });
+			fs.writeFileSync('build/generated/message.txt', fs.readFileSync('src/message.txt'));
+		""")
+
+		and:
+		buildScript("""
+			task generate(type: NodeTask) {
+				script = "generate.js"
+				inputFiles "src"
+				outputDirectories "build/generated"
+			}
+		""")
+
+		when:
+		def result1 = run("generate", "--build-cache")
+
+		then:
+		result1.task(":generate").outcome == TaskOutcome.SUCCESS
+		testProjectDir.resolve("build/generated/message.txt").toFile().text == "Hello World"
+
+		when:
+		def result2 = run("generate", "--build-cache")
+
+		then:
+		result2.task(":generate").outcome == TaskOutcome.UP_TO_DATE
+
+		when:
+		testProjectDir.resolve("build/generated").toFile().deleteDir()
+		def result3 = run("generate", "--build-cache")
+
+		then:
+		result3.task(":generate").outcome == TaskOutcome.FROM_CACHE
+		testProjectDir.resolve("build/generated/message.txt").toFile().text == "Hello World"
+
+		when:
+		testProjectDir.resolve("src/message.txt").toFile().text = "Hello Cache"
+		def result4 = run("generate", "--build-cache")
+
+		then:
+		result4.task(":generate").outcome == TaskOutcome.SUCCESS
+		testProjectDir.resolve("build/generated/message.txt").toFile().text == "Hello Cache"
+
+	}
+
 	// NPM
 
 	def "npm input_outputs detection"() {
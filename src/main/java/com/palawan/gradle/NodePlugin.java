@@ -25,9 +25,18 @@
 
 package com.palawan.gradle;
 
+import com.palawan.gradle.dsl.Daemon;
 import com.palawan.gradle.dsl.NodeExtension;
+import com.palawan.gradle.dsl.Processes;
+import com.palawan.gradle.internal.NodeDaemonService;
+import com.palawan.gradle.internal.NodeProcessLimiter;
+import com.palawan.gradle.internal.data.DaemonData;
+import com.palawan.gradle.internal.data.ProcessesData;
+import com.palawan.gradle.tasks.ExecutionTask;
+import com.palawan.gradle.tasks.NodeTask;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
 
 /**
  * @author petr.langr
@@ -46,11 +55,21 @@ public class NodePlugin implements Plugin<Project> {
 	/** Description of node tasks */
 	public static final String NODE_TASK_DESC = "Executes node command.";
 
+	/** Parallel install task type name */
+	public static final String PARALLEL_INSTALL_TASK_TYPE = "ParallelNodeInstallTask";
+	/** Description of parallel install tasks */
+	public static final String PARALLEL_INSTALL_TASK_DESC = "Installs node packages of several package roots in parallel.";
+
 	/** Download/setup local node task (executed only when download required) */
 	public static final String NODE_SETUP_TASK_NAME = "nodeSetup";
 	/** Description of node setup task */
 	public static final String NODE_SETUP_TASK_DESC = "Prepares specific version of NodeJS.";
 
+	/** Remove unused node and packager versions task name */
+	public static final String NODE_CLEANUP_TASK_NAME = "nodeCleanup";
+	/** Description of node cleanup task */
+	public static final String NODE_CLEANUP_TASK_DESC = "Removes unused versions of NodeJS and packagers.";
+
 	/** Install node packages task name */
 	public static final String NODE_INSTALL_TASK_NAME = "nodeInstall";
 	/** Install node packages task description */
@@ -65,6 +84,7 @@ public class NodePlugin implements Plugin<Project> {
 		NodeExtension extension = addExtension(project);
 
 		extension.getNodeManager().apply(project);
+		registerProcessLimiter(project);
 
 		project.afterEvaluate(this::afterEvaluate);
 	}
@@ -73,10 +93,100 @@ public class NodePlugin implements Plugin<Project> {
 		return project.getExtensions().create(EXTENSION_NAME, NodeExtension.class, project);
 	}
 
+	private void registerProcessLimiter(Project project) {
+		// limits are read once the service is used, i.e. after configuration
+		Provider<NodeProcessLimiter> limiter = project.getGradle().getSharedServices()
+				.registerIfAbsent(NodeProcessLimiter.NAME, NodeProcessLimiter.class, s -> {
+					Provider<Processes> processes = project.provider(() -> getBuildExtension(project).getProcesses());
+					s.getParameters().getMaxProcesses().set(processes.map(Processes::getMaxParallel));
+					s.getParameters().getMemoryBudget().set(processes.map(Processes::getMemoryBudget));
+				});
+		project.getTasks().withType(ExecutionTask.class, t -> {
+			t.usesService(limiter);
+			t.getProcessLimiter().set(limiter);
+		});
+	}
+
+	/**
+	 * Process limits and daemon settings are shared by the whole build, so they're
+	 * taken from the root project, or from the project registering the service
+	 * when the root project doesn't apply the plugin.
+	 * @param project Project registering the service
+	 * @return Node extension configuring build services
+	 */
+	private static NodeExtension getBuildExtension(Project project) {
+		NodeExtension root = project.getRootProject().getExtensions().findByType(NodeExtension.class);
+		return root != null ? root : NodeExtension.get(project);
+	}
+
+	private void registerDaemonService(Project project, NodeExtension extension) {
+		if (!extension.getDaemon().isEnabled()) {
+			return;
+		}
+		// settings are read once the service is used, i.e. after configuration
+		Provider<NodeDaemonService> daemonService = project.getGradle().getSharedServices()
+				.registerIfAbsent(NodeDaemonService.NAME, NodeDaemonService.class, s -> {
+					Provider<Daemon> daemon = project.provider(() -> getBuildExtension(project).getDaemon());
+					s.getParameters().getIdleTimeout().set(daemon.map(Daemon::getIdleTimeout));
+					s.getParameters().getMaxMemory().set(daemon.map(Daemon::getMaxMemory));
+				});
+		project.getTasks().withType(NodeTask.class, t -> {
+			t.usesService(daemonService);
+			t.getDaemonService().set(daemonService);
+		});
+	}
+
+	private void checkProcessLimits(Project project, NodeExtension extension) {
+		if (project == project.getRootProject()) {
+			return;
+		}
+		NodeExtension root = project.getRootProject().getExtensions().findByType(NodeExtension.class);
+		if (root == null) {
+			return;
+		}
+		Processes build = root.getProcesses();
+		Processes own = extension.getProcesses();
+		// projects keeping default limits just follow the root project
+		if (!sameLimits(own, build) && !sameLimits(own, new ProcessesData())) {
+			project.getLogger().warn("Process limits of {} (maxParallel {}, memoryBudget {}) are ignored, "
+							+ "limits of root project (maxParallel {}, memoryBudget {}) are shared by the build",
+					project, own.getMaxParallel(), own.getMemoryBudget(), build.getMaxParallel(), build.getMemoryBudget());
+		}
+	}
+
+	private static boolean sameLimits(Processes first, Processes second) {
+		return first.getMaxParallel() == second.getMaxParallel() && first.getMemoryBudget() == second.getMemoryBudget();
+	}
+
+	private void checkDaemonSettings(Project project, NodeExtension extension) {
+		if (project == project.getRootProject() || !extension.getDaemon().isEnabled()) {
+			return;
+		}
+		NodeExtension root = project.getRootProject().getExtensions().findByType(NodeExtension.class);
+		if (root == null) {
+			return;
+		}
+		Daemon build = root.getDaemon();
+		Daemon own = extension.getDaemon();
+		// projects keeping default settings just follow the root project
+		if (!sameSettings(own, build) && !sameSettings(own, new DaemonData())) {
+			project.getLogger().warn("Node daemon settings of {} (idleTimeout {}, maxMemory {}) are ignored, "
+							+ "settings of root project (idleTimeout {}, maxMemory {}) are shared by the build",
+					project, own.getIdleTimeout(), own.getMaxMemory(), build.getIdleTimeout(), build.getMaxMemory());
+		}
+	}
+
+	private static boolean sameSettings(Daemon first, Daemon second) {
+		return first.getIdleTimeout() == second.getIdleTimeout() && first.getMaxMemory() == second.getMaxMemory();
+	}
+
 	private void afterEvaluate(Project project) {
 		NodeExtension nodeExtension = NodeExtension.get(project);
 		nodeExtension.getNodeManager().afterEvaluate(project, nodeExtension);
 		nodeExtension.getPackagerManager().afterEvaluate(project, nodeExtension);
+		registerDaemonService(project, nodeExtension);
+		checkProcessLimits(project, nodeExtension);
+		checkDaemonSettings(project, nodeExtension);
 	}
 
 }
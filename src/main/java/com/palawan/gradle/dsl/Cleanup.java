@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.dsl;
+
+/**
+ * Policy of removing unused NodeJS and packager versions downloaded
+ * into working directories. All limits are disabled by default. Versions
+ * used by the project and versions used recently by any other build are
+ * always kept.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public interface Cleanup {
+
+	/**
+	 * Defines maximum number of kept versions within each working
+	 * directory, least recently used are removed first.
+	 * @param maxVersions Maximum number of versions, {@code 0} for unlimited
+	 * @return This cleanup policy
+	 */
+	Cleanup setMaxVersions(int maxVersions);
+
+	/**
+	 * Get maximum number of kept versions within each working directory.
+	 * @return Maximum number of versions, {@code 0} for unlimited
+	 */
+	int getMaxVersions();
+
+	/**
+	 * Defines number of days after last use when version is removed.
+	 * @param maxAgeDays Maximum days since last use, {@code 0} for unlimited
+	 * @return This cleanup policy
+	 */
+	Cleanup setMaxAgeDays(int maxAgeDays);
+
+	/**
+	 * Get number of days after last use when version is removed.
+	 * @return Maximum days since last use, {@code 0} for unlimited
+	 */
+	int getMaxAgeDays();
+
+	/**
+	 * Defines maximum size of all versions within each working directory,
+	 * least recently used are removed first.
+	 * @param maxSize Maximum size in bytes, {@code 0} for unlimited
+	 * @return This cleanup policy
+	 */
+	Cleanup setMaxSize(long maxSize);
+
+	/**
+	 * Get maximum size of all versions within each working directory.
+	 * @return Maximum size in bytes, {@code 0} for unlimited
+	 */
+	long getMaxSize();
+
+	/**
+	 * Defines whether cleanup runs automatically after NodeJS and
+	 * packager setup.
+	 * @param automatic {@code true} to run cleanup after setup
+	 * @return This cleanup policy
+	 */
+	Cleanup setAutomatic(boolean automatic);
+
+	/**
+	 * Checks whether cleanup runs automatically after setup.
+	 * @return {@code true} if cleanup runs after setup
+	 */
+	boolean isAutomatic();
+
+}
@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.dsl;
+
+/**
+ * Configuration of long-lived node processes executing scripts of
+ * {@code NodeTask}s, so that node startup and loading of tooling modules
+ * are paid only once per build. Daemons are kept per NodeJS executable,
+ * node options and working directory.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public interface Daemon {
+
+	/**
+	 * Defines whether node tasks use daemon by default. Each task may
+	 * override it by its {@code daemon} property.
+	 * @param enabled {@code true} to execute node tasks by daemon
+	 * @return This daemon configuration
+	 */
+	Daemon setEnabled(boolean enabled);
+
+	/**
+	 * Checks whether node tasks use daemon by default.
+	 * @return {@code true} if node tasks are executed by daemon
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Defines idle time after which daemon terminates.
+	 * @param idleTimeout Idle timeout in seconds
+	 * @return This daemon configuration
+	 */
+	Daemon setIdleTimeout(int idleTimeout);
+
+	/**
+	 * Get idle time after which daemon terminates.
+	 * @return Idle timeout in seconds
+	 */
+	int getIdleTimeout();
+
+	/**
+	 * Defines resident memory of daemon after which it is replaced by
+	 * new one.
+	 * @param maxMemory Maximum memory in bytes, {@code 0} for unlimited
+	 * @return This daemon configuration
+	 */
+	Daemon setMaxMemory(long maxMemory);
+
+	/**
+	 * Get resident memory of daemon after which it is replaced by new one.
+	 * @return Maximum memory in bytes, {@code 0} for unlimited
+	 */
+	long getMaxMemory();
+
+}
@@ -28,12 +28,19 @@ package com.palawan.gradle.dsl;
 import com.palawan.gradle.NodePlugin;
 import com.palawan.gradle.internal.PackagerManagerInternal;
 import com.palawan.gradle.internal.NodeManager;
+import com.palawan.gradle.internal.Workspaces;
 import com.palawan.gradle.util.PlatformSpecific;
+import com.palawan.gradle.util.ValueHolder;
 import org.gradle.api.Action;
 import org.gradle.api.Project;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Node plugin extension
@@ -51,6 +58,7 @@ public class NodeExtension implements PackagerManager {
 	private final NodeManager nodeManager;
 	private final PackagerManagerInternal packagerManager;
 	private final PlatformSpecific platformSpecific;
+	private final ValueHolder<Map<String, File>> workspaces;
 
 	public NodeExtension(Project project) {
 		this(project, PlatformSpecific.getInstance());
@@ -64,8 +72,12 @@ public class NodeExtension implements PackagerManager {
 				NodePlugin.LTS_VERSION,
 				"https://nodejs.org/dist",
 				baseDir.resolve("nodejs"));
+		this.nodeManager.getData().setStoreDir(
+				project.getGradle().getGradleUserHomeDir().toPath().resolve("nodejs"));
+		this.nodeManager.getData().setOffline(project.getGradle().getStartParameter().isOffline());
 		this.packagerManager = new PackagerManagerInternal(project, baseDir);
 		this.platformSpecific = platformSpecific;
+		this.workspaces = ValueHolder.racy(() -> detectWorkspaces(project));
 	}
 
 	public NodeManager getNodeManager() {
@@ -117,9 +129,12 @@ public class NodeExtension implements PackagerManager {
 	}
 
 	/**
-	 * Defines nodeJs version to be downloaded
+	 * Defines nodeJs version to be downloaded. Besides exact version
+	 * aliases are accepted, e.g. {@code lts}, {@code lts/gallium},
+	 * {@code latest} or {@code latest-18}. Aliases are resolved from
+	 * {@code index.json} of configured {@link #getUrl()}.
 	 * @see #setDownload(boolean)
-	 * @param version NodeJS version string
+	 * @param version NodeJS version string or alias
 	 */
 	public void setVersion(String version) {
 		nodeManager.getData().setVersion(version);
@@ -153,6 +168,219 @@ public class NodeExtension implements PackagerManager {
 		nodeManager.getData().setWorkingDir(workingDir);
 	}
 
+	/**
+	 * Defines whether downloaded NodeJS and packagers are kept in store
+	 * shared by all projects on this machine.
+	 * @return {@code true} if shared store is used
+	 */
+	public Boolean getSharedStore() {
+		return nodeManager.getData().isSharedStore();
+	}
+
+	/**
+	 * Enables store of NodeJS distributions shared by all projects on
+	 * this machine. Each distribution is extracted only once into
+	 * {@link #getStoreDir()} and all projects refer to it instead of
+	 * their own {@link #getWorkingDir()}. The same applies to downloaded
+	 * packager versions stored in {@code packagers} directory of the store.
+	 * @see #setDownload(boolean)
+	 * @param sharedStore {@code true} to use shared store
+	 */
+	public void setSharedStore(boolean sharedStore) {
+		nodeManager.getData().setSharedStore(sharedStore);
+	}
+
+	/**
+	 * Get location of NodeJS store shared across projects
+	 * @return Shared store directory as {@link File}
+	 */
+	public File getStoreDir() {
+		return nodeManager.getData().getStoreDir().toFile();
+	}
+
+	/**
+	 * Defines location of NodeJS store shared across projects. Defaults
+	 * to {@code nodejs} directory within gradle user home.
+	 * @see #setSharedStore(boolean)
+	 * @param storeDir Shared store directory
+	 */
+	public void setStoreDir(File storeDir) {
+		nodeManager.getData().setStoreDir(storeDir.toPath());
+	}
+
+	/**
+	 * Defines whether gradle fingerprints all files of downloaded NodeJS
+	 * to decide whether setup is up-to-date.
+	 * @return {@code true} if whole distribution is fingerprinted
+	 */
+	public Boolean getFingerprintDistribution() {
+		return nodeManager.getData().isFingerprintDistribution();
+	}
+
+	/**
+	 * Defines whether gradle fingerprints all files of downloaded NodeJS
+	 * to decide whether setup is up-to-date. When disabled, the decision is
+	 * made from completion marker written by setup (version, archive
+	 * checksum, file count) and presence of node executable. This saves
+	 * snapshotting tens of thousands of files on every build.
+	 * @see #setDownload(boolean)
+	 * @param fingerprintDistribution {@code false} to use completion marker
+	 */
+	public void setFingerprintDistribution(boolean fingerprintDistribution) {
+		nodeManager.getData().setFingerprintDistribution(fingerprintDistribution);
+	}
+
+	/**
+	 * Defines whether downloaded NodeJS archive is verified against
+	 * checksums published along with the distribution.
+	 * @return {@code true} if archive checksum is verified
+	 */
+	public Boolean getVerifyChecksum() {
+		return nodeManager.getData().isVerifyChecksum();
+	}
+
+	/**
+	 * Defines whether downloaded NodeJS archive is verified against
+	 * {@code SHASUMS256.txt} published along with the distribution.
+	 * Verified archives are remembered, so the archive is hashed only
+	 * once unless it changes. Enabled by default.
+	 * @see #setDownload(boolean)
+	 * @param verifyChecksum {@code false} to trust downloaded archive
+	 */
+	public void setVerifyChecksum(boolean verifyChecksum) {
+		nodeManager.getData().setVerifyChecksum(verifyChecksum);
+	}
+
+	/**
+	 * Get patterns of NodeJS distribution paths to extract
+	 * @return Include patterns of extracted paths
+	 */
+	public List<String> getExtractIncludes() {
+		return nodeManager.getData().getExtractIncludes();
+	}
+
+	/**
+	 * Defines patterns of NodeJS distribution paths to extract, e.g.
+	 * {@code bin/**}. Patterns are relative to distribution root and
+	 * pattern matching a directory includes all its content. Everything
+	 * is extracted when no pattern is defined.
+	 * @see #setDownload(boolean)
+	 * @param extractIncludes Include patterns of extracted paths
+	 */
+	public void setExtractIncludes(List<String> extractIncludes) {
+		nodeManager.getData().setExtractIncludes(extractIncludes);
+	}
+
+	/**
+	 * Get patterns of NodeJS distribution paths not to extract
+	 * @return Exclude patterns of extracted paths
+	 */
+	public List<String> getExtractExcludes() {
+		return nodeManager.getData().getExtractExcludes();
+	}
+
+	/**
+	 * Defines patterns of NodeJS distribution paths not to extract, e.g.
+	 * {@code include} or {@code share/**}. Excludes take precedence
+	 * over includes.
+	 * @see #setExtractIncludes(List)
+	 * @param extractExcludes Exclude patterns of extracted paths
+	 */
+	public void setExtractExcludes(List<String> extractExcludes) {
+		nodeManager.getData().setExtractExcludes(extractExcludes);
+	}
+
+	/**
+	 * Defines whether only minimal NodeJS runtime is extracted.
+	 * @return {@code true} if minimal runtime is extracted
+	 */
+	public Boolean getMinimalRuntime() {
+		return nodeManager.getData().isMinimalRuntime();
+	}
+
+	/**
+	 * Extracts only minimal NodeJS runtime, i.e. node executable and npm
+	 * required by any packager, skipping headers, docs, man pages and
+	 * corepack. The preset is combined with {@link #getExtractIncludes()}.
+	 * @see #setDownload(boolean)
+	 * @param minimalRuntime {@code true} to extract minimal runtime only
+	 */
+	public void setMinimalRuntime(boolean minimalRuntime) {
+		nodeManager.getData().setMinimalRuntime(minimalRuntime);
+	}
+
+	/**
+	 * Defines whether NodeJS and packagers are set up from local caches
+	 * only.
+	 * @return {@code true} in offline mode
+	 */
+	public Boolean getOffline() {
+		return nodeManager.getData().isOffline();
+	}
+
+	/**
+	 * Defines whether NodeJS and packagers are set up from local caches
+	 * only. Defaults to gradle {@code --offline} option. In offline mode
+	 * NodeJS archives are taken from archive store within
+	 * {@link #getStoreDir()}, version aliases from cached index and
+	 * packagers from npm cache. Setup fails immediately when anything is
+	 * missing.
+	 * @param offline {@code true} to disable network access
+	 */
+	public void setOffline(boolean offline) {
+		nodeManager.getData().setOffline(offline);
+	}
+
+	/**
+	 * Defines whether node and packager tasks execute their command by
+	 * gradle worker.
+	 * @return {@code true} if commands are executed asynchronously
+	 */
+	public Boolean getAsync() {
+		return nodeManager.getData().isAsync();
+	}
+
+	/**
+	 * Defines whether node and packager tasks execute their command by
+	 * gradle worker, so that independent tasks of the same project run in
+	 * parallel. Disabled by default, tasks may override it.
+	 * @param async {@code true} to execute commands by gradle worker
+	 */
+	public void setAsync(boolean async) {
+		nodeManager.getData().setAsync(async);
+	}
+
+	/**
+	 * Gets package cache directory of packagers
+	 * @return Package cache directory or {@code null} when packagers use their own configuration
+	 */
+	@Nullable
+	public File getCacheDir() {
+		return Optional.ofNullable(nodeManager.getData().getCacheDir()).map(Path::toFile).orElse(null);
+	}
+
+	/**
+	 * Defines package cache directory used by all packagers of all tasks,
+	 * so warm installs hit single persistent store even on ephemeral
+	 * machines. Each packager uses its own sub-directory, i.e. {@code npm},
+	 * {@code pnpm-store} and {@code yarn}.
+	 * @param cacheDir Package cache directory, e.g. {@code file("${gradle.gradleUserHomeDir}/nodejs/cache")}
+	 */
+	public void setCacheDir(@Nullable File cacheDir) {
+		nodeManager.getData().setCacheDir(cacheDir == null ? null : cacheDir.toPath());
+	}
+
+	/**
+	 * Gets workspace packages of monorepo declared in project's {@code package.json}
+	 * or {@code pnpm-workspace.yaml}. Build tasks of single workspace may use its
+	 * directory as input, so that changes of other workspaces don't invalidate them.
+	 * Workspaces are detected once on first use, build directory of the project is never searched.
+	 * @return Workspace directories keyed by package name
+	 */
+	public Map<String, File> getWorkspaces() {
+		return workspaces.get();
+	}
+
 	/**
 	 * Gets URL location to NodeJS repository
 	 * @return URL to NodeJS repository
@@ -169,6 +397,77 @@ public class NodeExtension implements PackagerManager {
 		nodeManager.getData().setUrl(url);
 	}
 
+	/**
+	 * Gets URL locations of NodeJS repository mirrors
+	 * @return URLs of NodeJS repository mirrors
+	 */
+	public List<String> getMirrors() {
+		return nodeManager.getData().getMirrors();
+	}
+
+	/**
+	 * Defines URL locations of NodeJS repository mirrors used along with
+	 * {@link #getUrl()}. Mirrors which failed recently are tried last,
+	 * others in order of their past download time, so a slow or flaky
+	 * repository doesn't fail the build.
+	 * @param mirrors URLs of NodeJS repository mirrors
+	 */
+	public void setMirrors(List<String> mirrors) {
+		nodeManager.getData().setMirrors(mirrors);
+	}
+
+	/**
+	 * Gets policy of removing unused NodeJS and packager versions
+	 * @return Cleanup policy
+	 */
+	public Cleanup getCleanup() {
+		return nodeManager.getData().getCleanup();
+	}
+
+	/**
+	 * Configures policy of removing unused NodeJS and packager versions.
+	 * The cleanup is executed by {@code nodeCleanup} task, or after setup
+	 * when automatic.
+	 * @param action Action configuring cleanup policy
+	 */
+	public void cleanup(Action<Cleanup> action) {
+		action.execute(nodeManager.getData().getCleanup());
+	}
+
+	/**
+	 * Gets configuration of node daemons executing node tasks
+	 * @return Daemon configuration
+	 */
+	public Daemon getDaemon() {
+		return nodeManager.getData().getDaemon();
+	}
+
+	/**
+	 * Configures node daemons, long-lived node processes executing
+	 * scripts of node tasks instead of starting node for each task.
+	 * @param action Action configuring daemons
+	 */
+	public void daemon(Action<Daemon> action) {
+		action.execute(nodeManager.getData().getDaemon());
+	}
+
+	/**
+	 * Gets limits of node processes running at once in the build
+	 * @return Process limits
+	 */
+	public Processes getProcesses() {
+		return nodeManager.getData().getProcesses();
+	}
+
+	/**
+	 * Configures limits of node processes running at once across all
+	 * projects of the build, i.e. maximum of processes and memory budget.
+	 * @param action Action configuring process limits
+	 */
+	public void processes(Action<Processes> action) {
+		action.execute(nodeManager.getData().getProcesses());
+	}
+
 	/**
 	 * Gets utility to handle platform specifics. It's managed via
 	 * extension to make it accessible over the plugin plus it still
@@ -203,4 +502,13 @@ public class NodeExtension implements PackagerManager {
 	public void custom(Action<CustomPackager> action) {
 		packagerManager.custom(action);
 	}
+
+	private static Map<String, File> detectWorkspaces(Project project) {
+		File projectDir = project.getProjectDir();
+		File buildDir = project.getLayout().getBuildDirectory().getAsFile().get();
+		Map<String, File> workspaces = new LinkedHashMap<>();
+		Workspaces.detect(projectDir.toPath(), List.of(buildDir.toPath()))
+				.forEach((name, path) -> workspaces.put(name, new File(projectDir, path)));
+		return workspaces;
+	}
 }
@@ -101,4 +101,38 @@ public interface Packager {
 	 */
 	File getWorkingDir();
 
+	/**
+	 * Defines npm registry the packager is downloaded from. This makes
+	 * sense only when download is required. When not specified the
+	 * public npm registry is used.
+	 * @see NodeExtension#setDownload(boolean)
+	 * @param registry Registry URL, e.g. {@code https://registry.npmjs.org}
+	 * @return This packager instance
+	 */
+	Packager setRegistry(String registry);
+
+	/**
+	 * Gets optional npm registry of packager download.
+	 * @return Optional registry URL
+	 */
+	Optional<String> getRegistry();
+
+	/**
+	 * Enables provisioning of packager by corepack bundled with NodeJS
+	 * instead of npm install. Supported by pnpm and yarn when downloaded
+	 * NodeJS contains corepack, otherwise packager is installed as usual.
+	 * The {@code packageManager} field of project's {@code package.json}
+	 * takes precedence over packager version.
+	 * @see NodeExtension#setDownload(boolean)
+	 * @param corepack {@code true} to use corepack
+	 * @return This packager instance
+	 */
+	Packager setCorepack(boolean corepack);
+
+	/**
+	 * Checks whether packager is provisioned by corepack.
+	 * @return {@code true} if corepack is used
+	 */
+	boolean getCorepack();
+
 }
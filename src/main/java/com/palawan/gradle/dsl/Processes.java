@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.dsl;
+
+/**
+ * Limits of node processes started by node, packager and install tasks
+ * of all projects in the build. The limits are shared by the whole build,
+ * so they're taken from the first project applying the plugin, usually
+ * the root project.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public interface Processes {
+
+	/**
+	 * Defines maximum of node processes running at once.
+	 * @param maxParallel Maximum of processes, {@code 0} for unlimited
+	 * @return These limits
+	 */
+	Processes setMaxParallel(int maxParallel);
+
+	/**
+	 * Get maximum of node processes running at once, defaults to number
+	 * of available processors.
+	 * @return Maximum of processes, {@code 0} for unlimited
+	 */
+	int getMaxParallel();
+
+	/**
+	 * Defines memory budget shared by all running node processes.
+	 * @param memoryBudget Memory budget in bytes, {@code 0} for unlimited
+	 * @return These limits
+	 */
+	Processes setMemoryBudget(long memoryBudget);
+
+	/**
+	 * Get memory budget shared by all running node processes.
+	 * @return Memory budget in bytes, {@code 0} for unlimited
+	 */
+	long getMemoryBudget();
+
+	/**
+	 * Defines memory estimate of single node process reserved from
+	 * memory budget. Tasks may override it.
+	 * @param processMemory Memory estimate in bytes
+	 * @return These limits
+	 */
+	Processes setProcessMemory(long processMemory);
+
+	/**
+	 * Get memory estimate of single node process.
+	 * @return Memory estimate in bytes
+	 */
+	long getProcessMemory();
+
+}
@@ -28,10 +28,7 @@ package com.palawan.gradle.internal;
 import com.palawan.gradle.util.PlatformSpecific;
 
 import javax.annotation.Nullable;
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.PosixFilePermission;
 import java.util.*;
 
 /**
@@ -153,23 +150,4 @@ abstract class AbstractExecutable {
 				getExecutableBinDir().resolve(command).toAbsolutePath().toString();
 	}
 
-	/**
-	 * Defines downloaded files to be executable. Available only on Unix base
-	 * systems with posix file permissions.
-	 * The method also takes care of proper link to script files from node manager
-	 * bin directory
-	 * @throws IOException File permission change error
-	 */
-	void setExecutablePosixRights(Set<PosixFilePermission> permissions) throws IOException {
-		Objects.requireNonNull(nodeManager, "Operation requires NodeManager");
-		Path link = nodeManager.getBinDir().resolve(getCommand());
-		Path target = getScriptFile().orElseThrow(() -> new NodeException("Operation requires node packager script"));
-
-		if (Files.deleteIfExists(link)) {
-			Files.setPosixFilePermissions(target, permissions);
-			Files.createSymbolicLink(link, link.getParent().relativize(target));
-			Files.setPosixFilePermissions(link, permissions);
-		}
-	}
-
 }
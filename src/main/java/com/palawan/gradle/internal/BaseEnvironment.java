@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Immutable snapshot of system environment with plugin path locations
+ * already appended to the {@code PATH} variable. Executions set the
+ * snapshot as process environment and apply only their additional
+ * variables on top of it. Snapshots aren't cached, taking one is
+ * negligible compared to starting the process.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public final class BaseEnvironment {
+
+	private final Map<String, String> systemVariables;
+	private final List<String> path;
+	private final Map<String, String> variables;
+
+	private BaseEnvironment(Map<String, String> systemVariables, List<String> path) {
+		this.systemVariables = Collections.unmodifiableMap(new HashMap<>(systemVariables));
+		this.path = path;
+		this.variables = path.isEmpty() ? this.systemVariables : Collections.unmodifiableMap(withPath(systemVariables, path));
+	}
+
+	/**
+	 * Takes snapshot of given system variables extended by path locations.
+	 * @param systemVariables System variables
+	 * @param path Locations appended to {@code PATH}
+	 * @return Base environment
+	 */
+	public static BaseEnvironment of(Map<String, String> systemVariables, List<String> path) {
+		return new BaseEnvironment(systemVariables, List.copyOf(path));
+	}
+
+	/**
+	 * Gets immutable base variables, i.e. system variables with extended path.
+	 * @return Base variables
+	 */
+	public Map<String, String> getVariables() {
+		return variables;
+	}
+
+	/**
+	 * Gets additional variables to be applied on top of base variables.
+	 * Path locations are appended to path variable defined by the overrides.
+	 * @param overrides Additional variables
+	 * @return Additional variables with extended path
+	 */
+	public Map<String, String> overrides(Map<String, String> overrides) {
+		if (path.isEmpty()) {
+			return overrides;
+		}
+		String pathName = systemVariables.containsKey("Path") || overrides.containsKey("Path") ? "Path" : "PATH";
+		if (!overrides.containsKey(pathName)) {
+			return overrides;
+		}
+		return withPath(overrides, path);
+	}
+
+	/**
+	 * Gets base variables overridden by additional variables. Path
+	 * locations are appended to path variable defined by the overrides.
+	 * @param overrides Additional variables
+	 * @return Process environment
+	 */
+	public Map<String, String> with(Map<String, String> overrides) {
+		if (overrides.isEmpty()) {
+			return variables;
+		}
+		Map<String, String> environment = new HashMap<>(variables);
+		environment.putAll(overrides(overrides));
+		return environment;
+	}
+
+	private static Map<String, String> withPath(Map<String, String> variables, List<String> path) {
+		Map<String, String> environment = new HashMap<>(variables);
+		String pathName = environment.containsKey("Path") ? "Path" : "PATH";
+		String locations = String.join(File.pathSeparator, path);
+		String value = environment.get(pathName);
+		environment.put(pathName, value != null ? value + File.pathSeparator + locations : locations);
+		return environment;
+	}
+
+}
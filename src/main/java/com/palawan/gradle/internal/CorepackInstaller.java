@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import com.palawan.gradle.util.PlatformSpecific;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Provisions packager using corepack bundled with NodeJS. Corepack
+ * downloads requested packager version into its home directory, which
+ * is shared by all projects, so later activations are instant. The
+ * packager executables are shims invoking corepack with pinned version,
+ * which take precedence over {@code packageManager} field of project's
+ * {@code package.json}.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class CorepackInstaller {
+
+	private final Path corepackHome;
+	private final boolean offline;
+	private final PlatformSpecific platformSpecific;
+
+	/**
+	 * Creates corepack installer.
+	 * @param corepackHome Corepack home directory of downloaded packagers
+	 * @param offline {@code true} to prevent corepack from downloading packagers
+	 * @param platformSpecific Platform specific to create shims for
+	 */
+	public CorepackInstaller(Path corepackHome, boolean offline, PlatformSpecific platformSpecific) {
+		this.corepackHome = corepackHome;
+		this.offline = offline;
+		this.platformSpecific = platformSpecific;
+	}
+
+	/**
+	 * Gets environment variables of corepack execution.
+	 * @return Corepack environment variables
+	 */
+	public Map<String, String> getEnvironment() {
+		Map<String, String> environment = getShimEnvironment();
+		if (offline) {
+			environment.put("COREPACK_ENABLE_NETWORK", "0");
+		}
+		return environment;
+	}
+
+	/**
+	 * Gets corepack arguments preparing packager version within corepack
+	 * home. The packager is executed to print its version, which works
+	 * regardless of corepack version.
+	 * @param binary Packager binary name, e.g. {@code pnpm}
+	 * @param version Packager version or {@code latest}
+	 * @return Corepack arguments
+	 */
+	public List<String> getPrepareArgs(String binary, String version) {
+		return List.of(spec(binary, version), "--version");
+	}
+
+	/**
+	 * Creates shims of packager executables within installation prefix.
+	 * @param prefix Installation prefix
+	 * @param binaries Executable names mapped to corepack binary names
+	 * @param version Packager version or {@code latest}
+	 * @throws IOException Shim can't be written
+	 */
+	public void writeShims(Path prefix, Map<String, String> binaries, String version) throws IOException {
+		Path binDir = platformSpecific.getBinPath(prefix);
+		Files.createDirectories(binDir);
+		for (Map.Entry<String, String> binary : binaries.entrySet()) {
+			Path shim = binDir.resolve(binary.getKey());
+			StringBuilder content = new StringBuilder();
+			if (platformSpecific.isWindows()) {
+				content.append("@ECHO off\r\nSETLOCAL\r\n");
+				getShimEnvironment().forEach((k, v) -> content.append("SET ").append(k).append('=').append(cmdEscape(v)).append("\r\n"));
+				content.append("corepack ").append(spec(binary.getValue(), version)).append(" %*\r\n");
+				Files.writeString(shim, content);
+			} else {
+				content.append("#!/bin/sh\n");
+				getShimEnvironment().forEach((k, v) -> content.append(k).append('=').append(shQuote(v)).append('\n')
+						.append("export ").append(k).append('\n'));
+				content.append("exec corepack ").append(spec(binary.getValue(), version)).append(" \"$@\"\n");
+				Files.writeString(shim, content);
+				makeExecutable(shim);
+			}
+		}
+	}
+
+	/** Offline mode of setup doesn't apply to later executions */
+	private Map<String, String> getShimEnvironment() {
+		Map<String, String> environment = new LinkedHashMap<>();
+		environment.put("COREPACK_HOME", corepackHome.toAbsolutePath().toString());
+		environment.put("COREPACK_ENABLE_DOWNLOAD_PROMPT", "0");
+		return environment;
+	}
+
+	/** Single quotes can't be escaped within single quoted string, so quoting ends around them */
+	private static String shQuote(String value) {
+		return "'" + value.replace("'", "'\\''") + "'";
+	}
+
+	/** Unquoted value of SET, quotes and special characters are escaped by caret, percent signs doubled */
+	private static String cmdEscape(String value) {
+		return value.replaceAll("([\\^&|<>()\"])", "^$1").replace("%", "%%");
+	}
+
+	private static String spec(String binary, String version) {
+		// corepack uses its known good version when none is given
+		return "latest".equals(version) ? binary : binary + "@" + version;
+	}
+
+	private static void makeExecutable(Path file) throws IOException {
+		PosixFileAttributeView view = Files.getFileAttributeView(file, PosixFileAttributeView.class);
+		if (view != null) {
+			Set<PosixFilePermission> permissions = view.readAttributes().permissions();
+			permissions.add(PosixFilePermission.OWNER_EXECUTE);
+			permissions.add(PosixFilePermission.GROUP_EXECUTE);
+			permissions.add(PosixFilePermission.OTHERS_EXECUTE);
+			view.setPermissions(permissions);
+		}
+	}
+
+}
@@ -0,0 +1,187 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import groovy.json.JsonOutput;
+import groovy.json.JsonSlurper;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Difference of dependencies between previously installed and current
+ * {@code package.json}. The delta allows targeted install of changed
+ * packages only, e.g. {@code npm install --save-dev eslint@^8.0.0},
+ * which skips resolution of the whole dependency tree.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class DependencyDelta {
+
+	/** Dependency sections of package.json the delta is computed for */
+	public static final List<String> SECTIONS = List.of("dependencies", "devDependencies", "optionalDependencies");
+
+	/** Prefix of dependency entries within install manifest */
+	static final String DEPENDENCY = "dependency.";
+	/** Prefix of other package.json fields within install manifest */
+	static final String FIELD = "field.";
+
+	/** Specifications which can't be installed by name, e.g. local folders */
+	private static final List<String> LOCAL_SPECS = List.of("file:", "link:", "workspace:", "portal:", "patch:");
+
+	private final Map<String, List<String>> added;
+	private final List<String> removed;
+
+	private DependencyDelta(Map<String, List<String>> added, List<String> removed) {
+		this.added = added;
+		this.removed = removed;
+	}
+
+	/**
+	 * Adds dependencies and remaining fields of given package.json into
+	 * install manifest. Remaining fields are stored as JSON, so that any
+	 * change of e.g. {@code overrides} is detected.
+	 * @param packageJson Project's package.json
+	 * @param state Install manifest to be filled
+	 * @return Given install manifest
+	 */
+	public static InstallState snapshot(Path packageJson, InstallState state) {
+		Map<?, ?> json = readJson(packageJson);
+		for (Map.Entry<?, ?> entry : new TreeMap<>(json).entrySet()) {
+			String field = String.valueOf(entry.getKey());
+			if (SECTIONS.contains(field) && entry.getValue() instanceof Map) {
+				((Map<?, ?>) entry.getValue()).forEach((name, spec) ->
+						state.put(DEPENDENCY + field + "." + name, String.valueOf(spec)));
+			} else {
+				state.put(FIELD + field, JsonOutput.toJson(entry.getValue()));
+			}
+		}
+		return state;
+	}
+
+	/**
+	 * Computes delta between previous and current install manifest.
+	 * @param previous Manifest of previous install
+	 * @param current Manifest of current package.json
+	 * @param maxPackages Maximum of changed packages delta may consist of
+	 * @return Delta or empty when full install is required, e.g. no previous
+	 * install, lock file or other fields changed or too many packages changed
+	 */
+	public static Optional<DependencyDelta> compute(Map<String, String> previous, Map<String, String> current, int maxPackages) {
+		if (previous.isEmpty() || !withoutDependencies(previous).equals(withoutDependencies(current))) {
+			return Optional.empty();
+		}
+
+		Map<String, List<String>> added = new LinkedHashMap<>();
+		Set<String> currentNames = new TreeSet<>();
+		int count = 0;
+		for (Map.Entry<String, String> entry : new TreeMap<>(current).entrySet()) {
+			if (!entry.getKey().startsWith(DEPENDENCY)) {
+				continue;
+			}
+			String[] sectionName = entry.getKey().substring(DEPENDENCY.length()).split("\\.", 2);
+			currentNames.add(sectionName[1]);
+			if (Objects.equals(previous.get(entry.getKey()), entry.getValue())) {
+				continue;
+			}
+			if (LOCAL_SPECS.stream().anyMatch(entry.getValue()::startsWith)) {
+				return Optional.empty();
+			}
+			added.computeIfAbsent(sectionName[0], s -> new ArrayList<>()).add(sectionName[1] + "@" + entry.getValue());
+			count++;
+		}
+
+		List<String> removed = new ArrayList<>();
+		for (String key : new TreeSet<>(previous.keySet())) {
+			if (key.startsWith(DEPENDENCY)) {
+				String name = key.substring(DEPENDENCY.length()).split("\\.", 2)[1];
+				if (!currentNames.contains(name) && !removed.contains(name)) {
+					removed.add(name);
+					count++;
+				}
+			}
+		}
+
+		return count > maxPackages ? Optional.empty() : Optional.of(new DependencyDelta(added, removed));
+	}
+
+	/**
+	 * Gets added or changed packages, e.g. {@code eslint@^8.0.0}, keyed by
+	 * package.json section.
+	 * @return Added packages by section
+	 */
+	public Map<String, List<String>> getAdded() {
+		return added;
+	}
+
+	/**
+	 * Gets names of packages removed from all sections.
+	 * @return Removed packages
+	 */
+	public List<String> getRemoved() {
+		return removed;
+	}
+
+	/**
+	 * Checks whether no dependency changed, e.g. only formatting of
+	 * package.json did.
+	 * @return {@code true} if there is nothing to install
+	 */
+	public boolean isEmpty() {
+		return added.isEmpty() && removed.isEmpty();
+	}
+
+	private static Map<String, String> withoutDependencies(Map<String, String> manifest) {
+		Map<String, String> result = new TreeMap<>(manifest);
+		result.keySet().removeIf(k -> k.startsWith(DEPENDENCY));
+		return result;
+	}
+
+	private static Map<?, ?> readJson(Path packageJson) {
+		try (Reader reader = Files.newBufferedReader(packageJson)) {
+			Object json = new JsonSlurper().parse(reader);
+			if (!(json instanceof Map)) {
+				throw new NodeException("Invalid " + packageJson);
+			}
+			return (Map<?, ?>) json;
+		} catch (IOException e) {
+			throw new NodeException("Unable to read " + packageJson, e);
+		}
+	}
+
+}
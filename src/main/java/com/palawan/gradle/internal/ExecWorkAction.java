@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.process.ExecOperations;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+
+import javax.inject.Inject;
+import java.io.File;
+
+/**
+ * Worker action executing single command sequentially in each of given
+ * working directories. Used to run executables outside of task thread,
+ * e.g. parallel installs of several package roots.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public abstract class ExecWorkAction implements WorkAction<ExecWorkAction.Parameters> {
+
+	@Inject
+	protected abstract ExecOperations getExecOperations();
+
+	@Override
+	@SuppressWarnings("try")
+	public void execute() {
+		Parameters parameters = getParameters();
+		ExecutableData executable = new ExecutableData()
+				.setExecutable(parameters.getExecutable().get())
+				.setArgs(parameters.getArgs().get())
+				.addEnvironmentVariables(parameters.getEnvironment().get())
+				.setIgnoreExitValue(parameters.getIgnoreExitValue().get());
+		parameters.getPath().get().forEach(executable::withPathLocation);
+		for (String workingDir : parameters.getWorkingDirs().get()) {
+			executable.setWorkingDir(new File(workingDir));
+			try (NodeProcessLimiter.Permit permit = acquire(parameters)) {
+				getExecOperations().exec(executable);
+			}
+		}
+	}
+
+	private static NodeProcessLimiter.Permit acquire(Parameters parameters) {
+		if (!parameters.getProcessLimiter().isPresent()) {
+			return NodeProcessLimiter.Permit.NONE;
+		}
+		return parameters.getProcessLimiter().get().acquire(parameters.getProcessMemory().getOrElse(0L));
+	}
+
+	/**
+	 * Parameters of executed command.
+	 */
+	public interface Parameters extends WorkParameters {
+
+		Property<String> getExecutable();
+
+		ListProperty<String> getArgs();
+
+		/**
+		 * Additional variables overriding environment of the worker.
+		 * @return Additional variables
+		 */
+		MapProperty<String, String> getEnvironment();
+
+		/**
+		 * Locations appended to path variable.
+		 * @return Path locations
+		 */
+		ListProperty<String> getPath();
+
+		Property<Boolean> getIgnoreExitValue();
+
+		/**
+		 * Working directories the command is executed in, one after another.
+		 * @return Working directories
+		 */
+		ListProperty<String> getWorkingDirs();
+
+		/**
+		 * Limiter of node processes running at once, processes aren't
+		 * limited when missing.
+		 * @return Process limiter
+		 */
+		Property<NodeProcessLimiter> getProcessLimiter();
+
+		/**
+		 * Memory estimate of the process reserved from memory budget.
+		 * @return Memory estimate in bytes
+		 */
+		Property<Long> getProcessMemory();
+
+		/**
+		 * Copies executable configuration into the parameters.
+		 * @param executable Executable data
+		 */
+		default void from(ExecutableData executable) {
+			getExecutable().set(executable.getExecutable());
+			getArgs().set(executable.getArgs());
+			getEnvironment().set(executable.getEnvironmentVariables());
+			getPath().set(executable.getPath());
+			getIgnoreExitValue().set(executable.getIgnoreExitValue());
+		}
+	}
+}
@@ -30,8 +30,6 @@ import org.gradle.process.ExecSpec;
 
 import java.io.File;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * @author petr.langr
@@ -67,7 +65,11 @@ public class ExecutableData implements Action<ExecSpec> {
 		execSpec.setExecutable(executable);
 		execSpec.setArgs(args);
 		execSpec.setWorkingDir(workingDir);
-		execSpec.setEnvironment(computePath());
+		BaseEnvironment base = BaseEnvironment.of(systemVariables, path);
+		execSpec.setEnvironment(base.getVariables());
+		if (!environmentVariables.isEmpty()) {
+			execSpec.environment(base.overrides(environmentVariables));
+		}
 	}
 
 	public ExecutableData setIgnoreExitValue(boolean ignoreExitValue) {
@@ -115,28 +117,45 @@ public class ExecutableData implements Action<ExecSpec> {
 		return this;
 	}
 
-	private Map<String, ?> computePath() {
-		Map<String, String> env = new HashMap<>();
-		env.putAll(systemVariables);
-		env.putAll(environmentVariables);
+	public String getExecutable() {
+		return executable;
+	}
 
-		if (!path.isEmpty()) {
+	public List<String> getArgs() {
+		return args;
+	}
 
-			String pathName = env.containsKey("Path") ? "Path" : "PATH";
-			final String pathValue;
+	public File getWorkingDir() {
+		return workingDir;
+	}
 
-			if (env.get(pathName) != null) {
-				pathValue = Stream.concat(Arrays.stream(env.get(pathName).split(File.pathSeparator)), path.stream())
-						.collect(Collectors.joining(File.pathSeparator));
-			} else {
-				pathValue = String.join(File.pathSeparator, path);
-			}
+	public boolean getIgnoreExitValue() {
+		return ignoreExitValue;
+	}
 
-			env.put(pathName, pathValue);
+	/**
+	 * Gets additional variables overriding system variables.
+	 * @return Additional variables
+	 */
+	public Map<String, String> getEnvironmentVariables() {
+		return environmentVariables;
+	}
 
-			return env;
-		}
-		return env;
+	/**
+	 * Gets locations appended to path variable.
+	 * @return Path locations
+	 */
+	public List<String> getPath() {
+		return path;
+	}
+
+	/**
+	 * Gets complete process environment, i.e. system variables overridden
+	 * by additional variables with extended path, see {@link BaseEnvironment}.
+	 * @return Process environment
+	 */
+	public Map<String, String> getEnvironment() {
+		return BaseEnvironment.of(systemVariables, path).with(environmentVariables);
 	}
 
 }
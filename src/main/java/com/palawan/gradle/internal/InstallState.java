@@ -0,0 +1,155 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import com.palawan.gradle.util.Checksums;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Compact manifest of installed node packages. The manifest consists of
+ * hashes of lock files, packager and NodeJS versions and hashes of
+ * state files the packager writes into {@code node_modules}, e.g.
+ * {@code .package-lock.json}. Comparing manifest with the stored one
+ * replaces fingerprint of whole {@code node_modules} directory.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class InstallState {
+
+	/** Marks missing file within manifest */
+	static final String MISSING = "missing";
+
+	private final Path stateFile;
+	private final Properties state = new Properties();
+
+	/**
+	 * Creates empty manifest stored in given file.
+	 * @param stateFile Manifest properties file
+	 */
+	public InstallState(Path stateFile) {
+		this.stateFile = stateFile;
+	}
+
+	/**
+	 * Get manifest file location
+	 * @return Manifest file
+	 */
+	public Path getStateFile() {
+		return stateFile;
+	}
+
+	/**
+	 * Adds value into manifest.
+	 * @param key Manifest key, e.g. {@code node}
+	 * @param value Value of the key
+	 * @return This manifest
+	 */
+	public InstallState put(String key, String value) {
+		state.setProperty(key, value);
+		return this;
+	}
+
+	/**
+	 * Adds SHA-256 checksum of given file into manifest.
+	 * @param key Manifest key, e.g. {@code lockfile.package-lock.json}
+	 * @param file File to be hashed, may not exist
+	 * @return This manifest
+	 */
+	public InstallState putFile(String key, Path file) {
+		try {
+			return put(key, Files.isRegularFile(file) ? Checksums.sha256(file) : MISSING);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Checks whether manifest matches the stored one.
+	 * @return {@code true} if stored manifest is equal
+	 */
+	public boolean isCurrent() {
+		return Files.isRegularFile(stateFile) && getStored().equals(getValues());
+	}
+
+	/**
+	 * Gets values of this manifest.
+	 * @return Manifest values
+	 */
+	public Map<String, String> getValues() {
+		return toMap(state);
+	}
+
+	/**
+	 * Reads manifest stored by previous {@link #write()}.
+	 * @return Stored manifest values, empty when missing or unreadable
+	 */
+	public Map<String, String> getStored() {
+		Properties stored = new Properties();
+		if (Files.isRegularFile(stateFile)) {
+			try (Reader reader = Files.newBufferedReader(stateFile)) {
+				stored.load(reader);
+			} catch (IOException e) {
+				return Map.of();
+			}
+		}
+		return toMap(stored);
+	}
+
+	/**
+	 * Stores manifest replacing the previous one.
+	 * @throws IOException Manifest write error
+	 */
+	public void write() throws IOException {
+		Files.createDirectories(stateFile.getParent());
+		Path temp = Files.createTempFile(stateFile.getParent(), stateFile.getFileName().toString(), ".tmp");
+		try {
+			try (Writer writer = Files.newBufferedWriter(temp)) {
+				state.store(writer, "Node install state");
+			}
+			Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private static Map<String, String> toMap(Properties properties) {
+		Map<String, String> values = new HashMap<>();
+		properties.stringPropertyNames().forEach(k -> values.put(k, properties.getProperty(k)));
+		return values;
+	}
+
+}
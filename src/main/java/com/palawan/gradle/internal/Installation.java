@@ -0,0 +1,402 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Represents single installation directory, e.g. specific version of
+ * NodeJS. The installation is always prepared within temporary sibling
+ * directory and moved into its final location once complete. This way
+ * other projects sharing the same directory never see partial content.
+ * Installation is guarded by lock file next to the directory, so that
+ * only one of concurrent builds installs while others wait and reuse
+ * its result.
+ * <p>Complete installation contains marker file written as the last
+ * step of installation. The marker holds installer provided attributes
+ * (e.g. version) along with number of files and overall size.</p>
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class Installation {
+
+	/** Installation marker file name */
+	public static final String MARKER = ".installation.properties";
+	/** Marker attribute with installed version */
+	public static final String VERSION = "version";
+	/** Marker attribute with number of installed files */
+	public static final String FILES = "files";
+	/** Marker attribute with overall size of installed files in bytes */
+	public static final String SIZE = "size";
+	/** Default maximum time to wait for installation of other process */
+	public static final Duration LOCK_TIMEOUT = Duration.ofMinutes(10);
+
+	private final Path directory;
+	private final Predicate<Properties> complete;
+	private Duration lockTimeout = LOCK_TIMEOUT;
+
+	/**
+	 * Creates installation of given directory.
+	 * @param directory Final installation directory
+	 * @param complete Probe deciding whether existing marker belongs
+	 *                 to complete installation
+	 */
+	public Installation(Path directory, Predicate<Properties> complete) {
+		this.directory = Objects.requireNonNull(directory, "Installation directory required");
+		this.complete = complete;
+	}
+
+	/**
+	 * Get final installation directory
+	 * @return Installation directory
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Defines maximum time to wait for installation of other process.
+	 * @param lockTimeout Lock timeout
+	 * @return This installation
+	 */
+	public Installation lockTimeout(Duration lockTimeout) {
+		this.lockTimeout = lockTimeout;
+		return this;
+	}
+
+	/**
+	 * Get lock file guarding the installation
+	 * @return Lock file path
+	 */
+	public Path getLockFile() {
+		return directory.resolveSibling("." + directory.getFileName() + ".lock");
+	}
+
+	/**
+	 * Get installation marker file
+	 * @return Marker file path
+	 */
+	public Path getMarkerFile() {
+		return directory.resolve(MARKER);
+	}
+
+	/**
+	 * Get file recording last use of the installation
+	 * @return Usage file path
+	 */
+	public Path getUsageFile() {
+		return directory.resolveSibling("." + directory.getFileName() + ".used");
+	}
+
+	/**
+	 * Get file locked shared by running builds using the installation
+	 * @return Usage lock file path
+	 */
+	public Path getUsageLockFile() {
+		return directory.resolveSibling("." + directory.getFileName() + ".inuse");
+	}
+
+	/**
+	 * Records use of the installation. Least recently used installations
+	 * are the first to be removed by cleanup. Installation is kept in use
+	 * until the build finishes, so that cleanup of other build never removes it.
+	 * @param usage Usage locks of the build, only the use time is recorded when missing
+	 */
+	public void markUsed(@Nullable InstallationUsageService usage) {
+		if (usage != null) {
+			try {
+				usage.hold(getUsageLockFile());
+			} catch (IOException e) {
+				// usage lock is best effort only, grace period of cleanup applies
+			}
+		}
+		if (!Files.isDirectory(directory)) {
+			return;
+		}
+		try {
+			Path usageFile = getUsageFile();
+			if (!Files.exists(usageFile)) {
+				Files.createFile(usageFile);
+			}
+			Files.setLastModifiedTime(usageFile, FileTime.from(Instant.now()));
+		} catch (IOException e) {
+			// usage is best effort only, installation time is used instead
+		}
+	}
+
+	/**
+	 * Gets time of last use of the installation, i.e. time of the latest
+	 * recorded use or installation time.
+	 * @return Last use time
+	 */
+	public Instant getLastUsed() {
+		Instant lastUsed = Instant.EPOCH;
+		for (Path path : List.of(getUsageFile(), getMarkerFile(), directory)) {
+			try {
+				Instant modified = Files.getLastModifiedTime(path).toInstant();
+				lastUsed = modified.isAfter(lastUsed) ? modified : lastUsed;
+			} catch (IOException e) {
+				// not available
+			}
+		}
+		return lastUsed;
+	}
+
+	/**
+	 * Reads installation marker if available.
+	 * @return Marker attributes of existing installation
+	 */
+	public Optional<Properties> readMarker() {
+		Path marker = getMarkerFile();
+		if (!Files.isRegularFile(marker)) {
+			return Optional.empty();
+		}
+		try (Reader reader = Files.newBufferedReader(marker)) {
+			Properties properties = new Properties();
+			properties.load(reader);
+			return Optional.of(properties);
+		} catch (IOException e) {
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Checks whether installation directory contains complete installation.
+	 * Only the marker is read, the installed files are not visited.
+	 * @return {@code true} for complete installation
+	 */
+	public boolean isComplete() {
+		return readMarker().filter(complete).isPresent();
+	}
+
+	/**
+	 * Installs content unless the installation is already complete.
+	 * @param installer Installer populating given temporary directory
+	 * @return {@code true} if installer was executed
+	 */
+	@SuppressWarnings("try")
+	public boolean install(Installer installer) {
+		if (isComplete()) {
+			return false;
+		}
+		try (InstallationLock lock = InstallationLock.acquire(getLockFile(), lockTimeout)) {
+			// other process may have completed the installation meanwhile
+			if (isComplete()) {
+				return false;
+			}
+			doInstall(installer);
+			return true;
+		} catch (IOException e) {
+			throw new NodeException("Unable to install " + directory, e);
+		}
+	}
+
+	/**
+	 * Installs content replacing any existing installation. When other
+	 * process was installing at the same time, its complete installation
+	 * is reused instead.
+	 * @param installer Installer populating given temporary directory
+	 */
+	public void reinstall(Installer installer) {
+		try (InstallationLock lock = InstallationLock.acquire(getLockFile(), lockTimeout)) {
+			if (lock.hasWaited() && isComplete()) {
+				return;
+			}
+			doInstall(installer);
+		} catch (IOException e) {
+			throw new NodeException("Unable to install " + directory, e);
+		}
+	}
+
+	private void doInstall(Installer installer) throws IOException {
+		Path temp = null;
+		try {
+			Files.createDirectories(directory.getParent());
+			temp = Files.createTempDirectory(directory.getParent(), "." + directory.getFileName() + "-");
+			Map<String, String> attributes = installer.install(temp);
+			writeMarker(temp, attributes);
+
+			// existing installation is renamed aside and deleted only after
+			// the new one is in place, readers not holding the lock miss it
+			// at most between two renames instead of whole deletion
+			Path previous = null;
+			if (Files.exists(directory)) {
+				previous = directory.resolveSibling("." + directory.getFileName() + "-replaced-" + System.nanoTime());
+				Files.move(directory, previous, StandardCopyOption.ATOMIC_MOVE);
+			}
+			try {
+				move(temp);
+			} catch (IOException | RuntimeException e) {
+				if (previous != null && !Files.exists(directory)) {
+					Files.move(previous, directory, StandardCopyOption.ATOMIC_MOVE);
+					previous = null;
+				}
+				throw e;
+			} finally {
+				if (previous != null) {
+					deleteQuietly(previous);
+				}
+			}
+
+		} finally {
+			if (temp != null) {
+				deleteQuietly(temp);
+			}
+		}
+	}
+
+	private void move(Path temp) throws IOException {
+		try {
+			Files.move(temp, directory, StandardCopyOption.ATOMIC_MOVE);
+		} catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+			// other process completed the same installation meanwhile
+			if (!isComplete()) {
+				throw e;
+			}
+		}
+	}
+
+	private static void writeMarker(Path dir, Map<String, String> attributes) throws IOException {
+		AtomicLong files = new AtomicLong();
+		AtomicLong size = new AtomicLong();
+		Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				files.incrementAndGet();
+				size.addAndGet(attrs.size());
+				return FileVisitResult.CONTINUE;
+			}
+		});
+
+		Properties properties = new Properties();
+		properties.putAll(attributes);
+		properties.setProperty(FILES, String.valueOf(files.get()));
+		properties.setProperty(SIZE, String.valueOf(size.get()));
+		try (Writer writer = Files.newBufferedWriter(dir.resolve(MARKER))) {
+			properties.store(writer, null);
+		}
+	}
+
+	/**
+	 * Removes the installation unless other build holds its lock or uses
+	 * the installation. The directory is renamed first, so that others
+	 * never see partially removed installation.
+	 * @param usage Usage locks of the build
+	 * @return {@code true} if installation was removed
+	 * @throws IOException Deletion error
+	 */
+	boolean uninstall(InstallationUsageService usage) throws IOException {
+		InstallationLock lock;
+		try {
+			lock = InstallationLock.acquire(getLockFile(), Duration.ZERO);
+		} catch (IOException e) {
+			return false;
+		}
+		try (lock) {
+			if (!Files.exists(directory)) {
+				return false;
+			}
+			FileLock unused = usage.tryExclusive(getUsageLockFile());
+			if (unused == null) {
+				return false;
+			}
+			try {
+				Path removed = directory.resolveSibling("." + directory.getFileName() + "-removed-" + System.nanoTime());
+				Files.move(directory, removed, StandardCopyOption.ATOMIC_MOVE);
+				Files.deleteIfExists(getUsageFile());
+				delete(removed);
+				return true;
+			} finally {
+				InstallationUsageService.release(unused);
+			}
+		}
+	}
+
+	/**
+	 * Deletes directory including its content
+	 * @param path Directory to delete
+	 * @throws IOException Any deletion error
+	 */
+	static void delete(Path path) throws IOException {
+		try (Stream<Path> files = Files.walk(path)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	private static void deleteQuietly(Path path) {
+		try {
+			if (Files.exists(path)) {
+				delete(path);
+			}
+		} catch (IOException e) {
+			// left for next installation attempt
+		}
+	}
+
+	/**
+	 * Populates installation directory
+	 */
+	@FunctionalInterface
+	public interface Installer {
+
+		/**
+		 * Installs content into given directory.
+		 * @param directory Temporary installation directory
+		 * @return Attributes to be stored within installation marker
+		 * @throws IOException Any installation error
+		 */
+		Map<String, String> install(Path directory) throws IOException;
+
+	}
+
+}
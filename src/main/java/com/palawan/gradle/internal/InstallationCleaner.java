@@ -0,0 +1,227 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import com.palawan.gradle.internal.data.CleanupData;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Removes least recently used installations of a working directory
+ * according to cleanup policy. Installations in use by the project and
+ * installations used by any build within {@link #GRACE_PERIOD} are never
+ * removed. Installation locked by other build (e.g. being installed) or
+ * used by other running build (see {@link InstallationUsageService}) is
+ * skipped as well.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class InstallationCleaner {
+
+	/** Installations used within this period are always kept */
+	public static final Duration GRACE_PERIOD = Duration.ofHours(1);
+	/** Temporary directories older than this are considered abandoned */
+	private static final Duration ABANDONED = Duration.ofDays(1);
+
+	private final CleanupData policy;
+	private final InstallationUsageService usage;
+	private final Listener listener;
+	private final Instant now;
+
+	/**
+	 * Creates cleaner of given policy.
+	 * @param policy Cleanup policy
+	 * @param usage Usage locks of the build
+	 * @param listener Listener notified about each removal
+	 */
+	public InstallationCleaner(CleanupData policy, InstallationUsageService usage, Listener listener) {
+		this(policy, usage, listener, Instant.now());
+	}
+
+	InstallationCleaner(CleanupData policy, InstallationUsageService usage, Instant now) {
+		this(policy, usage, new Listener() {
+			@Override
+			public void removed(Path installation) {}
+
+			@Override
+			public void failed(Path installation, IOException e) {}
+		}, now);
+	}
+
+	InstallationCleaner(CleanupData policy, InstallationUsageService usage, Listener listener, Instant now) {
+		this.policy = policy;
+		this.usage = usage;
+		this.listener = listener;
+		this.now = now;
+	}
+
+	/**
+	 * Removes installations of given working directory exceeding policy
+	 * limits along with abandoned temporary directories of failed
+	 * installations. Installation which fails to be removed is reported to
+	 * the listener and the cleanup continues with the next one.
+	 * @param baseDir Working directory containing installations
+	 * @param names Filter of installation directory names
+	 * @param inUse Installations used by the project
+	 * @return Removed installations
+	 * @throws IOException Directory read or deletion error
+	 */
+	public List<Path> cleanup(Path baseDir, Predicate<String> names, Collection<Path> inUse) throws IOException {
+		if (!Files.isDirectory(baseDir)) {
+			return List.of();
+		}
+
+		Set<Path> used = inUse.stream().map(InstallationCleaner::normalize).collect(Collectors.toSet());
+		List<Entry> entries = new ArrayList<>();
+		try (Stream<Path> files = Files.list(baseDir)) {
+			for (Path dir : (Iterable<Path>) files::iterator) {
+				String name = dir.getFileName().toString();
+				if (!Files.isDirectory(dir)) {
+					continue;
+				}
+				if (name.startsWith(".")) {
+					deleteAbandoned(dir);
+				} else if (names.test(name)) {
+					entries.add(new Entry(new Installation(dir, m -> true)));
+				}
+			}
+		}
+		// installations in use count towards limits first, then most recently used
+		entries.sort(Comparator
+				.comparing((Entry e) -> !used.contains(normalize(e.installation.getDirectory())))
+				.thenComparing(e -> e.lastUsed, Comparator.reverseOrder()));
+
+		List<Path> removed = new ArrayList<>();
+		int keptVersions = 0;
+		long keptSize = 0;
+		for (Entry entry : entries) {
+			boolean keep = used.contains(normalize(entry.installation.getDirectory())) ||
+					entry.lastUsed.isAfter(now.minus(GRACE_PERIOD)) ||
+					!exceedsLimits(entry, keptVersions, keptSize);
+
+			if (!keep) {
+				Path directory = entry.installation.getDirectory();
+				try {
+					if (entry.installation.uninstall(usage)) {
+						removed.add(directory);
+						listener.removed(directory);
+						continue;
+					}
+				} catch (IOException e) {
+					listener.failed(directory, e);
+					continue;
+				}
+			}
+			keptVersions++;
+			keptSize += entry.size;
+		}
+		return removed;
+	}
+
+	private boolean exceedsLimits(Entry entry, int keptVersions, long keptSize) {
+		return (policy.getMaxVersions() > 0 && keptVersions >= policy.getMaxVersions()) ||
+				(policy.getMaxAgeDays() > 0 && entry.lastUsed.isBefore(now.minus(Duration.ofDays(policy.getMaxAgeDays())))) ||
+				(policy.getMaxSize() > 0 && keptSize + entry.size > policy.getMaxSize());
+	}
+
+	private void deleteAbandoned(Path dir) {
+		try {
+			if (Files.getLastModifiedTime(dir).toInstant().isBefore(now.minus(ABANDONED))) {
+				Installation.delete(dir);
+			}
+		} catch (IOException e) {
+			// left for next cleanup
+		}
+	}
+
+	private static Path normalize(Path path) {
+		return path.toAbsolutePath().normalize();
+	}
+
+	private static long size(Path dir) {
+		try (Stream<Path> files = Files.walk(dir)) {
+			return files.mapToLong(f -> {
+				try {
+					BasicFileAttributes attributes = Files.readAttributes(f, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+					return attributes.isRegularFile() ? attributes.size() : 0;
+				} catch (IOException e) {
+					return 0;
+				}
+			}).sum();
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Listener of removed installations.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called once installation is removed.
+		 * @param installation Removed installation directory
+		 */
+		void removed(Path installation);
+
+		/**
+		 * Called when installation fails to be removed.
+		 * @param installation Installation directory
+		 * @param e Removal error
+		 */
+		void failed(Path installation, IOException e);
+	}
+
+	private static class Entry {
+
+		private final Installation installation;
+		private final Instant lastUsed;
+		private final long size;
+
+		Entry(Installation installation) {
+			this.installation = installation;
+			this.lastUsed = installation.getLastUsed();
+			this.size = size(installation.getDirectory());
+		}
+
+	}
+
+}
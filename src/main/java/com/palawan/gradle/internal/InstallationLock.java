@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Exclusive lock of installation shared by threads of this JVM as well
+ * as other processes, e.g. parallel builds on the same machine. File
+ * locks are held on behalf of whole JVM, therefore threads are first
+ * serialized by in-memory lock of the same file.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+final class InstallationLock implements AutoCloseable {
+
+	private static final Map<Path, ReentrantLock> LOCAL_LOCKS = new ConcurrentHashMap<>();
+	private static final long POLL_INTERVAL_MILLIS = 200;
+
+	private final ReentrantLock localLock;
+	private final FileChannel channel;
+	private final FileLock fileLock;
+	private final boolean waited;
+
+	private InstallationLock(ReentrantLock localLock, FileChannel channel, FileLock fileLock, boolean waited) {
+		this.localLock = localLock;
+		this.channel = channel;
+		this.fileLock = fileLock;
+		this.waited = waited;
+	}
+
+	/**
+	 * Acquires lock of given file waiting for other holders.
+	 * @param lockFile Lock file, created if not exists
+	 * @param timeout Maximum time to wait for the lock
+	 * @return Acquired lock
+	 * @throws IOException Lock file error or timeout
+	 */
+	static InstallationLock acquire(Path lockFile, Duration timeout) throws IOException {
+		Path path = lockFile.toAbsolutePath().normalize();
+		long deadline = System.nanoTime() + timeout.toNanos();
+		ReentrantLock localLock = LOCAL_LOCKS.computeIfAbsent(path, p -> new ReentrantLock());
+		boolean waited = false;
+
+		try {
+			if (!localLock.tryLock()) {
+				waited = true;
+				if (!localLock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+					throw timeout(path, timeout);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for lock " + path);
+		}
+
+		FileChannel channel = null;
+		try {
+			Files.createDirectories(path.getParent());
+			channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			FileLock fileLock;
+			while ((fileLock = channel.tryLock()) == null) {
+				waited = true;
+				if (System.nanoTime() - deadline > 0) {
+					throw timeout(path, timeout);
+				}
+				Thread.sleep(POLL_INTERVAL_MILLIS);
+			}
+			return new InstallationLock(localLock, channel, fileLock, waited);
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			closeQuietly(channel);
+			localLock.unlock();
+			throw new InterruptedIOException("Interrupted waiting for lock " + path);
+		} catch (IOException | RuntimeException e) {
+			closeQuietly(channel);
+			localLock.unlock();
+			throw e;
+		}
+	}
+
+	/**
+	 * Checks whether acquiring the lock had to wait for other holder.
+	 * @return {@code true} if lock was held by other thread or process
+	 */
+	boolean hasWaited() {
+		return waited;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			fileLock.release();
+			channel.close();
+		} finally {
+			localLock.unlock();
+		}
+	}
+
+	private static IOException timeout(Path path, Duration timeout) {
+		return new IOException("Timeout after " + timeout.toMillis() + "ms waiting for lock " + path);
+	}
+
+	private static void closeQuietly(FileChannel channel) {
+		try {
+			if (channel != null) {
+				channel.close();
+			}
+		} catch (IOException e) {
+			// lock was not acquired
+		}
+	}
+
+}
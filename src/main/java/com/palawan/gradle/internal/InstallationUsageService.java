@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Build service holding shared lock of each installation used by the
+ * build until the build finishes. Cleanup removes installation only when
+ * it acquires exclusive lock, so installation used by running build of
+ * other process is never removed, while idle gradle daemons don't keep
+ * versions they used once.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public abstract class InstallationUsageService implements BuildService<BuildServiceParameters.None>, AutoCloseable {
+
+	/** Name of the shared build service */
+	public static final String NAME = "nodeInstallationUsage";
+
+	private final Map<Path, FileLock> held = new ConcurrentHashMap<>();
+
+	/**
+	 * Registers the service unless already registered by other project.
+	 * @param project Project using the service
+	 * @return Service provider
+	 */
+	public static Provider<InstallationUsageService> register(Project project) {
+		return project.getGradle().getSharedServices()
+				.registerIfAbsent(NAME, InstallationUsageService.class, s -> {});
+	}
+
+	/**
+	 * Holds shared lock of given file until the build finishes. Waits
+	 * while cleanup of other process holds its exclusive lock.
+	 * @param lockFile Usage lock file, created if not exists
+	 * @throws IOException Lock file error
+	 */
+	public void hold(Path lockFile) throws IOException {
+		Path path = normalize(lockFile);
+		if (held.containsKey(path)) {
+			return;
+		}
+		synchronized (held) {
+			if (!held.containsKey(path)) {
+				Files.createDirectories(path.getParent());
+				FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+				try {
+					held.put(path, channel.lock(0, Long.MAX_VALUE, true));
+				} catch (IOException | RuntimeException e) {
+					channel.close();
+					throw e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Tries to acquire exclusive lock of given file, i.e. checks that
+	 * neither this build nor running build of other process uses the
+	 * installation.
+	 * @param lockFile Usage lock file
+	 * @return Exclusive lock or {@code null} when installation is in use
+	 * @throws IOException Lock file error
+	 */
+	public FileLock tryExclusive(Path lockFile) throws IOException {
+		Path path = normalize(lockFile);
+		synchronized (held) {
+			if (held.containsKey(path)) {
+				return null;
+			}
+			Files.createDirectories(path.getParent());
+			FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			try {
+				FileLock lock = channel.tryLock();
+				if (lock == null) {
+					channel.close();
+				}
+				return lock;
+			} catch (OverlappingFileLockException e) {
+				// held by other build running within this JVM
+				channel.close();
+				return null;
+			} catch (IOException | RuntimeException e) {
+				channel.close();
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Releases exclusive lock along with its channel.
+	 * @param lock Exclusive lock
+	 * @throws IOException Lock release error
+	 */
+	public static void release(FileLock lock) throws IOException {
+		FileChannel channel = lock.channel();
+		try {
+			lock.release();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Releases usage locks at the end of the build.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (held) {
+			for (FileLock lock : held.values()) {
+				release(lock);
+			}
+			held.clear();
+		}
+	}
+
+	private static Path normalize(Path path) {
+		return path.toAbsolutePath().normalize();
+	}
+
+}
@@ -0,0 +1,265 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Orders NodeJS repository mirrors by their past behaviour. Each mirror
+ * keeps exponentially weighted health (share of successful downloads)
+ * and latency (time to first byte of network fetches, downloads possibly
+ * served by local cache don't count) within statistics file. Healthy mirrors are tried first,
+ * the fastest one first, unhealthy mirrors are left as last resort.
+ * Mirrors without statistics are considered healthy and fast, so each
+ * of them gets tried.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class MirrorSelector {
+
+	/** Mirror statistics file name */
+	public static final String STATS_FILE = "mirrors.properties";
+	/** Mirrors with health below the threshold are tried last */
+	public static final double HEALTH_THRESHOLD = 0.5;
+
+	private static final Logger LOGGER = Logging.getLogger(MirrorSelector.class);
+	/** Weight of the latest attempt within weighted averages */
+	private static final double WEIGHT = 0.3;
+	private static final String HEALTH = ".health";
+	private static final String LATENCY = ".latency";
+
+	private final List<String> mirrors;
+	private final Path statsFile;
+
+	/**
+	 * Creates selector of given mirrors.
+	 * @param mirrors Mirror URLs in configured order
+	 * @param statsFile Mirror statistics file
+	 */
+	public MirrorSelector(List<String> mirrors, Path statsFile) {
+		this.mirrors = List.copyOf(mirrors);
+		this.statsFile = statsFile;
+	}
+
+	/**
+	 * Get mirrors in configured order
+	 * @return Mirror URLs
+	 */
+	public List<String> getMirrors() {
+		return mirrors;
+	}
+
+	/**
+	 * Get mirrors ordered by preference, configured order is kept among
+	 * mirrors of the same score.
+	 * @return Ordered mirror URLs
+	 */
+	public List<String> getOrdered() {
+		if (mirrors.size() < 2) {
+			return mirrors;
+		}
+		Properties stats = load();
+		List<String> ordered = new ArrayList<>(mirrors);
+		ordered.sort(Comparator
+				.comparing((String m) -> health(stats, m) < HEALTH_THRESHOLD)
+				.thenComparingDouble(m -> latency(stats, m)));
+		return ordered;
+	}
+
+	/**
+	 * Runs given download against mirrors in order of preference until
+	 * one of them succeeds. Only outcome of each attempt is recorded, as
+	 * the download may have been served by local cache.
+	 * @param what Description of downloaded content for error reporting
+	 * @param download Download from given mirror URL
+	 * @param <T> Download result type
+	 * @return Result of the first successful download
+	 */
+	public <T> T select(String what, Function<String, T> download) {
+		return fetch(what, (mirror, latency) -> download.apply(mirror));
+	}
+
+	/**
+	 * Runs given network fetch against mirrors in order of preference until
+	 * one of them succeeds. Outcome of each attempt is recorded along with
+	 * latency reported by the fetch, i.e. time to first byte of response.
+	 * @param what Description of downloaded content for error reporting
+	 * @param fetch Fetch from given mirror URL
+	 * @param <T> Fetch result type
+	 * @return Result of the first successful fetch
+	 */
+	public <T> T fetch(String what, Fetch<T> fetch) {
+		if (mirrors.size() < 2) {
+			return fetch.apply(mirrors.get(0), latency -> {});
+		}
+
+		NodeException failure = new NodeException("Unable to download " + what + " from any of " + mirrors);
+		for (String mirror : getOrdered()) {
+			Duration[] latency = new Duration[1];
+			try {
+				T result = fetch.apply(mirror, l -> latency[0] = l);
+				if (latency[0] != null) {
+					success(mirror, latency[0]);
+				} else {
+					success(mirror);
+				}
+				return result;
+			} catch (RuntimeException e) {
+				LOGGER.warn("Unable to download {} from {}: {}", what, mirror, e.getMessage());
+				failure(mirror);
+				failure.addSuppressed(e);
+			}
+		}
+		throw failure;
+	}
+
+	/**
+	 * Records successful download from mirror.
+	 * @param mirror Mirror URL
+	 * @param latency Time to first byte of the response
+	 */
+	public void success(String mirror, Duration latency) {
+		update(mirror, 1.0, (double) latency.toMillis());
+	}
+
+	/**
+	 * Records successful download from mirror without known latency,
+	 * e.g. served by local cache.
+	 * @param mirror Mirror URL
+	 */
+	public void success(String mirror) {
+		update(mirror, 1.0, null);
+	}
+
+	/**
+	 * Records failed download from mirror.
+	 * @param mirror Mirror URL
+	 */
+	public void failure(String mirror) {
+		update(mirror, 0.0, null);
+	}
+
+	/**
+	 * Gets health of mirror, i.e. weighted share of successful downloads.
+	 * @param mirror Mirror URL
+	 * @return Mirror health between 0 and 1
+	 */
+	public double getHealth(String mirror) {
+		return health(load(), mirror);
+	}
+
+	private synchronized void update(String mirror, double outcome, Double latency) {
+		Properties stats = load();
+		stats.setProperty(mirror + HEALTH, String.valueOf(average(stats, mirror + HEALTH, outcome)));
+		if (latency != null) {
+			stats.setProperty(mirror + LATENCY, String.valueOf(average(stats, mirror + LATENCY, latency)));
+		}
+
+		try {
+			Files.createDirectories(statsFile.getParent());
+			Path temp = Files.createTempFile(statsFile.getParent(), STATS_FILE, ".tmp");
+			try {
+				try (Writer writer = Files.newBufferedWriter(temp)) {
+					stats.store(writer, "NodeJS mirror statistics");
+				}
+				Files.move(temp, statsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(temp);
+			}
+		} catch (IOException e) {
+			// statistics are best effort only
+			LOGGER.debug("Unable to store mirror statistics {}", statsFile, e);
+		}
+	}
+
+	private Properties load() {
+		Properties stats = new Properties();
+		if (Files.isRegularFile(statsFile)) {
+			try (Reader reader = Files.newBufferedReader(statsFile)) {
+				stats.load(reader);
+			} catch (IOException | IllegalArgumentException e) {
+				LOGGER.debug("Ignoring unreadable mirror statistics {}", statsFile, e);
+			}
+		}
+		return stats;
+	}
+
+	private static double average(Properties stats, String key, double value) {
+		String previous = stats.getProperty(key);
+		return previous == null ? value : WEIGHT * value + (1 - WEIGHT) * parse(previous, value);
+	}
+
+	private static double health(Properties stats, String mirror) {
+		return parse(stats.getProperty(mirror + HEALTH), 1.0);
+	}
+
+	private static double latency(Properties stats, String mirror) {
+		return parse(stats.getProperty(mirror + LATENCY), 0.0);
+	}
+
+	private static double parse(String value, double defaultValue) {
+		try {
+			return value == null ? defaultValue : Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Fetch from single mirror reporting its latency
+	 * @param <T> Fetch result type
+	 */
+	@FunctionalInterface
+	public interface Fetch<T> {
+
+		/**
+		 * Fetches content from given mirror.
+		 * @param mirror Mirror URL
+		 * @param latency Consumer of time to first byte, called only when
+		 *                content was actually fetched from network
+		 * @return Fetch result
+		 */
+		T apply(String mirror, Consumer<Duration> latency);
+
+	}
+
+}
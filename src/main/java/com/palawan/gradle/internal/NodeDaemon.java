@@ -0,0 +1,237 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import groovy.json.JsonOutput;
+import groovy.json.JsonSlurper;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Long-lived node process executing scripts one after another, so that
+ * node startup and loading of tooling modules are paid only once. Scripts
+ * are sent as JSON lines to standard input of {@code node-daemon.js}, which
+ * responds by output frames followed by exit frame.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class NodeDaemon implements Closeable {
+
+	private final Process process;
+	private final Writer requests;
+	private final BufferedReader responses;
+	private boolean recycled = false;
+	private boolean used = false;
+	private long lastUsed = System.nanoTime();
+
+	/**
+	 * Starts node daemon process.
+	 * @param command Node executable, node options and daemon script
+	 * @param workingDir Working directory of the process
+	 * @param environment Environment of the process
+	 * @throws IOException Unable to start the process
+	 */
+	public NodeDaemon(List<String> command, File workingDir, Map<String, String> environment) throws IOException {
+		ProcessBuilder builder = new ProcessBuilder(command)
+				.directory(workingDir)
+				.redirectError(ProcessBuilder.Redirect.INHERIT);
+		builder.environment().clear();
+		builder.environment().putAll(environment);
+		this.process = builder.start();
+		this.requests = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+		this.responses = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Executes script within the daemon and waits for its completion.
+	 * Output of the script is passed line by line.
+	 * @param script Script to be executed
+	 * @param args Script arguments
+	 * @param environment Script environment
+	 * @param workingDir Script working directory
+	 * @param out Consumer of standard output lines of the script
+	 * @param err Consumer of error output lines of the script
+	 * @return Exit value of the script or empty when the script must be executed
+	 * by separate process, e.g. ES module
+	 * @throws Unavailable The daemon terminated before responding, i.e. the script
+	 * wasn't started
+	 * @throws IOException Communication error, e.g. the daemon terminated
+	 */
+	public synchronized OptionalInt execute(String script, List<String> args, Map<String, String> environment,
+											File workingDir, Consumer<String> out, Consumer<String> err) throws IOException {
+		Map<String, Object> request = new LinkedHashMap<>();
+		request.put("script", script);
+		request.put("args", args);
+		request.put("env", environment);
+		request.put("cwd", workingDir.getAbsolutePath());
+		Lines outLines = new Lines(out);
+		Lines errLines = new Lines(err);
+		boolean responded = false;
+		try {
+			requests.write(JsonOutput.toJson(request));
+			requests.write('\n');
+			requests.flush();
+
+			String line;
+			while ((line = responses.readLine()) != null) {
+				responded = true;
+				Map<?, ?> response = (Map<?, ?>) new JsonSlurper().parseText(line);
+				Object type = response.get("type");
+				if ("out".equals(type)) {
+					outLines.append(String.valueOf(response.get("data")));
+				} else if ("err".equals(type)) {
+					errLines.append(String.valueOf(response.get("data")));
+				} else if ("exit".equals(type)) {
+					recycled = Boolean.TRUE.equals(response.get("recycle"));
+					return OptionalInt.of(((Number) response.get("code")).intValue());
+				} else if ("fallback".equals(type)) {
+					return OptionalInt.empty();
+				}
+			}
+		} catch (IOException e) {
+			recycled = true;
+			if (!responded) {
+				throw new Unavailable("Node daemon terminated before executing " + script, e);
+			}
+			throw e;
+		} finally {
+			outLines.flush();
+			errLines.flush();
+			used |= responded;
+			lastUsed = System.nanoTime();
+		}
+		recycled = true;
+		if (!responded) {
+			throw new Unavailable("Node daemon terminated before executing " + script, null);
+		}
+		throw new IOException("Node daemon terminated while executing " + script);
+	}
+
+	/**
+	 * Checks whether daemon may execute another script, i.e. it wasn't
+	 * recycled because of idle timeout, memory threshold or failed script.
+	 * @return {@code true} if daemon is reusable
+	 */
+	public synchronized boolean isReusable() {
+		return !recycled && process.isAlive();
+	}
+
+	/**
+	 * Checks whether daemon has responded to any request.
+	 * @return {@code true} if daemon was used
+	 */
+	public synchronized boolean isUsed() {
+		return used;
+	}
+
+	/**
+	 * Gets time since the daemon finished its last script or was started.
+	 * @return Idle time
+	 */
+	public synchronized Duration getIdleTime() {
+		return Duration.ofNanos(System.nanoTime() - lastUsed);
+	}
+
+	/**
+	 * Stops the daemon. Closed standard input terminates the daemon
+	 * gracefully, it is killed when it doesn't.
+	 */
+	@Override
+	public synchronized void close() {
+		recycled = true;
+		try {
+			requests.close();
+			if (!process.waitFor(1, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+		} catch (IOException e) {
+			process.destroyForcibly();
+		} catch (InterruptedException e) {
+			process.destroyForcibly();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Daemon terminated before responding to the request, so the script
+	 * may be executed again by other daemon.
+	 */
+	public static class Unavailable extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		Unavailable(String message, @Nullable Throwable cause) {
+			super(message, cause);
+		}
+	}
+
+	/**
+	 * Splits output chunks into lines.
+	 */
+	private static class Lines {
+
+		private final Consumer<String> consumer;
+		private final StringBuilder buffer = new StringBuilder();
+
+		Lines(Consumer<String> consumer) {
+			this.consumer = consumer;
+		}
+
+		void append(String data) {
+			buffer.append(data);
+			int end;
+			while ((end = buffer.indexOf("\n")) >= 0) {
+				int length = end > 0 && buffer.charAt(end - 1) == '\r' ? end - 1 : end;
+				consumer.accept(buffer.substring(0, length));
+				buffer.delete(0, end + 1);
+			}
+		}
+
+		void flush() {
+			if (buffer.length() > 0) {
+				consumer.accept(buffer.toString());
+				buffer.setLength(0);
+			}
+		}
+	}
+
+}
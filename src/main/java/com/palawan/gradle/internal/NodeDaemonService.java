@@ -0,0 +1,216 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Build service keeping node daemons for the duration of the build.
+ * Daemons are pooled per node executable, node options and working
+ * directory. Daemon terminates itself when idle for configured time,
+ * or after a script when it exceeds memory threshold. Daemons close
+ * to their idle timeout are retired instead of reused.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public abstract class NodeDaemonService implements BuildService<NodeDaemonService.Parameters>, AutoCloseable {
+
+	/** Name of the shared build service */
+	public static final String NAME = "nodeDaemon";
+
+	private static final String DAEMON_SCRIPT = "node-daemon.js";
+	private static final Duration RETIRE_MARGIN = Duration.ofSeconds(5);
+
+	private final Map<String, Deque<NodeDaemon>> idle = new HashMap<>();
+	private final Set<NodeDaemon> daemons = ConcurrentHashMap.newKeySet();
+	private Path script;
+
+	/**
+	 * Executes node script within pooled daemon. Daemon which terminated before
+	 * responding, e.g. on its idle timeout, is replaced by a fresh one once.
+	 * @param node Node executable
+	 * @param options Node options the daemon is started with
+	 * @param script Script to be executed
+	 * @param args Script arguments
+	 * @param environment Script environment
+	 * @param workingDir Script working directory
+	 * @param out Consumer of standard output lines of the script
+	 * @param err Consumer of error output lines of the script
+	 * @return Exit value of the script or empty when the script must be executed
+	 * by separate process
+	 */
+	public OptionalInt execute(String node, List<String> options, String script, List<String> args,
+							   Map<String, String> environment, File workingDir,
+							   Consumer<String> out, Consumer<String> err) {
+		String key = node + options + workingDir.getAbsolutePath();
+		NodeDaemon daemon = acquire(key, node, options, environment, workingDir);
+		try {
+			return daemon.execute(script, args, environment, workingDir, out, err);
+		} catch (NodeDaemon.Unavailable e) {
+			if (!daemon.isUsed()) {
+				return OptionalInt.empty();
+			}
+		} catch (IOException e) {
+			throw new NodeException("Unable to execute " + script + " by node daemon", e);
+		} finally {
+			release(key, daemon);
+		}
+
+		NodeDaemon fresh = start(node, options, environment, workingDir);
+		try {
+			return fresh.execute(script, args, environment, workingDir, out, err);
+		} catch (NodeDaemon.Unavailable e) {
+			return OptionalInt.empty();
+		} catch (IOException e) {
+			throw new NodeException("Unable to execute " + script + " by node daemon", e);
+		} finally {
+			release(key, fresh);
+		}
+	}
+
+	/**
+	 * Stops all daemons at the end of the build.
+	 */
+	@Override
+	public void close() throws IOException {
+		daemons.forEach(NodeDaemon::close);
+		daemons.clear();
+		synchronized (this) {
+			if (script != null) {
+				Files.deleteIfExists(script);
+			}
+		}
+	}
+
+	private NodeDaemon acquire(String key, String node, List<String> options, Map<String, String> environment, File workingDir) {
+		Duration retireAfter = getRetireAfter();
+		synchronized (idle) {
+			Deque<NodeDaemon> available = idle.getOrDefault(key, new ArrayDeque<>());
+			NodeDaemon daemon;
+			while ((daemon = available.poll()) != null) {
+				if (daemon.isReusable() && daemon.getIdleTime().compareTo(retireAfter) < 0) {
+					return daemon;
+				}
+				daemon.close();
+				daemons.remove(daemon);
+			}
+		}
+		return start(node, options, environment, workingDir);
+	}
+
+	private NodeDaemon start(String node, List<String> options, Map<String, String> environment, File workingDir) {
+		List<String> command = new ArrayList<>();
+		command.add(node);
+		command.addAll(options);
+		command.add(getScript().toString());
+		command.add(String.valueOf(getParameters().getIdleTimeout().get() * 1000L));
+		command.add(String.valueOf(getParameters().getMaxMemory().get()));
+		try {
+			NodeDaemon daemon = new NodeDaemon(command, workingDir, environment);
+			daemons.add(daemon);
+			return daemon;
+		} catch (IOException e) {
+			throw new NodeException("Unable to start node daemon " + command, e);
+		}
+	}
+
+	/**
+	 * Daemon is retired before it may terminate itself, so that request isn't sent
+	 * to a daemon which is just exiting.
+	 * @return Idle time after which daemon isn't reused
+	 */
+	private Duration getRetireAfter() {
+		Duration timeout = Duration.ofSeconds(getParameters().getIdleTimeout().get());
+		Duration retireAfter = timeout.minus(RETIRE_MARGIN);
+		return retireAfter.compareTo(timeout.dividedBy(2)) < 0 ? timeout.dividedBy(2) : retireAfter;
+	}
+
+	private void release(String key, NodeDaemon daemon) {
+		if (!daemon.isReusable()) {
+			daemon.close();
+			daemons.remove(daemon);
+			return;
+		}
+		synchronized (idle) {
+			idle.computeIfAbsent(key, k -> new ArrayDeque<>()).push(daemon);
+		}
+	}
+
+	private synchronized Path getScript() {
+		if (script == null) {
+			try (InputStream input = NodeDaemonService.class.getResourceAsStream(DAEMON_SCRIPT)) {
+				if (input == null) {
+					throw new NodeException("Missing " + DAEMON_SCRIPT);
+				}
+				Path file = Files.createTempFile("node-daemon", ".js");
+				Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+				script = file;
+			} catch (IOException e) {
+				throw new NodeException("Unable to extract " + DAEMON_SCRIPT, e);
+			}
+		}
+		return script;
+	}
+
+	/**
+	 * Parameters of node daemons.
+	 */
+	public interface Parameters extends BuildServiceParameters {
+
+		/**
+		 * Idle time after which daemon terminates itself.
+		 * @return Idle timeout in seconds
+		 */
+		Property<Integer> getIdleTimeout();
+
+		/**
+		 * Resident memory after which daemon is recycled.
+		 * @return Maximum memory in bytes, {@code 0} for unlimited
+		 */
+		Property<Long> getMaxMemory();
+	}
+}
@@ -28,19 +28,31 @@ package com.palawan.gradle.internal;
 import com.palawan.gradle.NodePlugin;
 import com.palawan.gradle.dsl.NodeExtension;
 import com.palawan.gradle.internal.data.NodeData;
+import com.palawan.gradle.tasks.ExecutionTask;
+import com.palawan.gradle.tasks.NodeCleanupTask;
 import com.palawan.gradle.tasks.NodeSetupTask;
+import com.palawan.gradle.tasks.PackagerSetupTask;
 import com.palawan.gradle.tasks.NodeTask;
+import com.palawan.gradle.tasks.ParallelNodeInstallTask;
+import com.palawan.gradle.util.Checksums;
+import com.palawan.gradle.util.PathFilter;
 import com.palawan.gradle.util.PlatformSpecific;
 import com.palawan.gradle.util.ValueHolder;
 import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
 
-import java.io.IOException;
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.PosixFilePermission;
-import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author petr.langr
@@ -50,10 +62,14 @@ public class NodeManager {
 
 	private final PlatformSpecific platformSpecific;
 	private final ValueHolder<Path> versionWorkingDir = ValueHolder.racy(this::computeWorkingDir);
+	private final Map<String, String> resolvedVersions = new ConcurrentHashMap<>();
+	private final ValueHolder<Boolean> used = ValueHolder.racy(this::markUsed);
 
 	private final NodeData data;
 	private final PackagerInternal packager;
 	private boolean onSystemPath = true;
+	@Nullable
+	private Provider<InstallationUsageService> usage;
 
 	public NodeManager(PlatformSpecific platformSpecific, String command, String version, String url, Path workingDir) {
 		this.platformSpecific = platformSpecific;
@@ -72,6 +88,11 @@ public class NodeManager {
 			t.setGroup(NodePlugin.NODE_GROUP);
 			t.setDescription(NodePlugin.NODE_TASK_DESC);
 		});
+		project.getExtensions().getExtraProperties().set(NodePlugin.PARALLEL_INSTALL_TASK_TYPE, ParallelNodeInstallTask.class);
+		project.getTasks().withType(ParallelNodeInstallTask.class, t -> {
+			t.setGroup(NodePlugin.NODE_GROUP);
+			t.setDescription(NodePlugin.PARALLEL_INSTALL_TASK_DESC);
+		});
 
 		packager.applyDefault(project);
 	}
@@ -83,6 +104,15 @@ public class NodeManager {
 	 */
 	public void afterEvaluate(Project project, NodeExtension nodeExtension) {
 		onSystemPath = !nodeExtension.getDownload();
+		Provider<InstallationUsageService> usage = InstallationUsageService.register(project);
+		this.usage = usage;
+		// downloaded versions are recorded as used by tasks of the build
+		project.getTasks().withType(NodeSetupTask.class, t -> t.usesService(usage));
+		project.getTasks().withType(ExecutionTask.class, t -> t.usesService(usage));
+		project.getTasks().withType(NodeCleanupTask.class, t -> {
+			t.usesService(usage);
+			t.getUsage().set(usage);
+		});
 		if (nodeExtension.getDownload()) {
 			project.getTasks().register(NodePlugin.NODE_SETUP_TASK_NAME, NodeSetupTask.class, t -> {
 				t.setGroup(NodePlugin.NODE_GROUP);
@@ -90,6 +120,18 @@ public class NodeManager {
 			});
 
 			project.getTasks().withType(NodeTask.class, t -> t.dependsOn(NodePlugin.NODE_SETUP_TASK_NAME));
+
+			project.getTasks().register(NodePlugin.NODE_CLEANUP_TASK_NAME, NodeCleanupTask.class, t -> {
+				t.setGroup(NodePlugin.NODE_GROUP);
+				t.setDescription(NodePlugin.NODE_CLEANUP_TASK_DESC);
+				// never remove versions the setup tasks are about to install
+				t.mustRunAfter(project.getTasks().withType(NodeSetupTask.class));
+				t.mustRunAfter(project.getTasks().withType(PackagerSetupTask.class));
+			});
+			if (data.getCleanup().isAutomatic()) {
+				project.getTasks().withType(NodeSetupTask.class, t -> t.finalizedBy(NodePlugin.NODE_CLEANUP_TASK_NAME));
+				project.getTasks().withType(PackagerSetupTask.class, t -> t.finalizedBy(NodePlugin.NODE_CLEANUP_TASK_NAME));
+			}
 		}
 
 		packager.afterEvaluateDefault(project, nodeExtension);
@@ -114,6 +156,24 @@ public class NodeManager {
 		return data;
 	}
 
+	/**
+	 * Gets exact NodeJS version to download. Version aliases such as
+	 * {@code lts} are resolved via distribution index of configured
+	 * repository.
+	 * @see NodeVersionResolver
+	 * @return Exact NodeJS version
+	 */
+	public String getVersion() {
+		String version = data.getVersion();
+		if (NodeVersionResolver.isExact(version)) {
+			return version.startsWith("v") ? version.substring(1) : version;
+		}
+		return resolvedVersions.computeIfAbsent(version, v ->
+				new NodeVersionResolver(getMirrorSelector(), data.getStoreDir(), NodeVersionResolver.INDEX_TTL)
+						.offline(data.isOffline())
+						.resolve(v));
+	}
+
 	/**
 	 * Gets default node packager instance.
 	 * @return	Default node packager
@@ -125,33 +185,118 @@ public class NodeManager {
 	/**
 	 * Gets node bin directory as if it would be downloaded. For cases
 	 * where download is not required the return path will be not-existent.
+	 * Use of downloaded version is recorded for cleanup.
 	 * @return Node bin directory path
 	 */
 	public Path getBinDir() {
-		return platformSpecific.getBinPath(versionWorkingDir.get());
+		used.get();
+		return binDir();
 	}
 
 	/**
-	 * Defines downloaded files to be executable. Available only on Unix base
-	 * systems with posix file permissions.
-	 * The method may throw {@link NodeException} in any failure
+	 * Gets environment variables pointing packagers to configured package
+	 * cache directory. Empty when no cache directory is configured.
+	 * @return Package cache environment variables
 	 */
-	public void setExecutablePosixRights() {
-		if (platformSpecific.isWindows()) {
-			throw new NodeException("Only posix file permissions can be defined");
+	public Map<String, String> getCacheEnvironment() {
+		Path cacheDir = data.getCacheDir();
+		if (cacheDir == null) {
+			return Map.of();
 		}
-		Path exec = computeExecutablePath();
+		Path path = cacheDir.toAbsolutePath();
+		return Map.of(
+				"npm_config_cache", path.resolve("npm").toString(),
+				"npm_config_store_dir", path.resolve("pnpm-store").toString(),
+				"YARN_CACHE_FOLDER", path.resolve("yarn").toString()
+		);
+	}
 
-		try {
-			if (Files.exists(exec)) {
-				Set<PosixFilePermission> executable = PosixFilePermissions.fromString("rwxr--r--");
-				Files.setPosixFilePermissions(exec, executable);
-				packager.setExecutablePosixRights(executable);
-			}
+	/**
+	 * Gets corepack executable of downloaded NodeJS. Available in NodeJS
+	 * 16.9 and newer unless excluded from extraction.
+	 * @return Optional corepack executable
+	 */
+	public Optional<Path> getCorepackExecutable() {
+		Path corepack = binDir().resolve(platformSpecific.getCommand("corepack"));
+		return Files.exists(corepack) ? Optional.of(corepack) : Optional.empty();
+	}
+
+	/**
+	 * Gets corepack home shared by all projects, where corepack keeps
+	 * packager versions it has downloaded.
+	 * @return Corepack home directory
+	 */
+	public Path getCorepackHome() {
+		return data.getStoreDir().resolve("corepack");
+	}
+
+	/**
+	 * Gets NodeJS repository URL followed by its mirrors.
+	 * @return Repository URLs in configured order
+	 */
+	public List<String> getMirrors() {
+		Set<String> mirrors = new LinkedHashSet<>();
+		mirrors.add(data.getUrl());
+		mirrors.addAll(data.getMirrors());
+		return List.copyOf(mirrors);
+	}
 
-		} catch (IOException e) {
-			throw new NodeException("Unable to define node executables", e);
+	/**
+	 * Gets selector of NodeJS repository mirrors. Statistics of mirrors
+	 * are kept within shared store directory.
+	 * @return Mirror selector
+	 */
+	public MirrorSelector getMirrorSelector() {
+		return new MirrorSelector(getMirrors(), data.getStoreDir().resolve(MirrorSelector.STATS_FILE));
+	}
+
+	/**
+	 * Gets local store of downloaded NodeJS archives. The store mirrors
+	 * layout of NodeJS repository and serves archives in offline mode.
+	 * @return Archive store directory
+	 */
+	public Path getArchiveStore() {
+		return data.getStoreDir().resolve("archives");
+	}
+
+	/**
+	 * Gets cache of installed node packages archives shared by all
+	 * projects.
+	 * @see NodeModulesCache
+	 * @return Node modules cache directory
+	 */
+	public Path getModulesCacheDir() {
+		return data.getStoreDir().resolve("modules-cache");
+	}
+
+	/**
+	 * Gets installation of downloaded NodeJS version. The installation
+	 * is considered complete when its marker matches required version
+	 * and extraction filter and node executable exists.
+	 * @return NodeJS version installation
+	 */
+	public Installation getInstallation() {
+		String filter = getExtractionFilter().toString();
+		return new Installation(versionWorkingDir.get(), m ->
+				getVersion().equals(m.getProperty(Installation.VERSION)) &&
+				filter.equals(m.getProperty(NodeSetupTask.FILTER, "")) &&
+				Files.isRegularFile(computeExecutablePath()));
+	}
+
+	/**
+	 * Gets filter of NodeJS distribution paths to be extracted. Minimal
+	 * runtime preset contributes node executable and npm, which is the
+	 * default packager and installs any other packager.
+	 * @return Filter of extracted paths
+	 */
+	public PathFilter getExtractionFilter() {
+		List<String> includes = new ArrayList<>(data.getExtractIncludes());
+		if (data.isMinimalRuntime()) {
+			includes.addAll(platformSpecific.isWindows() ?
+					List.of("node.exe", "npm", "npm.cmd", "npx", "npx.cmd", "node_modules/npm") :
+					List.of("bin/node", "bin/npm", "bin/npx", "lib/node_modules/npm"));
 		}
+		return new PathFilter(includes, data.getExtractExcludes());
 	}
 
 	/**
@@ -168,10 +313,32 @@ public class NodeManager {
 		return onSystemPath;
 	}
 
+	private Path binDir() {
+		return platformSpecific.getBinPath(versionWorkingDir.get());
+	}
+
+	private Boolean markUsed() {
+		// recorded once per build for cleanup of least recently used versions
+		getInstallation().markUsed(usage == null ? null : usage.get());
+		return true;
+	}
+
 	private Path computeWorkingDir() {
 		String osName = platformSpecific.getOsName();
 		String osArch = platformSpecific.getOsArch();
-		return data.getWorkingDir().resolve("node-v" + data.getVersion() + "-" + osName + "-" + osArch);
+		String name = "node-v" + getVersion() + "-" + osName + "-" + osArch;
+		if (!data.isSharedStore()) {
+			return data.getWorkingDir().resolve(name);
+		}
+
+		// distributions extracted with different filters can't share directory
+		PathFilter filter = getExtractionFilter();
+		if (!filter.isEmpty()) {
+			MessageDigest digest = Checksums.messageDigest("SHA-256");
+			String hash = Checksums.hex(digest.digest(filter.toString().getBytes(StandardCharsets.UTF_8)));
+			name += "-" + hash.substring(0, 8);
+		}
+		return data.getStoreDir().resolve(name);
 	}
 
 	private String computeExecutable() {
@@ -185,6 +352,6 @@ public class NodeManager {
 		// default command needs to be adjusted to specific platform
 		String exec = "node".equals(data.getCommand()) ?
 				platformSpecific.getExecutable(data.getCommand()) : data.getCommand();
-		return getBinDir().resolve(exec);
+		return binDir().resolve(exec);
 	}
 }
@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import com.palawan.gradle.util.ArchiveExtractor;
+import com.palawan.gradle.util.ArchiveWriter;
+import com.palawan.gradle.util.Checksums;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Cache of installed node packages directories stored as compressed
+ * archives. Each archive is keyed by hash of lock files, NodeJS version,
+ * packager and platform, so that matching install can be restored
+ * instead of running the packager.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class NodeModulesCache {
+
+	private final Path cacheDir;
+
+	/**
+	 * Creates cache stored in given directory.
+	 * @param cacheDir Cache directory
+	 */
+	public NodeModulesCache(Path cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	/**
+	 * Computes cache key of given install attributes. Attributes are
+	 * sorted by name, so their order doesn't matter.
+	 * @param attributes Install attributes, e.g. lock file hash or NodeJS version
+	 * @return Cache key
+	 */
+	public static String key(Map<String, String> attributes) {
+		MessageDigest digest = Checksums.messageDigest("SHA-256");
+		new TreeMap<>(attributes).forEach((k, v) ->
+				digest.update((k + "=" + v + "\n").getBytes(StandardCharsets.UTF_8)));
+		return Checksums.hex(digest.digest());
+	}
+
+	/**
+	 * Gets archive of given key.
+	 * @param key Cache key
+	 * @return Archive file, may not exist
+	 */
+	public Path getArchive(String key) {
+		return cacheDir.resolve(key + ".tar.gz");
+	}
+
+	/**
+	 * Restores cached directories into base directory. Existing
+	 * directories are replaced by cached content.
+	 * @param key Cache key
+	 * @param baseDir Base directory, e.g. project directory
+	 * @param paths Cached paths relative to base directory
+	 * @return {@code true} when restored, {@code false} on cache miss
+	 * @throws IOException Any read/write error
+	 */
+	public boolean restore(String key, Path baseDir, Collection<String> paths) throws IOException {
+		Path archive = getArchive(key);
+		if (!Files.isRegularFile(archive)) {
+			return false;
+		}
+		for (String path : paths) {
+			Path directory = baseDir.resolve(path);
+			if (Files.exists(directory, LinkOption.NOFOLLOW_LINKS)) {
+				Installation.delete(directory);
+			}
+		}
+		new ArchiveExtractor().extract(archive, baseDir);
+		// keeps recently used archives for cleanup
+		Files.setLastModifiedTime(archive, FileTime.from(Instant.now()));
+		return true;
+	}
+
+	/**
+	 * Stores directories of base directory under given key.
+	 * @param key Cache key
+	 * @param baseDir Base directory, e.g. project directory
+	 * @param paths Paths relative to base directory
+	 * @return Number of archived entries
+	 * @throws IOException Any read/write error
+	 */
+	public long store(String key, Path baseDir, Collection<String> paths) throws IOException {
+		return new ArchiveWriter().write(baseDir, paths, getArchive(key));
+	}
+
+	/**
+	 * Removes archives not used since given time. Archive which fails
+	 * to be removed is reported to the listener and skipped.
+	 * @param unusedSince Archives last used before are removed
+	 * @param listener Listener notified about each removal
+	 * @return Removed archives
+	 * @throws IOException Cache directory read error
+	 */
+	public List<Path> cleanup(Instant unusedSince, InstallationCleaner.Listener listener) throws IOException {
+		List<Path> removed = new ArrayList<>();
+		if (!Files.isDirectory(cacheDir)) {
+			return removed;
+		}
+		try (Stream<Path> archives = Files.list(cacheDir)) {
+			for (Path archive : (Iterable<Path>) archives::iterator) {
+				try {
+					if (Files.getLastModifiedTime(archive).toInstant().isBefore(unusedSince)) {
+						Files.deleteIfExists(archive);
+						removed.add(archive);
+						listener.removed(archive);
+					}
+				} catch (IOException e) {
+					listener.failed(archive, e);
+				}
+			}
+		}
+		return removed;
+	}
+
+}
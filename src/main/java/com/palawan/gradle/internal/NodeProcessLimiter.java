@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+/**
+ * Build service limiting node processes running at once across all
+ * projects of the build. Each process takes a permit and reserves its
+ * estimated memory from optional memory budget before it is started.
+ * A process larger than the budget is started only when no other
+ * process is running.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public abstract class NodeProcessLimiter implements BuildService<NodeProcessLimiter.Parameters> {
+
+	/** Name of the shared build service */
+	public static final String NAME = "nodeProcessLimiter";
+
+	private int running = 0;
+	private long reserved = 0;
+
+	/**
+	 * Waits until process with given memory estimate may start.
+	 * @param memory Estimated memory of the process in bytes
+	 * @return Permit to be closed once the process finishes
+	 */
+	public Permit acquire(long memory) {
+		synchronized (this) {
+			while (!canStart(memory)) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new NodeException("Interrupted while waiting for node process permit", e);
+				}
+			}
+			running++;
+			reserved += memory;
+		}
+		return () -> release(memory);
+	}
+
+	private boolean canStart(long memory) {
+		int maxProcesses = getParameters().getMaxProcesses().get();
+		long memoryBudget = getParameters().getMemoryBudget().get();
+		return running == 0 || ((maxProcesses <= 0 || running < maxProcesses)
+				&& (memoryBudget <= 0 || reserved + memory <= memoryBudget));
+	}
+
+	private synchronized void release(long memory) {
+		running--;
+		reserved -= memory;
+		notifyAll();
+	}
+
+	/**
+	 * Permit of running node process.
+	 */
+	public interface Permit extends AutoCloseable {
+
+		/** Permit of process started without limits */
+		Permit NONE = () -> {};
+
+		/**
+		 * Releases the permit.
+		 */
+		@Override
+		void close();
+	}
+
+	/**
+	 * Limits of node processes.
+	 */
+	public interface Parameters extends BuildServiceParameters {
+
+		/**
+		 * Maximum of node processes running at once.
+		 * @return Maximum of processes, {@code 0} for unlimited
+		 */
+		Property<Integer> getMaxProcesses();
+
+		/**
+		 * Memory budget of all running node processes.
+		 * @return Memory budget in bytes, {@code 0} for unlimited
+		 */
+		Property<Long> getMemoryBudget();
+	}
+}
@@ -0,0 +1,263 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import com.palawan.gradle.util.Checksums;
+import com.palawan.gradle.util.Connections;
+import groovy.json.JsonSlurper;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves NodeJS version aliases to exact versions using distribution
+ * index {@code index.json} published by NodeJS repository. Supported
+ * aliases are
+ * <ul>
+ *     <li>{@code lts} or {@code lts/*} - latest long term support release</li>
+ *     <li>{@code lts/<codename>} - latest release of given LTS line, e.g. {@code lts/gallium}</li>
+ *     <li>{@code latest} or {@code current} - latest release</li>
+ *     <li>{@code latest-<major>}, {@code <major>} or {@code <major>.<minor>} - latest matching release</li>
+ * </ul>
+ * Exact versions are returned as is without reading the index. The index
+ * is cached on disk and refreshed once its time to live expires. Stale
+ * index is used when repository is not available or in offline mode.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class NodeVersionResolver {
+
+	/** Default time to live of cached distribution index */
+	public static final Duration INDEX_TTL = Duration.ofHours(24);
+
+	private static final Logger LOGGER = Logging.getLogger(NodeVersionResolver.class);
+	private static final Pattern EXACT = Pattern.compile("\\d+\\.\\d+\\.\\d+");
+	private static final Pattern PARTIAL = Pattern.compile("\\d+(\\.\\d+)?");
+
+	private final MirrorSelector mirrors;
+	private final Path cacheDir;
+	private final Duration ttl;
+	private boolean offline = false;
+
+	/**
+	 * Creates resolver of given repository.
+	 * @param url NodeJS repository URL, e.g. {@code https://nodejs.org/dist}
+	 * @param cacheDir Directory of cached distribution indexes
+	 * @param ttl Time to live of cached index
+	 */
+	public NodeVersionResolver(String url, Path cacheDir, Duration ttl) {
+		this(new MirrorSelector(List.of(url), cacheDir.resolve(MirrorSelector.STATS_FILE)), cacheDir, ttl);
+	}
+
+	/**
+	 * Creates resolver of repository available via given mirrors.
+	 * @param mirrors NodeJS repository mirrors
+	 * @param cacheDir Directory of cached distribution indexes
+	 * @param ttl Time to live of cached index
+	 */
+	public NodeVersionResolver(MirrorSelector mirrors, Path cacheDir, Duration ttl) {
+		this.mirrors = mirrors;
+		this.cacheDir = cacheDir;
+		this.ttl = ttl;
+	}
+
+	/**
+	 * Defines offline mode, in which only cached index is used regardless
+	 * of its age.
+	 * @param offline {@code true} for offline mode
+	 * @return This resolver
+	 */
+	public NodeVersionResolver offline(boolean offline) {
+		this.offline = offline;
+		return this;
+	}
+
+	/**
+	 * Checks whether given version is exact, i.e. doesn't need resolution.
+	 * @param version Version or alias
+	 * @return {@code true} for exact version
+	 */
+	public static boolean isExact(String version) {
+		return EXACT.matcher(stripPrefix(version)).matches();
+	}
+
+	/**
+	 * Resolves version alias to exact version.
+	 * @param version Version or alias
+	 * @return Exact version without {@code v} prefix
+	 */
+	public String resolve(String version) {
+		String alias = stripPrefix(version.trim()).toLowerCase(Locale.ROOT);
+		if (isExact(alias)) {
+			return alias;
+		}
+
+		Predicate<Map<String, Object>> filter = filter(alias);
+		return readIndex().stream()
+				.filter(filter)
+				.map(r -> stripPrefix(String.valueOf(r.get("version"))))
+				.filter(NodeVersionResolver::isExact)
+				.max(NodeVersionResolver::compare)
+				.orElseThrow(() -> new NodeException("No NodeJS version matches '" + version + "' in " + getUrl()));
+	}
+
+	/**
+	 * Gets cached index file of the repository.
+	 * @return Index cache file
+	 */
+	public Path getIndexFile() {
+		byte[] digest = Checksums.messageDigest("SHA-256").digest(getUrl().getBytes(StandardCharsets.UTF_8));
+		return cacheDir.resolve("index-" + Checksums.hex(digest).substring(0, 12) + ".json");
+	}
+
+	private Predicate<Map<String, Object>> filter(String alias) {
+		if (alias.equals("latest") || alias.equals("current") || alias.equals("node")) {
+			return r -> true;
+		}
+		if (alias.equals("lts") || alias.equals("lts/*")) {
+			return r -> isLts(r.get("lts"));
+		}
+		if (alias.startsWith("lts/")) {
+			String codename = alias.substring(4);
+			return r -> isLts(r.get("lts")) && codename.equalsIgnoreCase(String.valueOf(r.get("lts")));
+		}
+		String prefix = alias.startsWith("latest-") ? alias.substring(7) : alias;
+		if (PARTIAL.matcher(prefix).matches()) {
+			return r -> stripPrefix(String.valueOf(r.get("version"))).startsWith(prefix + ".");
+		}
+		throw new NodeException("Unsupported NodeJS version alias '" + alias + "'");
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Map<String, Object>> readIndex() {
+		Path indexFile = getIndexFile();
+		if (offline) {
+			if (!Files.isRegularFile(indexFile)) {
+				throw new NodeException("NodeJS index of " + getUrl() + " is not cached, version aliases can't be " +
+						"resolved in offline mode. Run the build online once or use exact version");
+			}
+		} else if (!isFresh(indexFile)) {
+			try {
+				mirrors.fetch("NodeJS index", (url, latency) -> download(url, indexFile, latency));
+			} catch (RuntimeException e) {
+				if (!Files.isRegularFile(indexFile)) {
+					throw new NodeException("Unable to download NodeJS index from " + getUrl(), e);
+				}
+				LOGGER.warn("Unable to download NodeJS index from {}, using cached one: {}", getUrl(), e.getMessage());
+			}
+		}
+
+		try (Reader reader = Files.newBufferedReader(indexFile)) {
+			Object index = new JsonSlurper().parse(reader);
+			if (!(index instanceof Collection)) {
+				throw new NodeException("Unexpected format of NodeJS index " + indexFile);
+			}
+			return ((Collection<Object>) index).stream()
+					.filter(Map.class::isInstance)
+					.map(r -> (Map<String, Object>) r)
+					.collect(Collectors.toList());
+		} catch (IOException e) {
+			throw new NodeException("Unable to read NodeJS index " + indexFile, e);
+		}
+	}
+
+	private boolean isFresh(Path indexFile) {
+		try {
+			return Files.isRegularFile(indexFile) &&
+					Files.getLastModifiedTime(indexFile).toInstant().plus(ttl).isAfter(Instant.now());
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private Path download(String url, Path indexFile, Consumer<Duration> latency) {
+		try {
+			Files.createDirectories(cacheDir);
+			Path temp = Files.createTempFile(cacheDir, "index", ".tmp");
+			try {
+				long start = System.nanoTime();
+				try (InputStream is = Connections.openStream(url.replaceAll("/+$", "") + "/index.json")) {
+					latency.accept(Duration.ofNanos(System.nanoTime() - start));
+					Files.copy(is, temp, StandardCopyOption.REPLACE_EXISTING);
+				}
+				Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(temp);
+			}
+			return indexFile;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Index is cached per primary repository URL regardless of mirror
+	 * it was downloaded from.
+	 */
+	private String getUrl() {
+		return mirrors.getMirrors().get(0);
+	}
+
+	private static boolean isLts(Object lts) {
+		return lts instanceof String && !((String) lts).isEmpty();
+	}
+
+	private static String stripPrefix(String version) {
+		return version.startsWith("v") ? version.substring(1) : version;
+	}
+
+	private static int compare(String left, String right) {
+		String[] l = left.split("\\.");
+		String[] r = right.split("\\.");
+		for (int i = 0; i < Math.min(l.length, r.length); i++) {
+			int result = Integer.compare(Integer.parseInt(l[i]), Integer.parseInt(r[i]));
+			if (result != 0) {
+				return result;
+			}
+		}
+		return Integer.compare(l.length, r.length);
+	}
+
+}
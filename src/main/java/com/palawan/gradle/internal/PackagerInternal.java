@@ -35,16 +35,24 @@ import com.palawan.gradle.tasks.PackagerCliTask;
 import com.palawan.gradle.tasks.PackagerSetupTask;
 import com.palawan.gradle.tasks.PackagerTask;
 import com.palawan.gradle.util.ValueHolder;
+import groovy.json.JsonSlurper;
 import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
 
 import javax.annotation.Nullable;
+import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.PosixFilePermission;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
 /**
  * @author petr.langr
@@ -71,6 +79,12 @@ public class PackagerInternal extends AbstractExecutable {
 				.addInputFile("package-lock.json")
 				.addOutputDirectory("node_modules")
 				.addOutputFile("package-lock.json")
+				.addStateFile("node_modules/.package-lock.json")
+				.setFrozenInstall(List.of("ci"))
+				.setRemoveCommand("uninstall")
+				.addSaveArgument("dependencies", "--save-prod")
+				.addSaveArgument("devDependencies", "--save-dev")
+				.addSaveArgument("optionalDependencies", "--save-optional")
 				.cli(c ->
 					c.setCommand("npx")
 					.setLocalScript("bin/npx-cli.js")
@@ -80,12 +94,18 @@ public class PackagerInternal extends AbstractExecutable {
 	public static PackagerInternal pnpm() {
 		return new PackagerInternal("pnpm", "pnpx", new PackagerData()
 				.setCommand("pnpm")
-				.setAddCommand("install")
+				.setAddCommand("add")
 				.setNpmPackage("pnpm")
 				.setLocalScript("bin/pnpm.js")
 				.addInputFile("package.json")
 				.addOutputDirectory("node_modules")
 				.addOutputFile("pnpm-lock.yaml")
+				.addStateFile("node_modules/.modules.yaml")
+				.setFrozenInstall(List.of("install", "--frozen-lockfile"))
+				.setRemoveCommand("remove")
+				.addSaveArgument("dependencies", "--save-prod")
+				.addSaveArgument("devDependencies", "--save-dev")
+				.addSaveArgument("optionalDependencies", "--save-optional")
 				.cli(c ->
 						c.setCommand("pnpx")
 						.setLocalScript("bin/pnpx.js")
@@ -98,7 +118,12 @@ public class PackagerInternal extends AbstractExecutable {
 				.setAddCommand("install")
 				.setNpmPackage("cnpm")
 				.addInputFile("package.json")
-				.addOutputDirectory("node_modules"));
+				.addOutputDirectory("node_modules")
+				.addStateFile("node_modules/.npminstall.done")
+				.setRemoveCommand("uninstall")
+				.addSaveArgument("dependencies", "--save")
+				.addSaveArgument("devDependencies", "--save-dev")
+				.addSaveArgument("optionalDependencies", "--save-optional"));
 	}
 
 	public static PackagerInternal yarn() {
@@ -109,7 +134,12 @@ public class PackagerInternal extends AbstractExecutable {
 				.addInputFile("package.json")
 				.addInputFile("yarn.lock")
 				.addOutputFile("yarn.lock")
-				.addOutputDirectory("node_modules"));
+				.addOutputDirectory("node_modules")
+				.addStateFile("node_modules/.yarn-integrity")
+				.setFrozenInstall(List.of("install", "--frozen-lockfile"))
+				.setRemoveCommand("remove")
+				.addSaveArgument("devDependencies", "--dev")
+				.addSaveArgument("optionalDependencies", "--optional"));
 	}
 
 	public static PackagerInternal custom() {
@@ -121,16 +151,29 @@ public class PackagerInternal extends AbstractExecutable {
 
 
 
+	/** Packagers which corepack is able to provision */
+	private static final Set<String> COREPACK_PACKAGERS = Set.of("pnpm", "yarn");
+
 	/** Packager data contains command, working directory etc. */
 	private final PackagerData data;
 	/** Computed version specific working directory lazy holder */
 	private final ValueHolder<Path> workingDir = ValueHolder.racy(this::computeWorkingDir);
 	/** Computed setup task name for the packager, lazy holder */
 	private final ValueHolder<String> setupTaskName = ValueHolder.racy(this::computeSetupTaskName);
+	/** Records use of downloaded packager version once */
+	private final ValueHolder<Boolean> used = ValueHolder.racy(this::markUsed);
 	/** Packager cli executor - must be lazy loaded to properly wait for configuration */
 	private final ValueHolder<PackagerCliInternal> cli = ValueHolder.racy(this::createCli);
 	/** Cli name used to lazily create cli executable */
 	@Nullable private final String cliName;
+	/** Shared store of packager versions, project's working directory is used when missing */
+	@Nullable private Path storeDir;
+	/** Package manager specification of project's package.json, e.g. 'pnpm@7.0.0' */
+	@Nullable private String packageManager;
+	/** Workspace directories of monorepo keyed by package name, detected on first use */
+	private Supplier<Map<String, String>> workspaces = Map::of;
+	/** Usage locks of the build keeping downloaded version from cleanup */
+	@Nullable private Provider<InstallationUsageService> usage;
 
 
 	private PackagerInternal(String name, PackagerData data) {
@@ -222,6 +265,16 @@ public class PackagerInternal extends AbstractExecutable {
 	 * @param nodeExtension Final node configuration
 	 */
 	public void afterEvaluate(Project project, NodeExtension nodeExtension) {
+		usage = InstallationUsageService.register(project);
+		if (nodeExtension.getSharedStore()) {
+			storeDir(nodeExtension.getStoreDir().toPath().resolve("packagers"));
+		}
+		if (data.getCorepack()) {
+			packageManager(readPackageManager(project.file("package.json").toPath()));
+		}
+		// package.json is parsed only once install task inputs are needed
+		Path projectDir = project.getProjectDir().toPath();
+		workspaces = ValueHolder.racy(() -> relativize(projectDir, nodeExtension.getWorkspaces()));
 		setOnSystemPath(!nodeExtension.getDownload());
 		setPlatformSpecific(nodeExtension.getPlatformSpecific());
 		getCli().ifPresent(c -> c.setPlatformSpecific(nodeExtension.getPlatformSpecific()));
@@ -243,6 +296,10 @@ public class PackagerInternal extends AbstractExecutable {
 	 * @param nodeExtension Final node configuration
 	 */
 	public void afterEvaluateDefault(Project project, NodeExtension nodeExtension) {
+		usage = InstallationUsageService.register(project);
+		// package.json is parsed only once install task inputs are needed
+		Path projectDir = project.getProjectDir().toPath();
+		workspaces = ValueHolder.racy(() -> relativize(projectDir, nodeExtension.getWorkspaces()));
 		setOnSystemPath(!nodeExtension.getDownload());
 		setPlatformSpecific(nodeExtension.getPlatformSpecific());
 		getCli().ifPresent(c -> c.setPlatformSpecific(nodeExtension.getPlatformSpecific()));
@@ -265,6 +322,7 @@ public class PackagerInternal extends AbstractExecutable {
 
 	@Override
 	public Path getExecutableBinDir() {
+		used.get();
 		return getPlatformSpecific().getBinPath(workingDir.get());
 	}
 
@@ -307,6 +365,46 @@ public class PackagerInternal extends AbstractExecutable {
 		return data.getOutputFiles();
 	}
 
+	/**
+	 * Gets command and arguments installing packages strictly according
+	 * to lock file without updating it, e.g. {@code npm ci}. Yarn 2 and
+	 * newer replaced {@code --frozen-lockfile} by {@code --immutable}.
+	 * @return Optional frozen install command and arguments
+	 */
+	public Optional<List<String>> getFrozenInstall() {
+		if ("yarn".equals(name) && !getVersion().equals("latest") && !getVersion().startsWith("1.")) {
+			return Optional.of(List.of("install", "--immutable"));
+		}
+		return data.getFrozenInstall();
+	}
+
+	/**
+	 * Gets command removing dependency, e.g. {@code npm uninstall}.
+	 * @return Optional remove command, missing when not supported
+	 */
+	public Optional<String> getRemoveCommand() {
+		return data.getRemoveCommand();
+	}
+
+	/**
+	 * Gets argument of add command saving dependency into given section.
+	 * Dependencies section of yarn doesn't need any.
+	 * @param section Dependencies section, e.g. {@code devDependencies}
+	 * @return Optional save argument, e.g. {@code --save-dev}
+	 */
+	public Optional<String> getSaveArgument(String section) {
+		return data.getSaveArgument(section);
+	}
+
+	/**
+	 * Gets files packager writes into installed packages directory
+	 * describing its content.
+	 * @return State files relative to project
+	 */
+	public List<String> getStateFiles() {
+		return data.getStateFiles();
+	}
+
 	/**
 	 * Defines packager location directory, which is used to
 	 * calculate executable when download is used.
@@ -318,6 +416,25 @@ public class PackagerInternal extends AbstractExecutable {
 		return this;
 	}
 
+	/**
+	 * Defines store shared by all projects on the machine, where packager
+	 * versions are installed into instead of working directory.
+	 * @param storeDir Shared store directory or {@code null} to use working directory
+	 * @return This instance of packager
+	 */
+	public PackagerInternal storeDir(@Nullable Path storeDir) {
+		this.storeDir = storeDir;
+		return this;
+	}
+
+	/**
+	 * Checks whether packager is installed into shared store.
+	 * @return {@code true} if shared store is used
+	 */
+	public boolean isSharedStore() {
+		return storeDir != null;
+	}
+
 	/**
 	 * Get npm package name for download.
 	 * @return Npm package name
@@ -333,7 +450,75 @@ public class PackagerInternal extends AbstractExecutable {
 	 * @return Packager version string required for install
 	 */
 	public String getVersion() {
-		return data.getVersion().orElse("latest");
+		return getPackageManagerVersion().or(data::getVersion).orElse("latest");
+	}
+
+	/**
+	 * Defines package manager specification of project, which defines
+	 * packager version provisioned by corepack.
+	 * @param packageManager Package manager specification, e.g. {@code pnpm@7.0.0+sha256.abc}
+	 * @return This instance of packager
+	 */
+	public PackagerInternal packageManager(@Nullable String packageManager) {
+		this.packageManager = packageManager;
+		return this;
+	}
+
+	/**
+	 * Defines workspace packages of monorepo installed together with
+	 * the root package.
+	 * @param workspaces Workspace directories relative to project keyed by package name
+	 * @return This instance of packager
+	 */
+	public PackagerInternal workspaces(Map<String, String> workspaces) {
+		this.workspaces = () -> workspaces;
+		return this;
+	}
+
+	/**
+	 * Gets workspace packages detected in project's {@code package.json}
+	 * or {@code pnpm-workspace.yaml}.
+	 * @return Workspace directories relative to project keyed by package name
+	 */
+	public Map<String, String> getWorkspaces() {
+		return workspaces.get();
+	}
+
+	/**
+	 * Checks whether packager should be provisioned by corepack.
+	 * @return {@code true} if corepack is enabled and supports this packager
+	 */
+	public boolean isCorepack() {
+		return data.getCorepack() && COREPACK_PACKAGERS.contains(name);
+	}
+
+	/**
+	 * Gets executables provided by packager mapped to corepack binary
+	 * names, e.g. {@code pnpm.cmd} to {@code pnpm}.
+	 * @return Packager executables
+	 */
+	public Map<String, String> getCorepackBinaries() {
+		Map<String, String> binaries = new LinkedHashMap<>();
+		binaries.put(platformCommand(name, data.getCommand()), name);
+		getCli().ifPresent(c -> binaries.put(platformCommand(c.getName(), c.getCommand()), c.getName()));
+		return binaries;
+	}
+
+	/**
+	 * Gets packager name, e.g. {@code pnpm}.
+	 * @return Packager name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets npm registry the packager is downloaded from. The missing
+	 * registry means default one.
+	 * @return Optional registry URL
+	 */
+	public Optional<String> getRegistry() {
+		return data.getRegistry();
 	}
 
 	/**
@@ -345,12 +530,68 @@ public class PackagerInternal extends AbstractExecutable {
 		return workingDir.get();
 	}
 
+	/**
+	 * Gets installation of packager version downloaded via npm. The
+	 * installation is considered complete when its marker matches
+	 * required version.
+	 * @return Packager version installation
+	 */
+	public Installation getInstallation() {
+		String version = getVersion();
+		return new Installation(workingDir.get(), m -> version.equals(m.getProperty(Installation.VERSION)));
+	}
+
+	private Boolean markUsed() {
+		if (storeDir != null || data.getWorkingDirPath() != null) {
+			getInstallation().markUsed(usage == null ? null : usage.get());
+		}
+		return true;
+	}
+
 	private Path computeWorkingDir() {
+		String version = getPackageManagerVersion().or(data::getVersion).map(v -> "-v" + v).orElse("-latest");
+		if (storeDir != null) {
+			// keyed by npm package, custom packagers share the same name
+			String npmPackage = data.getNpmPackage().replace('/', '+');
+			return storeDir.resolve(npmPackage).resolve(name + version);
+		}
 		Path path = Objects.requireNonNull(data.getWorkingDirPath(), "Missing working directory");
-		String version = data.getVersion().map(v -> "-v" + v).orElse("-latest");
 		return path.resolve(name + version);
 	}
 
+	private Optional<String> getPackageManagerVersion() {
+		if (!isCorepack() || packageManager == null || !packageManager.startsWith(name + "@")) {
+			return Optional.empty();
+		}
+		// strips hash of the packager, e.g. pnpm@7.0.0+sha256.abc
+		String version = packageManager.substring(name.length() + 1).replaceAll("\\+.*$", "");
+		return version.isEmpty() ? Optional.empty() : Optional.of(version);
+	}
+
+	/**
+	 * Converts workspace directories detected by node extension into paths
+	 * relative to project.
+	 */
+	private static Map<String, String> relativize(Path projectDir, Map<String, File> workspaces) {
+		Map<String, String> paths = new TreeMap<>();
+		workspaces.forEach((name, dir) -> paths.put(name, projectDir.relativize(dir.toPath()).toString().replace('\\', '/')));
+		return paths;
+	}
+
+	@Nullable
+	private static String readPackageManager(Path packageJson) {
+		if (!Files.isRegularFile(packageJson)) {
+			return null;
+		}
+		try (Reader reader = Files.newBufferedReader(packageJson)) {
+			Object json = new JsonSlurper().parse(reader);
+			Object packageManager = json instanceof Map ? ((Map<?, ?>) json).get("packageManager") : null;
+			return packageManager == null ? null : packageManager.toString();
+		} catch (IOException | RuntimeException e) {
+			throw new NodeException("Unable to read packageManager of " + packageJson, e);
+		}
+	}
+
 	private String computeSetupTaskName() {
 		return name + "Setup";
 	}
@@ -363,16 +604,13 @@ public class PackagerInternal extends AbstractExecutable {
 				.orElse(null);
 	}
 
-	private static String capitalize(String str) {
-		return Character.toUpperCase(str.charAt(0)) + str.substring(1);
+	/** Only default command is adjusted to platform as does executable computation */
+	private String platformCommand(String name, String command) {
+		return name.equals(command) ? getPlatformSpecific().getCommand(command) : command;
 	}
 
-	@Override
-	void setExecutablePosixRights(Set<PosixFilePermission> permissions) throws IOException {
-		super.setExecutablePosixRights(permissions);
-		if (getCli().isPresent()) {
-			cli.get().setExecutablePosixRights(permissions);
-		}
+	private static String capitalize(String str) {
+		return Character.toUpperCase(str.charAt(0)) + str.substring(1);
 	}
 
 }
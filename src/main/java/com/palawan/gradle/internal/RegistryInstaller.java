@@ -0,0 +1,404 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import com.palawan.gradle.util.ArchiveExtractor;
+import com.palawan.gradle.util.Checksums;
+import com.palawan.gradle.util.Connections;
+import com.palawan.gradle.util.PlatformSpecific;
+import groovy.json.JsonSlurper;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URLConnection;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Installs npm package directly from registry tarball without starting
+ * NodeJS process. The package version manifest is read from registry,
+ * the tarball is verified against its integrity hash and extracted into
+ * global layout of given prefix as {@code npm install --global --prefix}
+ * would do, i.e. {@code lib/node_modules/<package>} with links in
+ * {@code bin} on unix and {@code node_modules/<package>} with {@code .cmd}
+ * shims on windows.
+ * Only packages without dependencies (or with all dependencies bundled)
+ * can be installed this way. Lifecycle scripts of the package aren't run.
+ * Verified tarballs may be kept in tarball store for offline installs,
+ * keyed by the version resolved from manifest. Requested distribution
+ * tags and ranges are recorded as aliases of the resolved version.
+ * Registry is accessed with connect and read timeouts, so that registry
+ * which stopped responding is reported as unavailable.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class RegistryInstaller {
+
+	/** Default npm registry */
+	public static final String DEFAULT_REGISTRY = "https://registry.npmjs.org";
+
+	private static final Logger LOGGER = Logging.getLogger(RegistryInstaller.class);
+	/** Integrity algorithms from the strongest one */
+	private static final Map<String, String> ALGORITHMS = new LinkedHashMap<>();
+
+	static {
+		ALGORITHMS.put("sha512", "SHA-512");
+		ALGORITHMS.put("sha384", "SHA-384");
+		ALGORITHMS.put("sha256", "SHA-256");
+	}
+
+	private final String registry;
+	private final PlatformSpecific platformSpecific;
+	@Nullable
+	private Path tarballStore;
+
+	/**
+	 * Creates installer using given registry.
+	 * @param registry Registry URL, e.g. {@code https://registry.npmjs.org}
+	 * @param platformSpecific Platform specific to create executable links for
+	 */
+	public RegistryInstaller(String registry, PlatformSpecific platformSpecific) {
+		this.registry = registry.replaceAll("/+$", "");
+		this.platformSpecific = platformSpecific;
+	}
+
+	/**
+	 * Defines directory keeping verified tarballs of installed packages,
+	 * so that they may be installed again in offline mode.
+	 * @param tarballStore Tarball store directory
+	 * @return This installer
+	 */
+	public RegistryInstaller tarballStore(Path tarballStore) {
+		this.tarballStore = tarballStore;
+		return this;
+	}
+
+	/**
+	 * Gets stored tarball of package version.
+	 * @param npmPackage Package name
+	 * @param version Exact package version as resolved by registry
+	 * @return Tarball path within tarball store
+	 */
+	public Optional<Path> getStoredTarball(String npmPackage, String version) {
+		return getStoreDir(npmPackage).map(d -> d.resolve(version + ".tgz"));
+	}
+
+	/**
+	 * Resolves requested version to stored one without accessing registry.
+	 * Exact versions are taken as they are, distribution tags and ranges
+	 * only through the alias index written by online installs, so that
+	 * e.g. {@code latest} resolves to the version it meant back then.
+	 * @param npmPackage Package name
+	 * @param version Package version or distribution tag as requested
+	 * @return Exact version having its tarball stored
+	 */
+	public Optional<String> resolveStored(String npmPackage, String version) {
+		if (getStoredTarball(npmPackage, version).filter(Files::isRegularFile).isPresent()) {
+			return Optional.of(version);
+		}
+		Optional<Path> alias = getAliasFile(npmPackage, version).filter(Files::isRegularFile);
+		if (alias.isEmpty()) {
+			return Optional.empty();
+		}
+		try {
+			String resolved = Files.readString(alias.get()).trim();
+			return getStoredTarball(npmPackage, resolved).filter(Files::isRegularFile).map(t -> resolved);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to read stored alias of {}@{}: {}", npmPackage, version, e.getMessage());
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Installs package from tarball kept by previous online install,
+	 * without accessing registry.
+	 * @param npmPackage Package name
+	 * @param version Package version or distribution tag as requested
+	 * @param prefix Installation prefix
+	 * @return {@code false} when tarball is not stored
+	 */
+	public boolean installStored(String npmPackage, String version, Path prefix) {
+		Optional<String> resolved = resolveStored(npmPackage, version);
+		if (resolved.isEmpty()) {
+			return false;
+		}
+		Path stored = getStoredTarball(npmPackage, resolved.get()).orElseThrow();
+		try {
+			Path packageDir = getModulesDir(prefix).resolve(npmPackage);
+			new ArchiveExtractor().stripComponents(1).extract(stored, packageDir);
+			Map<String, Object> manifest;
+			try (Reader reader = Files.newBufferedReader(packageDir.resolve("package.json"))) {
+				manifest = map(new JsonSlurper().parse(reader));
+			}
+			link(prefix, packageDir, npmPackage, manifest.get("bin"));
+		} catch (IOException e) {
+			throw new NodeException("Unable to install " + npmPackage + "@" + version + " from " + stored, e);
+		}
+		return true;
+	}
+
+	/**
+	 * Installs package into given prefix if it has no dependencies to be
+	 * installed. Verified tarball is kept within tarball store, if defined.
+	 * @param npmPackage Package name, e.g. {@code pnpm} or {@code @yarnpkg/cli-dist}
+	 * @param version Package version or distribution tag, e.g. {@code latest}
+	 * @param prefix Installation prefix
+	 * @return {@code false} when package has dependencies and must be installed
+	 * by npm, {@code true} when installed
+	 * @throws UncheckedIOException When registry is not available
+	 */
+	public boolean install(String npmPackage, String version, Path prefix) {
+		Map<String, Object> manifest = readManifest(npmPackage, version);
+		if (!isSelfContained(manifest)) {
+			LOGGER.info("Package {}@{} has dependencies, registry install is not possible", npmPackage, version);
+			return false;
+		}
+
+		Map<String, Object> dist = map(manifest.get("dist"));
+		String resolved = Objects.toString(manifest.get("version"), version);
+		Object tarball = dist.get("tarball");
+		if (tarball == null) {
+			throw new NodeException("Missing tarball of " + npmPackage + "@" + version + " in " + registry);
+		}
+
+		try {
+			Files.createDirectories(prefix);
+			Path archive = Files.createTempFile(prefix, "package", ".tgz");
+			try {
+				download(tarball.toString(), archive);
+				verify(archive, dist, npmPackage + "@" + version);
+				store(archive, npmPackage, version, resolved);
+
+				Path packageDir = getModulesDir(prefix).resolve(npmPackage);
+				new ArchiveExtractor().stripComponents(1).extract(archive, packageDir);
+				link(prefix, packageDir, npmPackage, manifest.get("bin"));
+			} finally {
+				Files.deleteIfExists(archive);
+			}
+		} catch (IOException e) {
+			throw new NodeException("Unable to install " + npmPackage + "@" + version + " from " + registry, e);
+		}
+		return true;
+	}
+
+	/**
+	 * Gets modules directory of global installation prefix.
+	 * @param prefix Installation prefix
+	 * @return Directory containing installed packages
+	 */
+	public Path getModulesDir(Path prefix) {
+		return platformSpecific.isWindows() ? prefix.resolve("node_modules") :
+				prefix.resolve("lib").resolve("node_modules");
+	}
+
+	private Optional<Path> getStoreDir(String npmPackage) {
+		return Optional.ofNullable(tarballStore).map(s -> s.resolve(npmPackage.replace('/', '+')));
+	}
+
+	private Optional<Path> getAliasFile(String npmPackage, String version) {
+		// ranges contain characters not allowed in file names
+		return getStoreDir(npmPackage).map(d -> d.resolve("aliases")
+				.resolve(URLEncoder.encode(version, StandardCharsets.UTF_8).replace("*", "%2A")));
+	}
+
+	private void store(Path archive, String npmPackage, String version, String resolved) {
+		Optional<Path> stored = getStoredTarball(npmPackage, resolved);
+		if (stored.isEmpty()) {
+			return;
+		}
+		try {
+			write(stored.get(), temp -> Files.copy(archive, temp, StandardCopyOption.REPLACE_EXISTING));
+			if (!version.equals(resolved)) {
+				// alias is written last, so that it never points to missing tarball
+				write(getAliasFile(npmPackage, version).orElseThrow(), temp -> Files.writeString(temp, resolved));
+			}
+		} catch (IOException e) {
+			// store is best effort only, online install succeeds anyway
+			LOGGER.warn("Unable to store tarball of {}@{}: {}", npmPackage, resolved, e.getMessage());
+		}
+	}
+
+	/**
+	 * Replaces file atomically, so that concurrent builds never read
+	 * partially written one.
+	 */
+	private static void write(Path file, Content content) throws IOException {
+		Files.createDirectories(file.getParent());
+		Path temp = Files.createTempFile(file.getParent(), "." + file.getFileName(), ".tmp");
+		try {
+			content.writeTo(temp);
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private Map<String, Object> readManifest(String npmPackage, String version) {
+		// scoped package separator needs to be escaped
+		String url = registry + "/" + npmPackage.replace("/", "%2f") + "/" + version;
+		try {
+			URLConnection connection = Connections.open(url);
+			connection.setRequestProperty("Accept", "application/json");
+			try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+				Map<String, Object> manifest = map(new JsonSlurper().parse(reader));
+				if (manifest.isEmpty()) {
+					throw new NodeException("Unexpected manifest format of " + npmPackage + "@" + version);
+				}
+				return manifest;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read manifest " + url, e);
+		}
+	}
+
+	private static void download(String url, Path archive) throws IOException {
+		try (InputStream is = Connections.openStream(url)) {
+			Files.copy(is, archive, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			// registry not available, distinguished from failed installation
+			throw new UncheckedIOException("Unable to download " + url, e);
+		}
+	}
+
+	private void verify(Path archive, Map<String, Object> dist, String what) throws IOException {
+		Object integrity = dist.get("integrity");
+		if (integrity != null) {
+			Map<String, String> hashes = new LinkedHashMap<>();
+			for (String hash : integrity.toString().trim().split("\\s+")) {
+				int index = hash.indexOf('-');
+				if (index > 0) {
+					// options following '?' are ignored as by subresource integrity
+					hashes.put(hash.substring(0, index), hash.substring(index + 1).replaceAll("\\?.*$", ""));
+				}
+			}
+			for (Map.Entry<String, String> algorithm : ALGORITHMS.entrySet()) {
+				String expected = hashes.get(algorithm.getKey());
+				if (expected != null) {
+					String actual = Base64.getEncoder().encodeToString(Checksums.digest(archive, algorithm.getValue()));
+					if (!expected.equals(actual)) {
+						throw new NodeException("Integrity check of " + what + " failed, expected " +
+								algorithm.getKey() + "-" + expected + " but was " + algorithm.getKey() + "-" + actual);
+					}
+					return;
+				}
+			}
+		}
+
+		Object shasum = dist.get("shasum");
+		if (shasum == null) {
+			throw new NodeException("Missing integrity of " + what + " in " + registry);
+		}
+		String actual = Checksums.hex(Checksums.digest(archive, "SHA-1"));
+		if (!shasum.toString().equalsIgnoreCase(actual)) {
+			throw new NodeException("Integrity check of " + what + " failed, expected sha1 " + shasum +
+					" but was " + actual);
+		}
+	}
+
+	private void link(Path prefix, Path packageDir, String npmPackage, Object bin) throws IOException {
+		Map<String, Object> bins;
+		if (bin instanceof String) {
+			// single executable is named after package without scope
+			bins = Map.of(npmPackage.substring(npmPackage.lastIndexOf('/') + 1), bin);
+		} else {
+			bins = map(bin);
+		}
+
+		Path binDir = platformSpecific.getBinPath(prefix);
+		Files.createDirectories(binDir);
+		for (Map.Entry<String, Object> entry : bins.entrySet()) {
+			Path script = packageDir.resolve(entry.getValue().toString()).normalize();
+			if (!script.startsWith(packageDir)) {
+				throw new NodeException("Executable " + entry.getKey() + " of " + npmPackage + " is outside of package");
+			}
+			if (platformSpecific.isWindows()) {
+				Files.writeString(binDir.resolve(entry.getKey() + ".cmd"),
+						"@ECHO off\r\nnode \"%~dp0\\" + prefix.relativize(script).toString().replace('/', '\\') +
+								"\" %*\r\n");
+			} else {
+				Path link = binDir.resolve(entry.getKey());
+				Files.deleteIfExists(link);
+				Files.createSymbolicLink(link, binDir.relativize(script));
+				makeExecutable(script);
+			}
+		}
+	}
+
+	private static void makeExecutable(Path script) throws IOException {
+		PosixFileAttributeView view = Files.getFileAttributeView(script, PosixFileAttributeView.class);
+		if (view != null) {
+			Set<PosixFilePermission> permissions = view.readAttributes().permissions();
+			permissions.add(PosixFilePermission.OWNER_EXECUTE);
+			permissions.add(PosixFilePermission.GROUP_EXECUTE);
+			permissions.add(PosixFilePermission.OTHERS_EXECUTE);
+			view.setPermissions(permissions);
+		}
+	}
+
+	/**
+	 * Package is self contained when it has no dependencies or all of
+	 * them are bundled within its tarball.
+	 */
+	private static boolean isSelfContained(Map<String, Object> manifest) {
+		Map<String, Object> dependencies = map(manifest.get("dependencies"));
+		Object bundled = manifest.containsKey("bundleDependencies") ?
+				manifest.get("bundleDependencies") : manifest.get("bundledDependencies");
+		if (dependencies.isEmpty() || Boolean.TRUE.equals(bundled)) {
+			return true;
+		}
+		return bundled instanceof Collection && ((Collection<?>) bundled).containsAll(dependencies.keySet());
+	}
+
+	@FunctionalInterface
+	private interface Content {
+		void writeTo(Path temp) throws IOException;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> map(Object value) {
+		return value instanceof Map ? (Map<String, Object>) value : Map.of();
+	}
+
+}
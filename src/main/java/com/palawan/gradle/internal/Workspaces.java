@@ -0,0 +1,272 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal;
+
+import groovy.json.JsonSlurper;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Detects workspace packages of monorepo, i.e. packages declared by
+ * {@code workspaces} of root {@code package.json} (npm, yarn) or by
+ * {@code packages} of {@code pnpm-workspace.yaml}. Workspace packages
+ * are directories matching the declared globs with own {@code package.json}.
+ * Unreadable {@code package.json} is reported as warning only, root one
+ * declares no workspaces then and workspace one is named after its path.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class Workspaces {
+
+	/** pnpm workspace definition file */
+	public static final String PNPM_WORKSPACE = "pnpm-workspace.yaml";
+
+	private static final Logger LOGGER = Logging.getLogger(Workspaces.class);
+	private static final Pattern GLOB_META = Pattern.compile("[*?\\[{]");
+	private static final Pattern YAML_ITEM = Pattern.compile("^\\s*-\\s*['\"]?([^'\"#]*?)['\"]?\\s*(#.*)?$");
+
+	private Workspaces() {
+	}
+
+	/**
+	 * Detects workspace packages of given project.
+	 * @param projectDir Project directory with root package.json
+	 * @return Workspace directories relative to project (using {@code /})
+	 * keyed by package name, empty when project isn't monorepo
+	 */
+	public static Map<String, String> detect(Path projectDir) {
+		return detect(projectDir, List.of());
+	}
+
+	/**
+	 * Detects workspace packages of given project. Only directories which
+	 * may match the declared globs are visited, e.g. {@code packages} up to
+	 * depth of one for {@code packages/*}.
+	 * @param projectDir Project directory with root package.json
+	 * @param skipped Directories never searched, e.g. build directory
+	 * @return Workspace directories relative to project (using {@code /})
+	 * keyed by package name, empty when project isn't monorepo
+	 */
+	public static Map<String, String> detect(Path projectDir, Collection<Path> skipped) {
+		return detectPackages(projectDir.toAbsolutePath().normalize(), skipped);
+	}
+
+	private static Map<String, String> detectPackages(Path projectDir, Collection<Path> skipped) {
+		List<String> patterns = readPatterns(projectDir);
+		if (patterns.isEmpty()) {
+			return Map.of();
+		}
+		List<PathMatcher> includes = new ArrayList<>();
+		List<PathMatcher> excludes = new ArrayList<>();
+		Map<Path, Integer> searched = new HashMap<>();
+		for (String pattern : patterns) {
+			boolean exclude = pattern.startsWith("!");
+			String glob = normalize(exclude ? pattern.substring(1) : pattern);
+			(exclude ? excludes : includes).add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+			if (!exclude) {
+				addSearched(searched, projectDir, glob);
+			}
+		}
+
+		Set<Path> skippedDirs = new HashSet<>();
+		skipped.forEach(d -> skippedDirs.add(d.toAbsolutePath().normalize()));
+		Set<Path> packages = new TreeSet<>();
+		searched.forEach((base, depth) -> packages.addAll(findPackages(projectDir, base, depth, skippedDirs)));
+
+		Map<String, String> workspaces = new TreeMap<>();
+		for (Path directory : packages) {
+			Path relative = projectDir.relativize(directory);
+			if (includes.stream().anyMatch(m -> m.matches(relative)) && excludes.stream().noneMatch(m -> m.matches(relative))) {
+				String path = relative.toString().replace('\\', '/');
+				workspaces.put(readName(directory.resolve("package.json")).orElse(path), path);
+			}
+		}
+		return workspaces;
+	}
+
+	/**
+	 * Adds directory to be searched for given glob, i.e. its leading
+	 * segments without wildcards, and depth of the search, unlimited
+	 * for globs containing {@code **}.
+	 */
+	private static void addSearched(Map<Path, Integer> searched, Path projectDir, String glob) {
+		String[] segments = glob.split("/");
+		Path base = projectDir;
+		int index = 0;
+		while (index < segments.length && !GLOB_META.matcher(segments[index]).find()) {
+			base = base.resolve(segments[index]);
+			index++;
+		}
+		int depth = glob.contains("**") ? Integer.MAX_VALUE : segments.length - index;
+		searched.merge(base.normalize(), depth, Math::max);
+	}
+
+	/**
+	 * Reads workspace globs, pnpm workspace definition takes precedence.
+	 * @param projectDir Project directory
+	 * @return Workspace globs, negated by leading {@code !}
+	 */
+	static List<String> readPatterns(Path projectDir) {
+		Path pnpmWorkspace = projectDir.resolve(PNPM_WORKSPACE);
+		if (Files.isRegularFile(pnpmWorkspace)) {
+			return readYamlPackages(pnpmWorkspace);
+		}
+		Object json = readJson(projectDir.resolve("package.json"));
+		Object workspaces = json instanceof Map ? ((Map<?, ?>) json).get("workspaces") : null;
+		if (workspaces instanceof Map) {
+			// yarn classic form {"packages": [...], "nohoist": [...]}
+			workspaces = ((Map<?, ?>) workspaces).get("packages");
+		}
+		List<String> patterns = new ArrayList<>();
+		if (workspaces instanceof Collection) {
+			((Collection<?>) workspaces).forEach(w -> patterns.add(String.valueOf(w)));
+		}
+		return patterns;
+	}
+
+	private static List<String> readYamlPackages(Path file) {
+		List<String> patterns = new ArrayList<>();
+		try {
+			boolean packages = false;
+			for (String line : Files.readAllLines(file)) {
+				if (line.isBlank() || line.trim().startsWith("#")) {
+					continue;
+				}
+				if (!Character.isWhitespace(line.charAt(0)) && !line.startsWith("-")) {
+					packages = line.startsWith("packages:");
+					continue;
+				}
+				Matcher matcher = YAML_ITEM.matcher(line);
+				if (packages && matcher.matches() && !matcher.group(1).isEmpty()) {
+					patterns.add(matcher.group(1));
+				}
+			}
+		} catch (IOException e) {
+			throw new NodeException("Unable to read " + file, e);
+		}
+		return patterns;
+	}
+
+	private static List<Path> findPackages(Path projectDir, Path base, int depth, Set<Path> skipped) {
+		List<Path> packages = new ArrayList<>();
+		if (!Files.isDirectory(base) || !base.startsWith(projectDir)) {
+			return packages;
+		}
+		try {
+			Files.walkFileTree(base, EnumSet.noneOf(FileVisitOption.class), depth, new SimpleFileVisitor<>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+					return visit(dir) ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+				}
+
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+					// directories at maximum depth are visited as files
+					if (attrs.isDirectory()) {
+						visit(file);
+					}
+					return FileVisitResult.CONTINUE;
+				}
+
+				private boolean visit(Path dir) {
+					if (dir.equals(projectDir)) {
+						return true;
+					}
+					String name = dir.getFileName().toString();
+					if (name.equals("node_modules") || name.startsWith(".") || skipped.contains(dir.toAbsolutePath().normalize())) {
+						return false;
+					}
+					if (Files.isRegularFile(dir.resolve("package.json"))) {
+						packages.add(dir);
+					}
+					return true;
+				}
+			});
+		} catch (IOException e) {
+			throw new NodeException("Unable to find workspace packages of " + projectDir, e);
+		}
+		return packages;
+	}
+
+	private static Optional<String> readName(Path packageJson) {
+		Object json = readJson(packageJson);
+		Object name = json instanceof Map ? ((Map<?, ?>) json).get("name") : null;
+		return Optional.ofNullable(name).map(String::valueOf);
+	}
+
+	@Nullable
+	private static Object readJson(Path packageJson) {
+		if (!Files.isRegularFile(packageJson)) {
+			return null;
+		}
+		try (Reader reader = Files.newBufferedReader(packageJson)) {
+			return new JsonSlurper().parse(reader);
+		} catch (IOException | RuntimeException e) {
+			// packager reports malformed package.json itself, if it's ever run
+			LOGGER.warn("Unable to read {}, assuming no workspaces", packageJson);
+			LOGGER.debug("Invalid " + packageJson, e);
+			return null;
+		}
+	}
+
+	private static String normalize(String glob) {
+		String normalized = glob.trim();
+		if (normalized.startsWith("./")) {
+			normalized = normalized.substring(2);
+		}
+		while (normalized.endsWith("/")) {
+			normalized = normalized.substring(0, normalized.length() - 1);
+		}
+		return normalized;
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal.data;
+
+import com.palawan.gradle.dsl.Cleanup;
+
+/**
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class CleanupData implements Cleanup {
+
+	private int maxVersions = 0;
+	private int maxAgeDays = 0;
+	private long maxSize = 0;
+	private boolean automatic = false;
+
+	@Override
+	public CleanupData setMaxVersions(int maxVersions) {
+		this.maxVersions = maxVersions;
+		return this;
+	}
+
+	/**
+	 * Get value of maxVersions
+	 *
+	 * @return maxVersions
+	 */
+	@Override
+	public int getMaxVersions() {
+		return maxVersions;
+	}
+
+	@Override
+	public CleanupData setMaxAgeDays(int maxAgeDays) {
+		this.maxAgeDays = maxAgeDays;
+		return this;
+	}
+
+	/**
+	 * Get value of maxAgeDays
+	 *
+	 * @return maxAgeDays
+	 */
+	@Override
+	public int getMaxAgeDays() {
+		return maxAgeDays;
+	}
+
+	@Override
+	public CleanupData setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+		return this;
+	}
+
+	/**
+	 * Get value of maxSize
+	 *
+	 * @return maxSize
+	 */
+	@Override
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	@Override
+	public CleanupData setAutomatic(boolean automatic) {
+		this.automatic = automatic;
+		return this;
+	}
+
+	/**
+	 * Get value of automatic
+	 *
+	 * @return automatic
+	 */
+	@Override
+	public boolean isAutomatic() {
+		return automatic;
+	}
+
+	/**
+	 * Checks whether any limit is defined.
+	 * @return {@code true} if cleanup may remove anything
+	 */
+	public boolean isEnabled() {
+		return maxVersions > 0 || maxAgeDays > 0 || maxSize > 0;
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal.data;
+
+import com.palawan.gradle.dsl.Daemon;
+
+/**
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class DaemonData implements Daemon {
+
+	private boolean enabled = false;
+	private int idleTimeout = 300;
+	private long maxMemory = 1024L * 1024 * 1024;
+
+	@Override
+	public DaemonData setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		return this;
+	}
+
+	/**
+	 * Get value of enabled
+	 *
+	 * @return enabled
+	 */
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public DaemonData setIdleTimeout(int idleTimeout) {
+		this.idleTimeout = idleTimeout;
+		return this;
+	}
+
+	/**
+	 * Get value of idleTimeout
+	 *
+	 * @return idleTimeout
+	 */
+	@Override
+	public int getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	@Override
+	public DaemonData setMaxMemory(long maxMemory) {
+		this.maxMemory = maxMemory;
+		return this;
+	}
+
+	/**
+	 * Get value of maxMemory
+	 *
+	 * @return maxMemory
+	 */
+	@Override
+	public long getMaxMemory() {
+		return maxMemory;
+	}
+
+}
@@ -25,7 +25,10 @@
 
 package com.palawan.gradle.internal.data;
 
+import javax.annotation.Nullable;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author petr.langr
@@ -37,6 +40,21 @@ public class NodeData {
 	private String version;
 	private Path workingDir;
 	private String url;
+	private boolean sharedStore = false;
+	private Path storeDir;
+	private boolean fingerprintDistribution = true;
+	private boolean verifyChecksum = true;
+	private final List<String> extractIncludes = new ArrayList<>();
+	private final List<String> extractExcludes = new ArrayList<>();
+	private boolean minimalRuntime = false;
+	private boolean offline = false;
+	private boolean async = false;
+	@Nullable
+	private Path cacheDir;
+	private final List<String> mirrors = new ArrayList<>();
+	private final CleanupData cleanup = new CleanupData();
+	private final DaemonData daemon = new DaemonData();
+	private final ProcessesData processes = new ProcessesData();
 
 	public NodeData(String command, String version, Path workingDir, String url) {
 		this.command = command;
@@ -116,4 +134,233 @@ public class NodeData {
 	public void setUrl(String url) {
 		this.url = url;
 	}
+
+	/**
+	 * Get value of sharedStore
+	 *
+	 * @return sharedStore
+	 */
+	public boolean isSharedStore() {
+		return sharedStore;
+	}
+
+	/**
+	 * Set value for property sharedStore
+	 *
+	 * @param sharedStore Set value of sharedStore
+	 */
+	public void setSharedStore(boolean sharedStore) {
+		this.sharedStore = sharedStore;
+	}
+
+	/**
+	 * Get value of storeDir
+	 *
+	 * @return storeDir
+	 */
+	public Path getStoreDir() {
+		return storeDir;
+	}
+
+	/**
+	 * Set value for property storeDir
+	 *
+	 * @param storeDir Set value of storeDir
+	 */
+	public void setStoreDir(Path storeDir) {
+		this.storeDir = storeDir;
+	}
+
+	/**
+	 * Get value of fingerprintDistribution
+	 *
+	 * @return fingerprintDistribution
+	 */
+	public boolean isFingerprintDistribution() {
+		return fingerprintDistribution;
+	}
+
+	/**
+	 * Set value for property fingerprintDistribution
+	 *
+	 * @param fingerprintDistribution Set value of fingerprintDistribution
+	 */
+	public void setFingerprintDistribution(boolean fingerprintDistribution) {
+		this.fingerprintDistribution = fingerprintDistribution;
+	}
+
+	/**
+	 * Get value of verifyChecksum
+	 *
+	 * @return verifyChecksum
+	 */
+	public boolean isVerifyChecksum() {
+		return verifyChecksum;
+	}
+
+	/**
+	 * Set value for property verifyChecksum
+	 *
+	 * @param verifyChecksum Set value of verifyChecksum
+	 */
+	public void setVerifyChecksum(boolean verifyChecksum) {
+		this.verifyChecksum = verifyChecksum;
+	}
+
+	/**
+	 * Get value of extractIncludes
+	 *
+	 * @return extractIncludes
+	 */
+	public List<String> getExtractIncludes() {
+		return extractIncludes;
+	}
+
+	/**
+	 * Set value for property extractIncludes
+	 *
+	 * @param extractIncludes Set value of extractIncludes
+	 */
+	public void setExtractIncludes(List<String> extractIncludes) {
+		this.extractIncludes.clear();
+		this.extractIncludes.addAll(extractIncludes);
+	}
+
+	/**
+	 * Get value of extractExcludes
+	 *
+	 * @return extractExcludes
+	 */
+	public List<String> getExtractExcludes() {
+		return extractExcludes;
+	}
+
+	/**
+	 * Set value for property extractExcludes
+	 *
+	 * @param extractExcludes Set value of extractExcludes
+	 */
+	public void setExtractExcludes(List<String> extractExcludes) {
+		this.extractExcludes.clear();
+		this.extractExcludes.addAll(extractExcludes);
+	}
+
+	/**
+	 * Get value of minimalRuntime
+	 *
+	 * @return minimalRuntime
+	 */
+	public boolean isMinimalRuntime() {
+		return minimalRuntime;
+	}
+
+	/**
+	 * Set value for property minimalRuntime
+	 *
+	 * @param minimalRuntime Set value of minimalRuntime
+	 */
+	public void setMinimalRuntime(boolean minimalRuntime) {
+		this.minimalRuntime = minimalRuntime;
+	}
+
+	/**
+	 * Get value of offline
+	 *
+	 * @return offline
+	 */
+	public boolean isOffline() {
+		return offline;
+	}
+
+	/**
+	 * Set value for property offline
+	 *
+	 * @param offline Set value of offline
+	 */
+	public void setOffline(boolean offline) {
+		this.offline = offline;
+	}
+
+	/**
+	 * Get value of async
+	 *
+	 * @return async
+	 */
+	public boolean isAsync() {
+		return async;
+	}
+
+	/**
+	 * Set value for property async
+	 *
+	 * @param async Set value of async
+	 */
+	public void setAsync(boolean async) {
+		this.async = async;
+	}
+
+	/**
+	 * Get value of cacheDir
+	 *
+	 * @return cacheDir
+	 */
+	@Nullable
+	public Path getCacheDir() {
+		return cacheDir;
+	}
+
+	/**
+	 * Set value for property cacheDir
+	 *
+	 * @param cacheDir Set value of cacheDir
+	 */
+	public void setCacheDir(@Nullable Path cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	/**
+	 * Get value of mirrors
+	 *
+	 * @return mirrors
+	 */
+	public List<String> getMirrors() {
+		return mirrors;
+	}
+
+	/**
+	 * Set value for property mirrors
+	 *
+	 * @param mirrors Set value of mirrors
+	 */
+	public void setMirrors(List<String> mirrors) {
+		this.mirrors.clear();
+		this.mirrors.addAll(mirrors);
+	}
+
+	/**
+	 * Get value of cleanup
+	 *
+	 * @return cleanup
+	 */
+	public CleanupData getCleanup() {
+		return cleanup;
+	}
+
+	/**
+	 * Get value of daemon
+	 *
+	 * @return daemon
+	 */
+	public DaemonData getDaemon() {
+		return daemon;
+	}
+
+	/**
+	 * Get value of processes
+	 *
+	 * @return processes
+	 */
+	public ProcessesData getProcesses() {
+		return processes;
+	}
 }
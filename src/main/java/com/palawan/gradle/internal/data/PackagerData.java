@@ -35,7 +35,9 @@ import javax.annotation.Nullable;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -51,6 +53,9 @@ public class PackagerData implements CustomPackager {
 	@Nullable
 	private String localScript;
 	private String addCommand;
+	@Nullable
+	private String registry;
+	private boolean corepack = false;
 
 	@Nullable
 	private PackagerCliData cli;
@@ -58,6 +63,11 @@ public class PackagerData implements CustomPackager {
 	private List<String> inputFiles = List.of();
 	private List<String> outputDirectories = List.of();
 	private List<String> outputFiles = List.of();
+	private List<String> stateFiles = List.of();
+	private List<String> frozenInstall = List.of();
+	@Nullable
+	private String removeCommand;
+	private Map<String, String> saveArguments = Map.of();
 
 	public Optional<PackagerCliData> getCli() {
 		return Optional.ofNullable(cli);
@@ -159,6 +169,38 @@ public class PackagerData implements CustomPackager {
 		return this;
 	}
 
+	/**
+	 * Get value of registry
+	 *
+	 * @return registry
+	 */
+	@Override
+	public Optional<String> getRegistry() {
+		return Optional.ofNullable(registry);
+	}
+
+	@Override
+	public PackagerData setRegistry(String registry) {
+		this.registry = registry;
+		return this;
+	}
+
+	/**
+	 * Get value of corepack
+	 *
+	 * @return corepack
+	 */
+	@Override
+	public boolean getCorepack() {
+		return corepack;
+	}
+
+	@Override
+	public PackagerData setCorepack(boolean corepack) {
+		this.corepack = corepack;
+		return this;
+	}
+
 	/**
 	 * Get value of localScript
 	 *
@@ -264,4 +306,93 @@ public class PackagerData implements CustomPackager {
 		outputFiles.add(outputFile);
 		return this;
 	}
+
+	/**
+	 * Get value of stateFiles, i.e. files packager writes into
+	 * {@code node_modules} describing its content.
+	 *
+	 * @return stateFiles
+	 */
+	public List<String> getStateFiles() {
+		return stateFiles;
+	}
+
+	/**
+	 * Adds state file packager writes on install.
+	 * @param stateFile State file relative to project, e.g. {@code node_modules/.package-lock.json}
+	 * @return This package data
+	 */
+	public PackagerData addStateFile(String stateFile) {
+		if (stateFiles.isEmpty()) {
+			stateFiles = new ArrayList<>(2);
+		}
+		stateFiles.add(stateFile);
+		return this;
+	}
+
+	/**
+	 * Get value of frozenInstall, i.e. command and arguments installing
+	 * packages strictly according to lock file.
+	 *
+	 * @return frozenInstall
+	 */
+	public Optional<List<String>> getFrozenInstall() {
+		return frozenInstall.isEmpty() ? Optional.empty() : Optional.of(frozenInstall);
+	}
+
+	/**
+	 * Sets command and arguments installing packages strictly according
+	 * to lock file.
+	 * @param frozenInstall Frozen install command and arguments, e.g. {@code ci}
+	 * @return This package data
+	 */
+	public PackagerData setFrozenInstall(List<String> frozenInstall) {
+		this.frozenInstall = frozenInstall;
+		return this;
+	}
+
+	/**
+	 * Get value of removeCommand, i.e. command removing dependency.
+	 *
+	 * @return removeCommand
+	 */
+	public Optional<String> getRemoveCommand() {
+		return Optional.ofNullable(removeCommand);
+	}
+
+	/**
+	 * Sets command removing dependency from package.json, lock file and
+	 * installed packages.
+	 * @param removeCommand Remove command, e.g. {@code uninstall}
+	 * @return This package data
+	 */
+	public PackagerData setRemoveCommand(String removeCommand) {
+		this.removeCommand = removeCommand;
+		return this;
+	}
+
+	/**
+	 * Gets argument of add command saving dependency into given
+	 * package.json section.
+	 * @param section Dependencies section, e.g. {@code devDependencies}
+	 * @return Optional save argument, e.g. {@code --save-dev}
+	 */
+	public Optional<String> getSaveArgument(String section) {
+		return Optional.ofNullable(saveArguments.get(section));
+	}
+
+	/**
+	 * Adds argument of add command saving dependency into given
+	 * package.json section.
+	 * @param section Dependencies section, e.g. {@code devDependencies}
+	 * @param saveArgument Save argument, e.g. {@code --save-dev}
+	 * @return This package data
+	 */
+	public PackagerData addSaveArgument(String section, String saveArgument) {
+		if (saveArguments.isEmpty()) {
+			saveArguments = new LinkedHashMap<>();
+		}
+		saveArguments.put(section, saveArgument);
+		return this;
+	}
 }
@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal.data;
+
+import com.palawan.gradle.dsl.Processes;
+
+/**
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class ProcessesData implements Processes {
+
+	private int maxParallel = Runtime.getRuntime().availableProcessors();
+	private long memoryBudget = 0;
+	private long processMemory = 512L * 1024 * 1024;
+
+	@Override
+	public ProcessesData setMaxParallel(int maxParallel) {
+		this.maxParallel = maxParallel;
+		return this;
+	}
+
+	/**
+	 * Get value of maxParallel
+	 *
+	 * @return maxParallel
+	 */
+	@Override
+	public int getMaxParallel() {
+		return maxParallel;
+	}
+
+	@Override
+	public ProcessesData setMemoryBudget(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+		return this;
+	}
+
+	/**
+	 * Get value of memoryBudget
+	 *
+	 * @return memoryBudget
+	 */
+	@Override
+	public long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	@Override
+	public ProcessesData setProcessMemory(long processMemory) {
+		this.processMemory = processMemory;
+		return this;
+	}
+
+	/**
+	 * Get value of processMemory
+	 *
+	 * @return processMemory
+	 */
+	@Override
+	public long getProcessMemory() {
+		return processMemory;
+	}
+
+}
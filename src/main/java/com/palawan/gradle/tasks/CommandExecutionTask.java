@@ -52,7 +52,7 @@ abstract class CommandExecutionTask extends ExecutionTask {
 
 	@Override
 	protected ExecutableData getExecutable() {
-		List<String> args = Stream.concat(Stream.of(command), arguments.stream())
+		List<String> args = Stream.concat(Stream.of(getCommand()), getArguments().stream())
 				.filter(Objects::nonNull)
 				.filter(s -> !s.isEmpty())
 				.collect(Collectors.toList());
@@ -26,17 +26,24 @@
 package com.palawan.gradle.tasks;
 
 import com.palawan.gradle.dsl.NodeExtension;
+import com.palawan.gradle.internal.ExecWorkAction;
 import com.palawan.gradle.internal.ExecutableData;
+import com.palawan.gradle.internal.NodeProcessLimiter;
 import com.palawan.gradle.util.ValueHolder;
 import org.gradle.api.DefaultTask;
+import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.process.ExecResult;
+import org.gradle.workers.WorkerExecutor;
 
 import javax.annotation.Nullable;
+import javax.inject.Inject;
 import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -54,22 +61,114 @@ public abstract class ExecutionTask extends DefaultTask {
 	@Nullable
 	private File workingDir;
 
+	@Nullable
+	private Boolean async;
+
+	@Nullable
+	private Long processMemory;
+
+	private final Property<NodeProcessLimiter> processLimiter = getProject().getObjects().property(NodeProcessLimiter.class);
+
+	/**
+	 * Executes the command. The command is submitted to gradle worker
+	 * when asynchronous, so that independent tasks of the same project
+	 * run meanwhile, bounded by {@code --max-workers}.
+	 */
 	@TaskAction
 	public void execute() {
-		ExecutableData executable = getExecutable()
+		ExecutableData executable = prepare(getExecutable());
+		if (isSubmitted()) {
+			submit(executable);
+		} else {
+			execute(executable);
+		}
+	}
+
+	/**
+	 * Applies task configuration, i.e. working directory, exit value
+	 * handling and environment, to given executable. Task environment
+	 * takes precedence over package cache environment of node extension.
+	 * @param executable Executable data to configure
+	 * @return Configured executable data
+	 */
+	protected ExecutableData prepare(ExecutableData executable) {
+		return executable
 				.setWorkingDir(getWorkingDirOrProjectDir())
 				.setIgnoreExitValue(ignoreExitValue)
+				.addEnvironmentVariables(getNodeExtension().getNodeManager().getCacheEnvironment())
 				.addEnvironmentVariables(environment);
-
-		execute(executable);
 	}
 
 	protected ExecResult execute(ExecutableData executable) {
+		return exec(withNodePath(executable));
+	}
+
+	/**
+	 * Executes prepared executable once process limiter allows it.
+	 * @param executable Executable data with NodeJS on path
+	 * @return Execution result
+	 */
+	@SuppressWarnings("try")
+	protected ExecResult exec(ExecutableData executable) {
+		try (NodeProcessLimiter.Permit permit = acquireProcess()) {
+			return getProject().exec(executable);
+		}
+	}
+
+	/**
+	 * Waits for permit of node process limiter shared by the build.
+	 * @return Permit to be closed once the process finishes
+	 */
+	protected NodeProcessLimiter.Permit acquireProcess() {
+		return processLimiter.isPresent() ? processLimiter.get().acquire(getProcessMemory()) : NodeProcessLimiter.Permit.NONE;
+	}
+
+	/**
+	 * Passes process limiter to worker parameters.
+	 * @param parameters Worker parameters
+	 */
+	protected void limitProcesses(ExecWorkAction.Parameters parameters) {
+		parameters.getProcessLimiter().set(processLimiter);
+		parameters.getProcessMemory().set(getProcessMemory());
+	}
+
+	/**
+	 * Submits executable to gradle worker without waiting for its result.
+	 * @param executable Executable data
+	 */
+	protected void submit(ExecutableData executable) {
+		ExecutableData data = withNodePath(executable);
+		getWorkerExecutor().noIsolation().submit(ExecWorkAction.class, p -> {
+			p.from(data);
+			limitProcesses(p);
+			p.getWorkingDirs().set(List.of(data.getWorkingDir().getAbsolutePath()));
+		});
+	}
+
+	/**
+	 * Checks whether command is submitted to gradle worker. Tasks
+	 * processing result of the command execute it synchronously.
+	 * @return {@code true} if command is executed asynchronously
+	 */
+	protected boolean isSubmitted() {
+		return getAsync();
+	}
+
+	@Inject
+	protected WorkerExecutor getWorkerExecutor() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Adds bin directory of downloaded NodeJS to executable path.
+	 * @param executable Executable data
+	 * @return Executable data with NodeJS on path
+	 */
+	protected ExecutableData withNodePath(ExecutableData executable) {
 		if (getNodeExtension().getDownload()) {
 			executable.withPathLocation(getNodeExtension().getNodeManager().getBinDir().toAbsolutePath().toString());
 		}
-
-		return getProject().exec(executable);
+		return executable;
 	}
 
 	@Internal
@@ -80,6 +179,56 @@ public abstract class ExecutionTask extends DefaultTask {
 	@Internal
 	protected abstract ExecutableData getExecutable();
 
+	/**
+	 * Get whether command is executed by gradle worker, defaults to
+	 * {@code node.async}.
+	 *
+	 * @return async
+	 */
+	@Internal
+	public boolean getAsync() {
+		return async == null ? getNodeExtension().getAsync() : async;
+	}
+
+	/**
+	 * Defines whether command is executed by gradle worker, so that
+	 * other tasks of the same project may run in parallel.
+	 * @param async {@code true} to execute command by gradle worker
+	 */
+	public void setAsync(boolean async) {
+		this.async = async;
+	}
+
+	/**
+	 * Get memory estimate of node process reserved from memory budget
+	 * of {@code node.processes}.
+	 *
+	 * @return processMemory
+	 */
+	@Internal
+	public long getProcessMemory() {
+		return processMemory == null ? getNodeExtension().getProcesses().getProcessMemory() : processMemory;
+	}
+
+	/**
+	 * Defines memory estimate of node process, e.g. for memory hungry
+	 * bundlers, overriding {@code node.processes.processMemory}.
+	 * @param processMemory Memory estimate in bytes
+	 */
+	public void setProcessMemory(long processMemory) {
+		this.processMemory = processMemory;
+	}
+
+	/**
+	 * Get limiter of node processes shared by the build
+	 *
+	 * @return processLimiter
+	 */
+	@Internal
+	public Property<NodeProcessLimiter> getProcessLimiter() {
+		return processLimiter;
+	}
+
 	/**
 	 * Get value of ignoreExitValue of task execution
 	 *
@@ -139,14 +288,21 @@ public abstract class ExecutionTask extends DefaultTask {
 	}
 
 	/**
-	 * Get path of working dir as input gradle task parameter
+	 * Get path of working dir as input gradle task parameter. Working
+	 * dirs within project are relative to project dir, so that task
+	 * outputs are relocatable in build cache.
 	 * @return Working dir path
 	 */
 	@Input
 	@Optional
 	@Nullable
 	public String getWorkingDirString() {
-		return workingDir == null ? null : workingDir.getAbsolutePath();
+		if (workingDir == null) {
+			return null;
+		}
+		Path projectDir = getProject().getProjectDir().toPath().toAbsolutePath();
+		Path path = workingDir.toPath().toAbsolutePath().normalize();
+		return path.startsWith(projectDir) ? projectDir.relativize(path).toString().replace(File.separatorChar, '/') : path.toString();
 	}
 
 	/**
@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.tasks;
+
+import com.palawan.gradle.dsl.NodeExtension;
+import com.palawan.gradle.internal.InstallationCleaner;
+import com.palawan.gradle.internal.InstallationUsageService;
+import com.palawan.gradle.internal.NodeException;
+import com.palawan.gradle.internal.NodeManager;
+import com.palawan.gradle.internal.NodeModulesCache;
+import com.palawan.gradle.internal.PackagerInternal;
+import com.palawan.gradle.internal.data.CleanupData;
+import com.palawan.gradle.util.ValueHolder;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Removes unused NodeJS and packager versions according to cleanup
+ * policy of node extension. Cached node modules archives are removed
+ * by maximal age only.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class NodeCleanupTask extends DefaultTask {
+
+	private final ValueHolder<NodeExtension> nodeExtension = ValueHolder.racy(() -> NodeExtension.get(getProject()));
+	private final Property<InstallationUsageService> usage = getProject().getObjects().property(InstallationUsageService.class);
+
+	/**
+	 * Get usage locks of the build, installations used by the build are kept
+	 *
+	 * @return usage
+	 */
+	@Internal
+	public Property<InstallationUsageService> getUsage() {
+		return usage;
+	}
+
+	@TaskAction
+	public void execute() {
+		NodeExtension extension = nodeExtension.get();
+		NodeManager nodeManager = extension.getNodeManager();
+		CleanupData policy = nodeManager.getData().getCleanup();
+		if (!policy.isEnabled()) {
+			getLogger().info("No cleanup limits defined, nothing to remove");
+			return;
+		}
+
+		Map<Path, IOException> failures = new LinkedHashMap<>();
+		InstallationCleaner.Listener listener = new InstallationCleaner.Listener() {
+			@Override
+			public void removed(Path installation) {
+				getLogger().lifecycle("Removed unused {}", installation);
+			}
+
+			@Override
+			public void failed(Path installation, IOException e) {
+				getLogger().warn("Unable to remove unused {}: {}", installation, e.toString());
+				failures.put(installation, e);
+			}
+		};
+		InstallationCleaner cleaner = new InstallationCleaner(policy, usage.get(), listener);
+		Path nodeDir = nodeManager.getInstallation().getDirectory();
+		Optional<Path> packagerDir = extension.getPackagerManager().getPackager().map(PackagerInternal::getWorkingDir);
+		List<Path> inUse = new ArrayList<>();
+		inUse.add(nodeDir);
+		packagerDir.ifPresent(inUse::add);
+
+		try {
+			cleaner.cleanup(nodeDir.getParent(), name -> name.startsWith("node-v"), inUse);
+		} catch (IOException e) {
+			listener.failed(nodeDir.getParent(), e);
+		}
+		if (packagerDir.isPresent()) {
+			try {
+				// packager base directory holds versions of the packager only
+				cleaner.cleanup(packagerDir.get().getParent(), name -> true, inUse);
+			} catch (IOException e) {
+				listener.failed(packagerDir.get().getParent(), e);
+			}
+		}
+		if (policy.getMaxAgeDays() > 0) {
+			Instant unusedSince = Instant.now().minus(Duration.ofDays(policy.getMaxAgeDays()));
+			try {
+				new NodeModulesCache(nodeManager.getModulesCacheDir()).cleanup(unusedSince, listener);
+			} catch (IOException e) {
+				listener.failed(nodeManager.getModulesCacheDir(), e);
+			}
+		}
+
+		if (!failures.isEmpty()) {
+			NodeException failure = new NodeException("Unable to remove " + failures.size() + " unused versions " + failures.keySet());
+			failures.values().forEach(failure::addSuppressed);
+			throw failure;
+		}
+	}
+
+}
@@ -25,15 +25,40 @@
 
 package com.palawan.gradle.tasks;
 
+import com.palawan.gradle.dsl.NodeExtension;
+import com.palawan.gradle.internal.DependencyDelta;
 import com.palawan.gradle.internal.ExecutableData;
+import com.palawan.gradle.internal.InstallState;
+import com.palawan.gradle.internal.NodeException;
+import com.palawan.gradle.internal.NodeModulesCache;
+import com.palawan.gradle.internal.PackagerInternal;
+import com.palawan.gradle.util.Checksums;
+import com.palawan.gradle.util.PlatformSpecific;
+import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.OutputDirectories;
+import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.OutputFiles;
 import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
 
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * @author petr.langr
@@ -41,8 +66,57 @@ import java.util.List;
  */
 public class NodeInstallTask extends CommandExecutionTask {
 
+	/** Install state manifest file name */
+	public static final String STATE_FILE = ".gradle-install-state.properties";
+	/** Manifest of dependencies installed by previous execution */
+	public static final String DELTA_FILE = "delta-install.properties";
+	/** Default maximum of changed packages installed by delta install */
+	public static final int DEFAULT_MAX_DELTA_PACKAGES = 5;
+
+	private boolean stateManifest = false;
+	private boolean modulesCache = false;
+	private boolean frozenLockfile = false;
+	private boolean deltaInstall = false;
+	private int maxDeltaPackages = DEFAULT_MAX_DELTA_PACKAGES;
+
 	public NodeInstallTask() {
 		setCommand("install");
+		getOutputs().upToDateWhen(t -> !isStateTracked() || computeState().isCurrent());
+	}
+
+	/**
+	 * Installs packages or restores them from cache and records install
+	 * state manifest and installed dependencies if enabled.
+	 */
+	@Override
+	@TaskAction
+	public void execute() {
+		List<String> directories = getInstalledDirectories();
+		if (!modulesCache || directories.isEmpty()) {
+			install();
+		} else {
+			installCached(directories);
+		}
+		try {
+			if (isStateTracked()) {
+				computeState().write();
+			}
+			if (isDeltaTracked()) {
+				computeDeltaState().write();
+			}
+		} catch (IOException e) {
+			throw new NodeException("Unable to write install state", e);
+		}
+	}
+
+	/**
+	 * Install is executed synchronously, because install state and
+	 * caches are recorded once it completes.
+	 * @return Always {@code false}
+	 */
+	@Override
+	protected boolean isSubmitted() {
+		return false;
 	}
 
 	@Override
@@ -50,20 +124,369 @@ public class NodeInstallTask extends CommandExecutionTask {
 		return packager.get().executableData(arguments);
 	}
 
+	/**
+	 * Gets install command, which is replaced by packager's frozen
+	 * install command in frozen lockfile mode.
+	 * @return Install command
+	 */
+	@Override
+	public String getCommand() {
+		return frozenLockfile ? getFrozenInstall().get(0) : super.getCommand();
+	}
+
+	/**
+	 * Gets install arguments, which are preceded by packager's frozen
+	 * install arguments in frozen lockfile mode.
+	 * @return Install arguments
+	 */
+	@Override
+	public List<String> getArguments() {
+		if (!frozenLockfile) {
+			return super.getArguments();
+		}
+		List<String> frozenInstall = getFrozenInstall();
+		List<String> arguments = new ArrayList<>(frozenInstall.subList(1, frozenInstall.size()));
+		arguments.addAll(super.getArguments());
+		return arguments;
+	}
+
+	/**
+	 * Packager input files including {@code package.json} of each
+	 * workspace package. Lock files, which are outputs of regular
+	 * install, are inputs only in frozen lockfile mode.
+	 * @return Input files
+	 */
 	@InputFiles
 	@PathSensitive(PathSensitivity.RELATIVE)
 	public Collection<String> getInputFiles() {
-		return packager.get().getInputFiles();
+		Map<String, String> workspaces = getWorkspaces();
+		if (!frozenLockfile && workspaces.isEmpty()) {
+			return packager.get().getInputFiles();
+		}
+		Set<String> inputFiles = new LinkedHashSet<>(packager.get().getInputFiles());
+		if (frozenLockfile) {
+			inputFiles.addAll(packager.get().getOutputFiles());
+		}
+		workspaces.values().forEach(w -> inputFiles.add(w + "/package.json"));
+		return inputFiles;
 	}
 
 	@OutputFiles
 	public Collection<String> getOutputFiles() {
-		return packager.get().getOutputFiles();
+		return frozenLockfile ? List.of() : packager.get().getOutputFiles();
 	}
 
+	/**
+	 * Installed packages directories fingerprinted by gradle. Untracked
+	 * when install state manifest is used.
+	 * @return Output directories
+	 */
 	@OutputDirectories
 	public Collection<String> getOutputDirectories() {
-		return packager.get().getOutputDirectories();
+		return isStateTracked() ? List.of() : packager.get().getOutputDirectories();
+	}
+
+	/**
+	 * Workspace packages of monorepo installed by this task. Workspace
+	 * packages are linked into {@code node_modules}, so that the install
+	 * state manifest is used instead of {@code node_modules} fingerprint,
+	 * which would include sources of all workspace packages.
+	 * @return Workspace directories relative to project keyed by package name
+	 */
+	@Internal
+	public Map<String, String> getWorkspaces() {
+		return packager.get().getWorkspaces();
+	}
+
+	/**
+	 * Install state manifest file kept within installed packages
+	 * directory, so that removed directory is installed again.
+	 * @return Manifest file or {@code null} when not used
+	 */
+	@Nullable
+	@Optional
+	@OutputFile
+	public File getStateFile() {
+		if (!isStateTracked()) {
+			return null;
+		}
+		List<String> outputDirectories = packager.get().getOutputDirectories();
+		File directory = outputDirectories.isEmpty() ? getTemporaryDir() :
+				getProject().file(outputDirectories.get(0));
+		return new File(directory, STATE_FILE);
+	}
+
+	/**
+	 * Get value of stateManifest
+	 *
+	 * @return stateManifest
+	 */
+	@Input
+	public boolean getStateManifest() {
+		return stateManifest;
+	}
+
+	/**
+	 * Enables up-to-date check based on compact manifest of lock files,
+	 * packager and NodeJS versions and packager state files, such as
+	 * {@code node_modules/.package-lock.json}. Installed packages
+	 * directory isn't fingerprinted by gradle then.
+	 * @param stateManifest {@code true} to use install state manifest
+	 */
+	public void setStateManifest(boolean stateManifest) {
+		this.stateManifest = stateManifest;
+	}
+
+	/**
+	 * Get value of frozenLockfile
+	 *
+	 * @return frozenLockfile
+	 */
+	@Input
+	public boolean getFrozenLockfile() {
+		return frozenLockfile;
+	}
+
+	/**
+	 * Enables installation strictly according to lock file, e.g. {@code npm ci}
+	 * or {@code pnpm install --frozen-lockfile}. Install fails when lock file
+	 * is out of date instead of updating it, so lock files are inputs only.
+	 * @param frozenLockfile {@code true} to install according to lock file
+	 */
+	public void setFrozenLockfile(boolean frozenLockfile) {
+		this.frozenLockfile = frozenLockfile;
+	}
+
+	/**
+	 * Get value of modulesCache
+	 *
+	 * @return modulesCache
+	 */
+	@Input
+	public boolean getModulesCache() {
+		return modulesCache;
+	}
+
+	/**
+	 * Enables cache of installed packages directories, e.g. {@code node_modules}.
+	 * The directories are restored from archive keyed by input files (lock
+	 * files), NodeJS version, packager, platform and install arguments
+	 * instead of running the packager.
+	 * @param modulesCache {@code true} to use node modules cache
+	 */
+	public void setModulesCache(boolean modulesCache) {
+		this.modulesCache = modulesCache;
+	}
+
+	private void install() {
+		if (!isDeltaTracked() || !installDelta()) {
+			super.execute();
+		}
+	}
+
+	/**
+	 * Installs only packages changed since previous install, e.g.
+	 * {@code npm install --save-dev eslint@^8.0.0}, and removes removed ones.
+	 * @return {@code false} if full install is required
+	 */
+	private boolean installDelta() {
+		PackagerInternal packager = this.packager.get();
+		if (frozenLockfile || !getWorkspaces().isEmpty() || packager.getRemoveCommand().isEmpty()
+				|| getInstalledDirectories().stream().anyMatch(d -> !getProject().file(d).isDirectory())) {
+			return false;
+		}
+		InstallState state = computeDeltaState();
+		DependencyDelta delta = DependencyDelta.compute(state.getStored(), state.getValues(), maxDeltaPackages).orElse(null);
+		if (delta == null) {
+			return false;
+		}
+		if (delta.isEmpty()) {
+			// task runs again for other reason, e.g. damaged node_modules or --rerun-tasks
+			return false;
+		}
+
+		List<List<String>> commands = new ArrayList<>();
+		if (!delta.getRemoved().isEmpty()) {
+			List<String> arguments = new ArrayList<>(List.of(packager.getRemoveCommand().get()));
+			arguments.addAll(delta.getRemoved());
+			commands.add(arguments);
+		}
+		delta.getAdded().forEach((section, packages) -> {
+			List<String> arguments = new ArrayList<>(List.of(packager.getAddCommand()));
+			arguments.addAll(packages);
+			packager.getSaveArgument(section).ifPresent(arguments::add);
+			commands.add(arguments);
+		});
+		getLogger().lifecycle("Installing changed dependencies only {}", commands);
+		// add and remove commands rewrite package.json, which is input of this task
+		Path packageJson = getProject().file("package.json").toPath();
+		byte[] content = read(packageJson);
+		try {
+			for (List<String> arguments : commands) {
+				arguments.addAll(getArguments());
+				execute(prepare(executableData(arguments)));
+			}
+		} finally {
+			restore(packageJson, content);
+		}
+		return true;
+	}
+
+	private static byte[] read(Path file) {
+		try {
+			return Files.readAllBytes(file);
+		} catch (IOException e) {
+			throw new NodeException("Unable to read " + file, e);
+		}
+	}
+
+	private static void restore(Path file, byte[] content) {
+		try {
+			if (!Arrays.equals(Files.readAllBytes(file), content)) {
+				Files.write(file, content);
+			}
+		} catch (IOException e) {
+			throw new NodeException("Unable to restore " + file, e);
+		}
+	}
+
+	private List<String> getInstalledDirectories() {
+		List<String> directories = new ArrayList<>(packager.get().getOutputDirectories());
+		for (String workspace : getWorkspaces().values()) {
+			packager.get().getOutputDirectories().forEach(d -> directories.add(workspace + "/" + d));
+		}
+		return directories;
+	}
+
+	private boolean isDeltaTracked() {
+		return deltaInstall && getProject().file("package.json").isFile();
+	}
+
+	private boolean isStateTracked() {
+		return stateManifest || !getWorkspaces().isEmpty();
+	}
+
+	/**
+	 * Get value of deltaInstall
+	 *
+	 * @return deltaInstall
+	 */
+	@Internal
+	public boolean getDeltaInstall() {
+		return deltaInstall;
+	}
+
+	/**
+	 * Enables install of changed dependencies only. Dependencies of
+	 * {@code package.json} are compared with the previously installed ones
+	 * and only added or changed packages are installed (and removed ones
+	 * uninstalled), which skips resolution of the whole dependency tree.
+	 * Full install is used when there is no previous install, installed
+	 * packages are missing, lock file or other package.json fields changed,
+	 * workspaces are used or too many packages changed.
+	 * @param deltaInstall {@code true} to install changed dependencies only
+	 */
+	public void setDeltaInstall(boolean deltaInstall) {
+		this.deltaInstall = deltaInstall;
+	}
+
+	/**
+	 * Get value of maxDeltaPackages
+	 *
+	 * @return maxDeltaPackages
+	 */
+	@Internal
+	public int getMaxDeltaPackages() {
+		return maxDeltaPackages;
+	}
+
+	/**
+	 * Sets maximum of changed packages installed by delta install,
+	 * full install is used when more packages changed.
+	 * @param maxDeltaPackages Maximum of changed packages
+	 */
+	public void setMaxDeltaPackages(int maxDeltaPackages) {
+		this.maxDeltaPackages = maxDeltaPackages;
+	}
+
+	private void installCached(List<String> directories) {
+		NodeModulesCache cache = new NodeModulesCache(getNodeExtension().getNodeManager().getModulesCacheDir());
+		Path baseDir = getProject().getProjectDir().toPath();
+		// computed before install, which may update lock file
+		String key = computeCacheKey();
+		try {
+			if (cache.restore(key, baseDir, directories)) {
+				getLogger().lifecycle("Restored {} from cache {}", directories, key);
+				return;
+			}
+			install();
+			long entries = cache.store(key, baseDir, directories);
+			getLogger().info("Stored {} entries of {} into cache {}", entries, directories, key);
+		} catch (IOException e) {
+			throw new NodeException("Unable to use node modules cache " + cache.getArchive(key), e);
+		}
+	}
+
+	private List<String> getFrozenInstall() {
+		PackagerInternal packager = this.packager.get();
+		return packager.getFrozenInstall().orElseThrow(() ->
+				new NodeException("Packager " + packager.getName() + " doesn't support frozen lockfile install"));
+	}
+
+	String computeCacheKey() {
+		NodeExtension extension = getNodeExtension();
+		PackagerInternal packager = this.packager.get();
+		PlatformSpecific platformSpecific = extension.getPlatformSpecific();
+		Map<String, String> attributes = new HashMap<>();
+		attributes.put("packager", packager.getName() + "@" + packager.getVersion());
+		attributes.put("node", extension.getDownload() ? extension.getNodeManager().getVersion() : "system");
+		attributes.put("platform", platformSpecific.getOsName() + "-" + platformSpecific.getOsArch());
+		attributes.put("arguments", Objects.toString(getCommand(), "") + " " + String.join(" ", getArguments()));
+		for (String inputFile : getHashedFiles()) {
+			Path file = getProject().file(inputFile).toPath();
+			try {
+				attributes.put("input." + inputFile, Files.isRegularFile(file) ? Checksums.sha256(file) : "missing");
+			} catch (IOException e) {
+				throw new NodeException("Unable to hash " + file, e);
+			}
+		}
+		return NodeModulesCache.key(attributes);
+	}
+
+	private InstallState computeDeltaState() {
+		NodeExtension extension = getNodeExtension();
+		PackagerInternal packager = this.packager.get();
+		InstallState state = new InstallState(new File(getTemporaryDir(), DELTA_FILE).toPath())
+				.put("packager", packager.getName() + "@" + packager.getVersion())
+				.put("node", extension.getDownload() ? extension.getNodeManager().getVersion() : "system")
+				.put("arguments", String.join(" ", getArguments()));
+		// any change other than dependencies of package.json requires full install
+		getHashedFiles().stream()
+				.filter(f -> !"package.json".equals(f))
+				.forEach(f -> state.putFile("input." + f, getProject().file(f).toPath()));
+		return DependencyDelta.snapshot(getProject().file("package.json").toPath(), state);
+	}
+
+	/**
+	 * Files whose content determines installed packages, i.e. input files
+	 * along with lock files, which aren't inputs of packagers rewriting them
+	 * (e.g. {@code pnpm-lock.yaml}).
+	 */
+	private Set<String> getHashedFiles() {
+		Set<String> files = new LinkedHashSet<>(getInputFiles());
+		files.addAll(packager.get().getOutputFiles());
+		return files;
+	}
+
+	InstallState computeState() {
+		NodeExtension extension = getNodeExtension();
+		PackagerInternal packager = this.packager.get();
+		InstallState state = new InstallState(getStateFile().toPath())
+				.put("packager", packager.getName() + "@" + packager.getVersion())
+				.put("node", extension.getDownload() ? extension.getNodeManager().getVersion() : "system");
+		getHashedFiles().forEach(f -> state.putFile("input." + f, getProject().file(f).toPath()));
+		packager.getStateFiles().forEach(f -> state.putFile("state." + f, getProject().file(f).toPath()));
+		return state;
 	}
 
 }
@@ -26,18 +26,31 @@
 package com.palawan.gradle.tasks;
 
 import com.palawan.gradle.dsl.NodeExtension;
+import com.palawan.gradle.internal.Installation;
+import com.palawan.gradle.internal.NodeException;
+import com.palawan.gradle.util.ArchiveExtractor;
+import com.palawan.gradle.util.ChecksumIndex;
+import com.palawan.gradle.util.Checksums;
+import com.palawan.gradle.util.PathFilter;
 import com.palawan.gradle.util.PlatformSpecific;
 import com.palawan.gradle.util.ValueHolder;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.Dependency;
 import org.gradle.api.artifacts.repositories.IvyArtifactRepository;
-import org.gradle.api.file.FileTree;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
 
+import javax.annotation.Nullable;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -46,38 +59,96 @@ import java.util.Set;
  */
 public class NodeSetupTask extends DefaultTask {
 
+	/** Installation marker attribute with NodeJS archive checksum */
+	public static final String SHA256 = "sha256";
+	/** Installation marker attribute with extraction filter */
+	public static final String FILTER = "filter";
+	/** Index of verified NodeJS archives within NodeJS base directory */
+	public static final String CHECKSUM_INDEX = ".verified-archives";
+	/** Published checksums file of NodeJS distribution */
+	public static final String CHECKSUMS = "SHASUMS256.txt";
+
 	private final PlatformSpecific platformSpecific = PlatformSpecific.getInstance();
 	private final ValueHolder<NodeExtension> nodeExtension = ValueHolder.racy(() -> NodeExtension.get(getProject()));
 
+	public NodeSetupTask() {
+		getOutputs().upToDateWhen(t -> isInstallationComplete());
+	}
+
 	@TaskAction
 	public void execute() {
 		NodeExtension extension = nodeExtension.get();
-		if (extension.getDownload()) {
-			addRepository();
-			unpackNode();
+		if (!extension.getDownload()) {
+			return;
 		}
+
+		// any complete installation is good enough without network
+		if (extension.getOffline() && extension.getNodeManager().getInstallation().isComplete()) {
+			getLogger().info("Using installed NodeJS {} in offline mode", extension.getNodeManager().getVersion());
+			return;
+		}
+		unpackNode();
 	}
 
 	@Input
-	public Set<Object> getInputProperties() {
+	public Map<String, Object> getInputProperties() {
 		NodeExtension extension = nodeExtension.get();
-		return Set.of(
-				extension.getDownload(),
-				extension.getUrl(),
-				extension.getWorkingDir().toString(),
-				extension.getVersion()
+		return Map.of(
+				"download", extension.getDownload(),
+				"url", extension.getUrl(),
+				"workingDir", extension.getWorkingDir().toString(),
+				"version", extension.getNodeManager().getVersion(),
+				"sharedStore", extension.getSharedStore(),
+				"storeDir", extension.getStoreDir().toString(),
+				"fingerprintDistribution", extension.getFingerprintDistribution(),
+				"verifyChecksum", extension.getVerifyChecksum(),
+				"extractionFilter", extension.getNodeManager().getExtractionFilter().toString()
 		);
 	}
 
+	/**
+	 * Output directory fingerprinted by gradle. Not available when
+	 * distribution fingerprint is disabled.
+	 * @return NodeJS output directory
+	 */
+	@Nullable
+	@Optional
 	@OutputDirectory
 	public File getOutputDirectory() {
-		return nodeExtension.get().getWorkingDir();
+		NodeExtension extension = nodeExtension.get();
+		if (!extension.getFingerprintDistribution()) {
+			return null;
+		}
+		return extension.getSharedStore() ?
+				extension.getNodeManager().getInstallation().getDirectory().toFile() :
+				extension.getWorkingDir();
 	}
 
-	private void addRepository() {
-		getProject().getRepositories().ivy(r -> {
-			NodeExtension extension = nodeExtension.get();
-			r.setUrl(extension.getUrl());
+	/**
+	 * Installation completion marker used instead of output directory
+	 * when distribution fingerprint is disabled.
+	 * @return Installation marker file
+	 */
+	@Nullable
+	@Optional
+	@OutputFile
+	public File getMarkerFile() {
+		NodeExtension extension = nodeExtension.get();
+		if (extension.getFingerprintDistribution()) {
+			return null;
+		}
+		return extension.getNodeManager().getInstallation().getMarkerFile().toFile();
+	}
+
+	private boolean isInstallationComplete() {
+		NodeExtension extension = nodeExtension.get();
+		return extension.getFingerprintDistribution() || !extension.getDownload() ||
+				extension.getNodeManager().getInstallation().isComplete();
+	}
+
+	private IvyArtifactRepository addRepository(String url) {
+		return getProject().getRepositories().ivy(r -> {
+			r.setUrl(url);
 			r.patternLayout(l -> {
 				//https://nodejs.org/dist/v12.8.1/node-v12.8.1-linux-arm64.tar.gz
 				l.artifact("v[revision]/[artifact](-v[revision]-[classifier]).[ext]");
@@ -88,36 +159,167 @@ public class NodeSetupTask extends DefaultTask {
 	}
 
 	private void unpackNode() {
-		getProject().copy(s -> {
-			NodeExtension extension = nodeExtension.get();
-			FileTree archive = platformSpecific.isWindows() ?
-					getProject().zipTree(resolveNodeFile()) :
-					getProject().tarTree(resolveNodeFile());
-			s.from(archive);
-			s.into(extension.getWorkingDir());
-		});
+		NodeExtension extension = nodeExtension.get();
+		Installation installation = extension.getNodeManager().getInstallation();
 
-		/* Defines downloaded node scripts as executable on Unix base systems.
-		 * This is important for tests to use system path with downloaded scripts */
-		if (!platformSpecific.isWindows()) {
-			nodeExtension.get().getNodeManager().setExecutablePosixRights();
+		/* Shared store is populated only once by whichever project comes first,
+		 * same applies to the marker based up-to-date check. Otherwise project's
+		 * own directory is replaced as gradle decided it's outdated */
+		if (extension.getSharedStore() || !extension.getFingerprintDistribution()) {
+			installation.install(this::extractNode);
+		} else {
+			installation.reinstall(this::extractNode);
 		}
 	}
 
-	private File resolveNodeFile() {
-		Dependency dep = getProject().getDependencies().create(getDependency());
-		Configuration conf = getProject().getConfigurations().detachedConfiguration(dep);
-		conf.setTransitive(false);
-		Set<File> files = conf.resolve();
-		return files.iterator().next();
+	private Map<String, String> extractNode(Path target) throws IOException {
+		File archiveFile = resolveNodeFile();
+		String sha256 = verifyNodeFile(archiveFile.toPath());
+
+		// strips archive root directory 'node-vX-os-arch'
+		PathFilter filter = nodeExtension.get().getNodeManager().getExtractionFilter();
+		long entries = new ArchiveExtractor()
+				.stripComponents(1)
+				.filter(filter)
+				.extract(archiveFile.toPath(), target);
+		getLogger().info("Extracted {} entries of {}", entries, archiveFile.getName());
+		return Map.of(
+				Installation.VERSION, nodeExtension.get().getNodeManager().getVersion(),
+				SHA256, sha256,
+				FILTER, filter.toString()
+		);
+	}
+
+	/**
+	 * Verifies downloaded archive against published checksums unless
+	 * it was verified already.
+	 * @param archive Downloaded NodeJS archive
+	 * @return Archive checksum
+	 * @throws IOException Archive read error
+	 */
+	private String verifyNodeFile(Path archive) throws IOException {
+		NodeExtension extension = nodeExtension.get();
+		Path baseDir = extension.getNodeManager().getInstallation().getDirectory().getParent();
+		ChecksumIndex index = new ChecksumIndex(baseDir.resolve(CHECKSUM_INDEX));
+
+		String verified = index.lookup(archive).orElse(null);
+		if (verified != null) {
+			return verified;
+		}
+
+		String sha256 = Checksums.sha256(archive);
+		if (!extension.getVerifyChecksum()) {
+			return sha256;
+		}
+
+		// gradle caches the archive under its own name, checksums use published one
+		String version = extension.getNodeManager().getVersion();
+		String fileName = getArchiveName();
+		Path sums = resolveDistributionFile(CHECKSUMS, getChecksumsDependency());
+		String expected = Checksums.readSums(sums).get(fileName);
+		if (expected == null) {
+			throw new NodeException("Checksum of " + fileName + " not published for NodeJS " + version);
+		}
+		if (!expected.equals(sha256)) {
+			throw new NodeException("Checksum mismatch of " + fileName + ", expected " + expected + " but was " + sha256);
+		}
+		index.record(archive, sha256);
+		return sha256;
+	}
+
+	private File resolveNodeFile() throws IOException {
+		return resolveDistributionFile(getArchiveName(), getDependency()).toFile();
+	}
+
+	/**
+	 * Resolves file of NodeJS distribution. Resolved files are kept in
+	 * local archive store, which is the only source of files in offline
+	 * mode.
+	 * @param fileName Published file name
+	 * @param dependency Dependency notation of the file
+	 * @return Resolved file
+	 * @throws IOException Archive store error
+	 */
+	private Path resolveDistributionFile(String fileName, String dependency) throws IOException {
+		NodeExtension extension = nodeExtension.get();
+		String version = extension.getNodeManager().getVersion();
+		Path stored = extension.getNodeManager().getArchiveStore().resolve("v" + version).resolve(fileName);
+
+		if (extension.getOffline()) {
+			if (!Files.isRegularFile(stored)) {
+				throw new NodeException("NodeJS " + version + " file " + fileName + " is not available in offline mode. " +
+						"Run the build online once or place the file into " + stored.getParent());
+			}
+			return stored;
+		}
+
+		Path resolved = resolveFile(dependency);
+		if (!Files.isRegularFile(stored)) {
+			storeFile(resolved, stored);
+		}
+		return resolved;
+	}
+
+	private static void storeFile(Path file, Path stored) throws IOException {
+		Files.createDirectories(stored.getParent());
+		Path temp = stored.resolveSibling("." + stored.getFileName() + "-" + ProcessHandle.current().pid());
+		try {
+			try {
+				// both live within gradle user home by default, so link is mostly possible
+				Files.createLink(temp, file);
+			} catch (IOException | UnsupportedOperationException e) {
+				Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING);
+			}
+			Files.move(temp, stored, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Resolves dependency from NodeJS repository mirrors. Only repository
+	 * of single mirror is registered at a time, so that failure of one
+	 * mirror falls back to the next one. Gradle may serve the file from its
+	 * cache, therefore only outcome of the resolution is recorded, not
+	 * its duration.
+	 * @param dependency Dependency notation
+	 * @return Resolved file
+	 */
+	private Path resolveFile(String dependency) {
+		return nodeExtension.get().getNodeManager().getMirrorSelector().select(dependency, url -> {
+			IvyArtifactRepository repository = addRepository(url);
+			try {
+				Dependency dep = getProject().getDependencies().create(dependency);
+				Configuration conf = getProject().getConfigurations().detachedConfiguration(dep);
+				conf.setTransitive(false);
+				Set<File> files = conf.resolve();
+				return files.iterator().next().toPath();
+			} finally {
+				getProject().getRepositories().remove(repository);
+			}
+		});
+	}
+
+	private String getChecksumsDependency() {
+		//https://nodejs.org/dist/v12.8.1/SHASUMS256.txt
+		return "org.nodejs:SHASUMS256:"+nodeExtension.get().getNodeManager().getVersion()+"@txt";
 	}
 
 	private String getDependency() {
 		NodeExtension extension = nodeExtension.get();
-		String type = platformSpecific.isWindows() ? "zip" : "tar.gz";
 		String osName = platformSpecific.getOsName();
 		String osArch = platformSpecific.getOsArch();
-		return "org.nodejs:node:"+extension.getVersion()+":"+osName+"-"+osArch+"@"+type;
+		return "org.nodejs:node:"+extension.getNodeManager().getVersion()+":"+osName+"-"+osArch+"@"+getArchiveType();
+	}
+
+	private String getArchiveName() {
+		//node-v12.8.1-linux-arm64.tar.gz
+		return "node-v" + nodeExtension.get().getNodeManager().getVersion() + "-" + platformSpecific.getOsName() +
+				"-" + platformSpecific.getOsArch() + "." + getArchiveType();
+	}
+
+	private String getArchiveType() {
+		return platformSpecific.isWindows() ? "zip" : "tar.gz";
 	}
 
 }
@@ -25,27 +25,94 @@
 
 package com.palawan.gradle.tasks;
 
+import com.palawan.gradle.dsl.NodeExtension;
 import com.palawan.gradle.internal.ExecutableData;
+import com.palawan.gradle.internal.NodeDaemonService;
+import com.palawan.gradle.internal.NodeException;
 import com.palawan.gradle.internal.NodeManager;
+import com.palawan.gradle.internal.NodeProcessLimiter;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectories;
+import org.gradle.api.tasks.OutputFiles;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.options.Option;
+import org.gradle.process.ExecResult;
 
+import javax.annotation.Nullable;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.OptionalInt;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
+ * Executes node script. Tasks declaring their {@link #getInputFiles() input files}
+ * and {@link #getOutputFiles() output files} or {@link #getOutputDirectories() output
+ * directories} are up-to-date when neither changed, and their outputs are stored in
+ * build cache. Inputs are tracked relative to their root, so cached outputs are
+ * reused by checkouts in different locations.
+ *
  * @author petr.langr
  * @since 1.0.0
  */
+@CacheableTask
 public class NodeTask extends ExecutionTask {
 
 	private String script;
 	private List<String> options = new ArrayList<>(0);
 	private List<String> arguments = new ArrayList<>(0);
+	@Nullable
+	private Boolean daemon;
+	private final Property<NodeDaemonService> daemonService = getProject().getObjects().property(NodeDaemonService.class);
+	private final ConfigurableFileCollection inputFiles = getProject().getObjects().fileCollection();
+	private final ConfigurableFileCollection outputFiles = getProject().getObjects().fileCollection();
+	private final ConfigurableFileCollection outputDirectories = getProject().getObjects().fileCollection();
+
+	/**
+	 * Executes script either by node daemon, if enabled, or by new
+	 * node process. Daemon falls back to new process for scripts it
+	 * can't evaluate again, e.g. ES modules.
+	 * @param executable Executable data
+	 * @return Execution result
+	 */
+	@Override
+	@SuppressWarnings("try")
+	protected ExecResult execute(ExecutableData executable) {
+		if (!isDaemonUsed()) {
+			return super.execute(executable);
+		}
+		withNodePath(executable);
+		OptionalInt exitValue;
+		try (NodeProcessLimiter.Permit permit = acquireProcess()) {
+			exitValue = daemonService.get().execute(executable.getExecutable(), options, script, arguments,
+					executable.getEnvironment(), executable.getWorkingDir(),
+					line -> getLogger().quiet("{}", line), line -> getLogger().error("{}", line));
+		}
+		if (exitValue.isEmpty()) {
+			return exec(executable);
+		}
+		DaemonExecResult result = new DaemonExecResult(script, exitValue.getAsInt());
+		return executable.getIgnoreExitValue() ? result : result.assertNormalExitValue();
+	}
+
+	/**
+	 * Scripts executed by node daemon aren't submitted to gradle worker.
+	 * @return {@code true} if command is executed asynchronously
+	 */
+	@Override
+	protected boolean isSubmitted() {
+		return super.isSubmitted() && !isDaemonUsed();
+	}
 
 	@Override
 	protected ExecutableData getExecutable() {
@@ -95,4 +162,154 @@ public class NodeTask extends ExecutionTask {
 	public List<String> getOptions() {
 		return options;
 	}
+
+	/**
+	 * Get script file, tracked by its content.
+	 *
+	 * @return Script file or empty collection without script
+	 */
+	@InputFiles
+	@PathSensitive(PathSensitivity.RELATIVE)
+	public FileCollection getScriptFile() {
+		if (script == null) {
+			return getProject().files();
+		}
+		File file = new File(script);
+		return getProject().files(file.isAbsolute() ? file : new File(getWorkingDirOrProjectDir(), script));
+	}
+
+	/**
+	 * Get NodeJS version executing the script, i.e. command of system node
+	 * when NodeJS isn't downloaded.
+	 *
+	 * @return Node version
+	 */
+	@Input
+	public String getNodeVersion() {
+		NodeExtension nodeExtension = getNodeExtension();
+		return nodeExtension.getDownload() ? nodeExtension.getNodeManager().getVersion() : nodeExtension.getCommand();
+	}
+
+	/**
+	 * Get files read by the script, e.g. sources of code generator or bundler
+	 *
+	 * @return inputFiles
+	 */
+	@InputFiles
+	@PathSensitive(PathSensitivity.RELATIVE)
+	public ConfigurableFileCollection getInputFiles() {
+		return inputFiles;
+	}
+
+	/**
+	 * Adds files read by the script, evaluated as per {@link org.gradle.api.Project#files(Object...)}.
+	 * @param paths Input files or directories
+	 */
+	public void inputFiles(Object... paths) {
+		inputFiles.from(paths);
+	}
+
+	/**
+	 * Get files produced by the script
+	 *
+	 * @return outputFiles
+	 */
+	@OutputFiles
+	public ConfigurableFileCollection getOutputFiles() {
+		return outputFiles;
+	}
+
+	/**
+	 * Adds files produced by the script, evaluated as per {@link org.gradle.api.Project#files(Object...)}.
+	 * @param paths Output files
+	 */
+	public void outputFiles(Object... paths) {
+		outputFiles.from(paths);
+	}
+
+	/**
+	 * Get directories produced by the script
+	 *
+	 * @return outputDirectories
+	 */
+	@OutputDirectories
+	public ConfigurableFileCollection getOutputDirectories() {
+		return outputDirectories;
+	}
+
+	/**
+	 * Adds directories produced by the script, evaluated as per {@link org.gradle.api.Project#files(Object...)}.
+	 * @param paths Output directories
+	 */
+	public void outputDirectories(Object... paths) {
+		outputDirectories.from(paths);
+	}
+
+	/**
+	 * Get whether script is executed by node daemon, defaults to
+	 * {@code node.daemon.enabled}.
+	 *
+	 * @return daemon
+	 */
+	@Internal
+	public boolean getDaemon() {
+		return daemon == null ? getNodeExtension().getDaemon().isEnabled() : daemon;
+	}
+
+	/**
+	 * Defines whether script is executed by long-lived node daemon instead
+	 * of new node process. Node options are used to start the daemon. The
+	 * daemon is available only when enabled by {@code node.daemon.enabled},
+	 * so tasks may opt out of it.
+	 * @param daemon {@code false} to execute script by new node process
+	 */
+	public void setDaemon(boolean daemon) {
+		this.daemon = daemon;
+	}
+
+	/**
+	 * Get node daemon build service
+	 *
+	 * @return daemonService
+	 */
+	@Internal
+	public Property<NodeDaemonService> getDaemonService() {
+		return daemonService;
+	}
+
+	private boolean isDaemonUsed() {
+		return getDaemon() && script != null && !script.endsWith(".mjs") && daemonService.isPresent();
+	}
+
+	/**
+	 * Result of script executed by node daemon.
+	 */
+	private static class DaemonExecResult implements ExecResult {
+
+		private final String script;
+		private final int exitValue;
+
+		DaemonExecResult(String script, int exitValue) {
+			this.script = script;
+			this.exitValue = exitValue;
+		}
+
+		@Override
+		public int getExitValue() {
+			return exitValue;
+		}
+
+		@Override
+		public ExecResult assertNormalExitValue() {
+			if (exitValue != 0) {
+				throw new NodeException("Node script '" + script + "' finished with non-zero exit value " + exitValue);
+			}
+			return this;
+		}
+
+		@Override
+		public ExecResult rethrowFailure() {
+			return this;
+		}
+	}
 }
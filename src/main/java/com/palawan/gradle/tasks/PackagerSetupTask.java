@@ -25,18 +25,27 @@
 
 package com.palawan.gradle.tasks;
 
+import com.palawan.gradle.internal.CorepackInstaller;
 import com.palawan.gradle.internal.ExecutableData;
+import com.palawan.gradle.internal.Installation;
 import com.palawan.gradle.internal.NodeException;
 import com.palawan.gradle.internal.NodeManager;
 import com.palawan.gradle.internal.PackagerInternal;
+import com.palawan.gradle.internal.RegistryInstaller;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.process.ExecResult;
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * @author petr.langr
@@ -46,24 +55,139 @@ public class PackagerSetupTask extends ExecutionTask {
 
 	private List<String> args = List.of();
 
+	/**
+	 * Installs packager into temporary directory, which replaces packager
+	 * working directory once complete. Concurrent builds sharing the same
+	 * working directory or shared store wait for each other.
+	 */
+	@Override
+	@TaskAction
+	public void execute() {
+		PackagerInternal packager = getPackager();
+		Installation installation = packager.getInstallation();
+		boolean offline = getNodeExtension().getOffline();
+		if (offline && installation.isComplete()) {
+			getLogger().info("Using installed {}@{} in offline mode", packager.getNpmPackage(), packager.getVersion());
+			return;
+		}
+
+		Installation.Installer installer = prefix -> {
+			if (packager.isCorepack() && installWithCorepack(packager, prefix, offline)) {
+				getLogger().info("Provisioned {}@{} by corepack", packager.getNpmPackage(), packager.getVersion());
+			} else if (!installFromRegistry(packager, prefix, offline)) {
+				provision(prepare(getExecutable(prefix)), packager, offline);
+			}
+			return Map.of(Installation.VERSION, packager.getVersion());
+		};
+		/* Shared store is populated only once by whichever project comes
+		 * first, project's own directory is replaced as gradle decided
+		 * it's outdated */
+		if (packager.isSharedStore()) {
+			installation.install(installer);
+		} else {
+			installation.reinstall(installer);
+		}
+	}
+
+	/**
+	 * Runs packager provisioning process. In offline mode a failed process
+	 * means the packager is missing in npm or corepack cache, which is
+	 * reported as such. Other failures are left as they are.
+	 */
+	private void provision(ExecutableData executable, PackagerInternal packager, boolean offline) {
+		if (!offline) {
+			execute(executable);
+			return;
+		}
+		ExecResult result = execute(executable.setIgnoreExitValue(true));
+		if (result.getExitValue() != 0) {
+			throw new NodeException("Packager " + packager.getNpmPackage() + "@" + packager.getVersion() +
+					" is neither stored nor available in npm cache in offline mode. Run the build online once");
+		}
+	}
+
+	/**
+	 * Provisions packager by corepack of downloaded NodeJS. Packager is
+	 * installed as usual when NodeJS doesn't contain corepack.
+	 */
+	private boolean installWithCorepack(PackagerInternal packager, Path prefix, boolean offline) throws IOException {
+		NodeManager nodeManager = getNodeExtension().getNodeManager();
+		Optional<Path> corepack = nodeManager.getCorepackExecutable();
+		if (corepack.isEmpty()) {
+			getLogger().info("NodeJS {} doesn't contain corepack, installing {} without it",
+					nodeManager.getVersion(), packager.getNpmPackage());
+			return false;
+		}
+
+		CorepackInstaller installer = new CorepackInstaller(nodeManager.getCorepackHome(),
+				offline, getNodeExtension().getPlatformSpecific());
+		ExecutableData executable = new ExecutableData()
+				.setExecutable(corepack.get().toAbsolutePath().toString())
+				.setArgs(installer.getPrepareArgs(packager.getName(), packager.getVersion()))
+				.addEnvironmentVariables(installer.getEnvironment())
+				.setWorkingDir(prefix.toFile());
+		provision(executable, packager, offline);
+		installer.writeShims(prefix, packager.getCorepackBinaries(), packager.getVersion());
+		return true;
+	}
+
+	/**
+	 * Installs packager from registry tarball without starting npm. Verified
+	 * tarball is kept within archive store, so that offline mode installs
+	 * it again. Custom install arguments, packages with dependencies and
+	 * unavailable registry (or stored tarball in offline mode) fall back
+	 * to npm install.
+	 */
+	private boolean installFromRegistry(PackagerInternal packager, Path prefix, boolean offline) {
+		if (!args.isEmpty()) {
+			return false;
+		}
+		RegistryInstaller installer = new RegistryInstaller(packager.getRegistry().orElse(RegistryInstaller.DEFAULT_REGISTRY), getNodeExtension().getPlatformSpecific())
+				.tarballStore(getNodeExtension().getNodeManager().getArchiveStore().resolve("npm"));
+		if (offline) {
+			return installer.installStored(packager.getNpmPackage(), packager.getVersion(), prefix);
+		}
+		try {
+			return installer.install(packager.getNpmPackage(), packager.getVersion(), prefix);
+		} catch (UncheckedIOException e) {
+			getLogger().warn("Unable to install {}@{} from registry, using npm: {}",
+					packager.getNpmPackage(), packager.getVersion(), e.getMessage());
+			return false;
+		}
+	}
+
 	@Override
 	protected ExecutableData getExecutable() {
+		return getExecutable(getPackager().getWorkingDir());
+	}
+
+	private ExecutableData getExecutable(Path prefix) {
 		NodeManager nodeManager = getNodeExtension().getNodeManager();
 		PackagerInternal defaultPackager = nodeManager.getPackager();
-		PackagerInternal packager = getNodeExtension().getPackagerManager().getPackager()
-				.orElseThrow(() -> new NodeException("Unable to setup packager"));
+		PackagerInternal packager = getPackager();
 
 		String npmPackage = packager.getNpmPackage() + "@" + packager.getVersion();
 		List<String> arguments = new ArrayList<>(List.of(
-				"install", "--global", "--no-save", "--prefix", packager.getWorkingDir().toAbsolutePath().toString(),
+				"install", "--global", "--no-save", "--prefix", prefix.toAbsolutePath().toString(),
 				npmPackage
 		));
+		packager.getRegistry()
+				.ifPresent(r -> arguments.addAll(List.of("--registry", r)));
+		if (getNodeExtension().getOffline()) {
+			// npm fails immediately on cache miss instead of waiting for registry
+			arguments.add("--offline");
+		}
 		arguments.addAll(args);
 
 		return defaultPackager.executableData(arguments)
 				.withPathLocation(nodeManager.getBinDir().toAbsolutePath().toString());
 	}
 
+	private PackagerInternal getPackager() {
+		return getNodeExtension().getPackagerManager().getPackager()
+				.orElseThrow(() -> new NodeException("Unable to setup packager"));
+	}
+
 	@Nullable
 	@Override
 	@OutputDirectory
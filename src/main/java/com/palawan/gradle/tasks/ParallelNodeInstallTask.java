@@ -0,0 +1,197 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.tasks;
+
+import com.palawan.gradle.internal.ExecWorkAction;
+import com.palawan.gradle.internal.ExecutableData;
+import com.palawan.gradle.internal.NodeException;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.workers.WorkQueue;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Installs node packages of several package roots, i.e. directories
+ * with own {@code package.json}, concurrently using gradle workers.
+ * Package roots are distributed into at most {@link #getMaxParallelInstalls()}
+ * lanes, each installing its roots one after another, so that registry
+ * and disk aren't overloaded by too many simultaneous installs.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class ParallelNodeInstallTask extends NodeInstallTask {
+
+	/** Default maximum of concurrently running installs */
+	public static final int DEFAULT_MAX_PARALLEL_INSTALLS = 4;
+
+	private final Set<File> packageRoots = new LinkedHashSet<>();
+	private int maxParallelInstalls = DEFAULT_MAX_PARALLEL_INSTALLS;
+
+	/**
+	 * Submits installs of all package roots to gradle workers and waits
+	 * for their completion.
+	 */
+	@Override
+	@TaskAction
+	public void execute() {
+		if (getStateManifest() || getModulesCache() || getDeltaInstall()) {
+			throw new NodeException("Parallel install supports neither state manifest, modules cache nor delta install");
+		}
+		ExecutableData executable = withNodePath(prepare(getExecutable()));
+		WorkQueue queue = getWorkerExecutor().noIsolation();
+		for (List<File> lane : computeLanes()) {
+			queue.submit(ExecWorkAction.class, p -> {
+				p.from(executable);
+				limitProcesses(p);
+				p.getWorkingDirs().set(lane.stream().map(File::getAbsolutePath).collect(Collectors.toList()));
+			});
+		}
+		queue.await();
+	}
+
+	/**
+	 * Distributes package roots round-robin into lanes. Number of lanes
+	 * is limited by maximum of parallel installs.
+	 * @return Package roots of each lane
+	 */
+	protected List<List<File>> computeLanes() {
+		int count = Math.min(Math.max(maxParallelInstalls, 1), packageRoots.size());
+		List<List<File>> lanes = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			lanes.add(new ArrayList<>());
+		}
+		int i = 0;
+		for (File root : packageRoots) {
+			lanes.get(i++ % count).add(root);
+		}
+		return lanes;
+	}
+
+	/**
+	 * Packager input files of all package roots.
+	 * @return Input files
+	 */
+	@Override
+	public Collection<String> getInputFiles() {
+		return resolve(super.getInputFiles());
+	}
+
+	/**
+	 * Packager output files of all package roots.
+	 * @return Output files
+	 */
+	@Override
+	public Collection<String> getOutputFiles() {
+		return resolve(super.getOutputFiles());
+	}
+
+	/**
+	 * Installed packages directories of all package roots.
+	 * @return Output directories
+	 */
+	@Override
+	public Collection<String> getOutputDirectories() {
+		return resolve(super.getOutputDirectories());
+	}
+
+	/**
+	 * Package roots are installed separately, not as workspaces of
+	 * the project.
+	 * @return Always empty
+	 */
+	@Override
+	public Map<String, String> getWorkspaces() {
+		return Map.of();
+	}
+
+	/**
+	 * Install state manifest isn't supported by parallel installs.
+	 * @return Always {@code null}
+	 */
+	@Nullable
+	@Override
+	public File getStateFile() {
+		return null;
+	}
+
+	/**
+	 * Get value of packageRoots
+	 *
+	 * @return packageRoots
+	 */
+	@Internal
+	public Set<File> getPackageRoots() {
+		return packageRoots;
+	}
+
+	/**
+	 * Adds package roots, directories resolved relatively to project directory.
+	 * @param roots Package roots to be installed
+	 */
+	public void packageRoots(Object... roots) {
+		packageRoots.addAll(getProject().files(roots).getFiles());
+	}
+
+	/**
+	 * Get value of maxParallelInstalls
+	 *
+	 * @return maxParallelInstalls
+	 */
+	@Internal
+	public int getMaxParallelInstalls() {
+		return maxParallelInstalls;
+	}
+
+	/**
+	 * Set maximum of concurrently running installs. Gradle's
+	 * {@code org.gradle.workers.max} limits the installs as well.
+	 * @param maxParallelInstalls Maximum of parallel installs
+	 */
+	public void setMaxParallelInstalls(int maxParallelInstalls) {
+		this.maxParallelInstalls = maxParallelInstalls;
+	}
+
+	private Collection<String> resolve(Collection<String> paths) {
+		Set<String> resolved = new LinkedHashSet<>();
+		for (File root : packageRoots) {
+			for (String path : paths) {
+				resolved.add(new File(root, path).getAbsolutePath());
+			}
+		}
+		return resolved;
+	}
+
+}
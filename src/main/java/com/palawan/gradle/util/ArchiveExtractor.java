@@ -0,0 +1,519 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.util;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Streaming extractor of {@code tar.gz} and {@code zip} archives. The archive
+ * is decompressed exactly once and each entry is written directly into its
+ * final location. Small files are handed over to bounded pool of writer
+ * threads, while large files are written by the reading thread. Tar entries
+ * keep their symbolic links and POSIX permissions.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class ArchiveExtractor {
+
+	/** Tar block size */
+	private static final int BLOCK = 512;
+	/** Files up to this size are written by writer threads */
+	private static final int SMALL_FILE = 256 * 1024;
+	private static final int BUFFER = 64 * 1024;
+
+	private int stripComponents = 0;
+	private int threads = Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors()));
+	private Predicate<String> filter = name -> true;
+
+	/**
+	 * Defines number of leading path components to be removed from entry
+	 * names, e.g. archive root directory.
+	 * @param stripComponents Number of leading path components to remove
+	 * @return This extractor
+	 */
+	public ArchiveExtractor stripComponents(int stripComponents) {
+		this.stripComponents = stripComponents;
+		return this;
+	}
+
+	/**
+	 * Defines filter of extracted entries. The filter receives entry
+	 * name after stripping leading components. Entries not accepted are
+	 * skipped within the archive stream, i.e. never written to disk.
+	 * @param filter Filter of entry names to extract
+	 * @return This extractor
+	 */
+	public ArchiveExtractor filter(Predicate<String> filter) {
+		this.filter = filter;
+		return this;
+	}
+
+	/**
+	 * Defines number of writer threads.
+	 * @param threads Number of writer threads
+	 * @return This extractor
+	 */
+	public ArchiveExtractor threads(int threads) {
+		this.threads = Math.max(1, threads);
+		return this;
+	}
+
+	/**
+	 * Extracts given archive into target directory. The archive type is
+	 * recognized by file name, {@code .zip} archives are extracted as zip
+	 * all others as gzip compressed tar.
+	 * @param archive Archive file
+	 * @param target Target directory
+	 * @return Number of extracted entries
+	 * @throws IOException Any read/write error
+	 */
+	public long extract(Path archive, Path target) throws IOException {
+		Files.createDirectories(target);
+		try (InputStream is = new BufferedInputStream(Files.newInputStream(archive), BUFFER);
+			 Extraction extraction = new Extraction(target.toAbsolutePath().normalize())) {
+			if (archive.getFileName().toString().endsWith(".zip")) {
+				readZip(is, extraction);
+			} else {
+				readTar(new GZIPInputStream(is, BUFFER), extraction);
+			}
+			extraction.complete();
+			return extraction.entries.get();
+		}
+	}
+
+	private void readTar(InputStream is, Extraction extraction) throws IOException {
+		byte[] header = new byte[BLOCK];
+		Map<String, String> pax = new LinkedHashMap<>();
+		String longName = null;
+		String longLink = null;
+
+		while (readBlock(is, header)) {
+			if (isZeroBlock(header)) {
+				break;
+			}
+
+			char type = (char) header[156];
+			long size = pax.containsKey("size") ? Long.parseLong(pax.get("size")) : parseNumber(header, 124, 12);
+
+			if (type == 'x' || type == 'g' || type == 'L' || type == 'K') {
+				byte[] content = readContent(is, size);
+				if (type == 'x') {
+					parsePax(content, pax);
+				} else if (type == 'L') {
+					longName = cString(content, 0, content.length);
+				} else if (type == 'K') {
+					longLink = cString(content, 0, content.length);
+				}
+				continue;
+			}
+
+			String name = pax.getOrDefault("path", longName != null ? longName : entryName(header));
+			String link = pax.getOrDefault("linkpath", longLink != null ? longLink : cString(header, 157, 100));
+			int mode = (int) parseNumber(header, 100, 8);
+			pax.clear();
+			longName = null;
+			longLink = null;
+
+			String entry = strip(name);
+			if (!accept(entry)) {
+				skip(is, size + padding(size));
+				continue;
+			}
+
+			Path path = extraction.resolve(entry);
+			switch (type) {
+				case '0':
+				case '\0':
+				case '7':
+					extraction.file(path, is, size, mode);
+					skipPadding(is, size);
+					break;
+				case '5':
+					extraction.directory(path, mode);
+					skip(is, size + padding(size));
+					break;
+				case '2':
+					extraction.symbolicLink(path, link);
+					skip(is, size + padding(size));
+					break;
+				case '1':
+					extraction.hardLink(path, extraction.resolve(strip(link)));
+					skip(is, size + padding(size));
+					break;
+				default:
+					skip(is, size + padding(size));
+			}
+		}
+	}
+
+	private void readZip(InputStream is, Extraction extraction) throws IOException {
+		ZipInputStream zip = new ZipInputStream(is);
+		ZipEntry entry;
+		while ((entry = zip.getNextEntry()) != null) {
+			String name = strip(entry.getName());
+			if (!accept(name)) {
+				continue;
+			}
+			Path path = extraction.resolve(name);
+			if (entry.isDirectory()) {
+				extraction.directory(path, 0);
+			} else {
+				extraction.file(path, zip, entry.getSize(), 0);
+			}
+		}
+	}
+
+	/**
+	 * Strips leading path components from entry name.
+	 * @param name Entry name
+	 * @return Stripped entry name, empty when nothing left
+	 */
+	private String strip(String name) {
+		String stripped = name;
+		for (int i = 0; i < stripComponents; i++) {
+			int index = stripped.indexOf('/');
+			if (index < 0) {
+				return "";
+			}
+			stripped = stripped.substring(index + 1);
+		}
+		return stripped;
+	}
+
+	private boolean accept(String name) {
+		// archive root left after stripping is always kept
+		return name.isEmpty() || filter.test(name);
+	}
+
+	private static String entryName(byte[] header) {
+		String name = cString(header, 0, 100);
+		String magic = cString(header, 257, 5);
+		if ("ustar".equals(magic)) {
+			String prefix = cString(header, 345, 155);
+			if (!prefix.isEmpty()) {
+				return prefix + "/" + name;
+			}
+		}
+		return name;
+	}
+
+	private static void parsePax(byte[] content, Map<String, String> pax) {
+		int position = 0;
+		while (position < content.length) {
+			int space = position;
+			while (space < content.length && content[space] != ' ') {
+				space++;
+			}
+			if (space >= content.length) {
+				break;
+			}
+			int length = Integer.parseInt(new String(content, position, space - position, StandardCharsets.UTF_8));
+			String record = new String(content, space + 1, length - (space - position) - 2, StandardCharsets.UTF_8);
+			int equals = record.indexOf('=');
+			if (equals > 0) {
+				pax.put(record.substring(0, equals), record.substring(equals + 1));
+			}
+			position += length;
+		}
+	}
+
+	private static long parseNumber(byte[] header, int offset, int length) {
+		if ((header[offset] & 0x80) != 0) {
+			// base-256 encoding of large numbers
+			long value = header[offset] & 0x7F;
+			for (int i = 1; i < length; i++) {
+				value = (value << 8) | (header[offset + i] & 0xFF);
+			}
+			return value;
+		}
+		long value = 0;
+		for (int i = offset; i < offset + length; i++) {
+			byte b = header[i];
+			if (b >= '0' && b <= '7') {
+				value = (value << 3) + (b - '0');
+			} else if (b == 0 || (b == ' ' && value > 0)) {
+				break;
+			}
+		}
+		return value;
+	}
+
+	private static String cString(byte[] bytes, int offset, int length) {
+		int end = offset;
+		while (end < offset + length && bytes[end] != 0) {
+			end++;
+		}
+		return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+	}
+
+	private static boolean isZeroBlock(byte[] block) {
+		for (byte b : block) {
+			if (b != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean readBlock(InputStream is, byte[] block) throws IOException {
+		int read = is.readNBytes(block, 0, block.length);
+		if (read == 0) {
+			return false;
+		}
+		if (read < block.length) {
+			throw new EOFException("Truncated tar archive");
+		}
+		return true;
+	}
+
+	private static byte[] readContent(InputStream is, long size) throws IOException {
+		byte[] content = new byte[(int) size];
+		if (is.readNBytes(content, 0, content.length) < content.length) {
+			throw new EOFException("Truncated tar archive");
+		}
+		skipPadding(is, size);
+		return content;
+	}
+
+	private static long padding(long size) {
+		long remainder = size % BLOCK;
+		return remainder == 0 ? 0 : BLOCK - remainder;
+	}
+
+	private static void skipPadding(InputStream is, long size) throws IOException {
+		skip(is, padding(size));
+	}
+
+	private static void skip(InputStream is, long count) throws IOException {
+		long remaining = count;
+		while (remaining > 0) {
+			long skipped = is.skip(remaining);
+			if (skipped <= 0) {
+				if (is.read() < 0) {
+					throw new EOFException("Truncated tar archive");
+				}
+				skipped = 1;
+			}
+			remaining -= skipped;
+		}
+	}
+
+	private static Set<PosixFilePermission> permissions(int mode) {
+		Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+		PosixFilePermission[] values = PosixFilePermission.values();
+		// OWNER_READ is the most significant bit (0400) and OTHERS_EXECUTE the least (0001)
+		for (int i = 0; i < values.length; i++) {
+			if ((mode & (1 << (values.length - 1 - i))) != 0) {
+				permissions.add(values[i]);
+			}
+		}
+		return permissions;
+	}
+
+	/**
+	 * Single extraction run writing entries into target directory
+	 */
+	private class Extraction implements AutoCloseable {
+
+		private final Path target;
+		private final boolean posix;
+		private final ThreadPoolExecutor writers;
+		private final List<Future<?>> pending = new ArrayList<>();
+		private final Map<Path, String> symbolicLinks = new LinkedHashMap<>();
+		private final Map<Path, Path> hardLinks = new LinkedHashMap<>();
+		private final Map<Path, Integer> directoryModes = new LinkedHashMap<>();
+		private final AtomicLong entries = new AtomicLong();
+
+		Extraction(Path target) {
+			this.target = target;
+			this.posix = target.getFileSystem().supportedFileAttributeViews().contains("posix");
+			this.writers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(threads * 16), new ThreadPoolExecutor.CallerRunsPolicy());
+		}
+
+		/**
+		 * Resolves entry name against target directory and makes sure the
+		 * entry doesn't escape it.
+		 */
+		Path resolve(String name) throws IOException {
+			Path path = target.resolve(name).normalize();
+			if (!path.startsWith(target)) {
+				throw new IOException("Archive entry outside of target directory: " + name);
+			}
+			return path;
+		}
+
+		void file(Path path, InputStream is, long size, int mode) throws IOException {
+			if (path.equals(target)) {
+				skip(is, size);
+				return;
+			}
+			Files.createDirectories(path.getParent());
+			entries.incrementAndGet();
+
+			if (size >= 0 && size <= SMALL_FILE) {
+				byte[] content = new byte[(int) size];
+				if (is.readNBytes(content, 0, content.length) < content.length) {
+					throw new EOFException("Truncated archive");
+				}
+				pending.add(writers.submit(() -> {
+					write(path, ByteBuffer.wrap(content));
+					setMode(path, mode);
+					return null;
+				}));
+			} else {
+				try (FileChannel channel = open(path)) {
+					byte[] buffer = new byte[BUFFER];
+					long remaining = size < 0 ? Long.MAX_VALUE : size;
+					while (remaining > 0) {
+						int read = is.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+						if (read < 0) {
+							if (size >= 0) {
+								throw new EOFException("Truncated archive");
+							}
+							break;
+						}
+						ByteBuffer data = ByteBuffer.wrap(buffer, 0, read);
+						while (data.hasRemaining()) {
+							channel.write(data);
+						}
+						remaining -= read;
+					}
+				}
+				setMode(path, mode);
+			}
+		}
+
+		void directory(Path path, int mode) throws IOException {
+			Files.createDirectories(path);
+			if (mode != 0) {
+				directoryModes.put(path, mode);
+			}
+		}
+
+		void symbolicLink(Path path, String link) {
+			entries.incrementAndGet();
+			symbolicLinks.put(path, link);
+		}
+
+		void hardLink(Path path, Path existing) {
+			entries.incrementAndGet();
+			hardLinks.put(path, existing);
+		}
+
+		/**
+		 * Waits for all writers and creates links and directory permissions
+		 * which depend on already written files.
+		 */
+		void complete() throws IOException {
+			for (Future<?> future : pending) {
+				try {
+					future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Archive extraction interrupted", e);
+				} catch (ExecutionException e) {
+					throw e.getCause() instanceof IOException ?
+							(IOException) e.getCause() : new IOException(e.getCause());
+				}
+			}
+
+			for (Map.Entry<Path, String> link : symbolicLinks.entrySet()) {
+				Files.createDirectories(link.getKey().getParent());
+				Files.deleteIfExists(link.getKey());
+				Files.createSymbolicLink(link.getKey(), link.getKey().getFileSystem().getPath(link.getValue()));
+			}
+
+			for (Map.Entry<Path, Path> link : hardLinks.entrySet()) {
+				if (!Files.exists(link.getValue())) {
+					// link of filtered out file
+					continue;
+				}
+				Files.createDirectories(link.getKey().getParent());
+				Files.copy(link.getValue(), link.getKey(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.COPY_ATTRIBUTES);
+			}
+
+			for (Map.Entry<Path, Integer> directory : directoryModes.entrySet()) {
+				setMode(directory.getKey(), directory.getValue());
+			}
+		}
+
+		@Override
+		public void close() {
+			writers.shutdownNow();
+		}
+
+		private void write(Path path, ByteBuffer data) throws IOException {
+			try (FileChannel channel = open(path)) {
+				while (data.hasRemaining()) {
+					channel.write(data);
+				}
+			}
+		}
+
+		private FileChannel open(Path path) throws IOException {
+			return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+		}
+
+		private void setMode(Path path, int mode) throws IOException {
+			if (posix && mode != 0) {
+				Files.setPosixFilePermissions(path, permissions(mode & 0777));
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,220 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writer of {@code tar.gz} archives readable by {@link ArchiveExtractor}.
+ * Directories are archived recursively keeping symbolic links and POSIX
+ * permissions. Long names are stored within PAX extended headers. The
+ * archive is written into temporary file and moved into place once
+ * complete, so readers never see partial archive.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class ArchiveWriter {
+
+	/** Tar block size */
+	private static final int BLOCK = 512;
+	private static final int BUFFER = 64 * 1024;
+	/** Permission bits in order of octal mode */
+	private static final PosixFilePermission[] PERMISSIONS = {
+			PosixFilePermission.OTHERS_EXECUTE, PosixFilePermission.OTHERS_WRITE, PosixFilePermission.OTHERS_READ,
+			PosixFilePermission.GROUP_EXECUTE, PosixFilePermission.GROUP_WRITE, PosixFilePermission.GROUP_READ,
+			PosixFilePermission.OWNER_EXECUTE, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_READ
+	};
+
+	/**
+	 * Archives given paths of base directory. Entry names are relative to
+	 * base directory, missing paths are skipped.
+	 * @param baseDir Base directory of archived paths
+	 * @param paths Paths relative to base directory, e.g. {@code node_modules}
+	 * @param archive Archive file to be written
+	 * @return Number of archived entries
+	 * @throws IOException Any read/write error
+	 */
+	public long write(Path baseDir, Collection<String> paths, Path archive) throws IOException {
+		Path parent = archive.toAbsolutePath().getParent();
+		Files.createDirectories(parent);
+		Path temp = Files.createTempFile(parent, archive.getFileName().toString(), ".tmp");
+		try {
+			long entries = 0;
+			try (OutputStream os = new GZIPOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(temp), BUFFER), BUFFER)) {
+				for (String path : paths) {
+					Path root = baseDir.resolve(path);
+					if (Files.exists(root, LinkOption.NOFOLLOW_LINKS)) {
+						entries += writeTree(baseDir, root, os);
+					}
+				}
+				// end of archive marker
+				os.write(new byte[2 * BLOCK]);
+			}
+			Files.move(temp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return entries;
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private long writeTree(Path baseDir, Path root, OutputStream os) throws IOException {
+		long[] entries = {0};
+		Files.walkFileTree(root, new SimpleFileVisitor<>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				writeEntry(os, name(baseDir, dir) + "/", mode(dir, 0755), 0, '5', "");
+				entries[0]++;
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+				if (attrs.isSymbolicLink()) {
+					String link = Files.readSymbolicLink(file).toString().replace('\\', '/');
+					writeEntry(os, name(baseDir, file), 0777, 0, '2', link);
+				} else if (attrs.isRegularFile()) {
+					writeEntry(os, name(baseDir, file), mode(file, 0644), attrs.size(), '0', "");
+					long written = Files.copy(file, os);
+					if (written != attrs.size()) {
+						throw new IOException("File " + file + " changed while archiving");
+					}
+					pad(os, written);
+				} else {
+					return FileVisitResult.CONTINUE;
+				}
+				entries[0]++;
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		return entries[0];
+	}
+
+	private static void writeEntry(OutputStream os, String name, int mode, long size, char type, String link)
+			throws IOException {
+		StringBuilder pax = new StringBuilder();
+		if (!fits(name)) {
+			pax.append(paxRecord("path", name));
+		}
+		if (!fits(link)) {
+			pax.append(paxRecord("linkpath", link));
+		}
+		if (pax.length() > 0) {
+			byte[] content = pax.toString().getBytes(StandardCharsets.UTF_8);
+			os.write(header("PaxHeader", 0644, content.length, 'x', ""));
+			os.write(content);
+			pad(os, content.length);
+		}
+		os.write(header(name, mode, size, type, link));
+	}
+
+	private static byte[] header(String name, int mode, long size, char type, String link) {
+		byte[] header = new byte[BLOCK];
+		put(header, 0, 100, name);
+		put(header, 100, 8, String.format("%07o", mode));
+		put(header, 108, 8, "0000000");
+		put(header, 116, 8, "0000000");
+		put(header, 124, 12, String.format("%011o", size));
+		put(header, 136, 12, String.format("%011o", 0));
+		header[156] = (byte) type;
+		put(header, 157, 100, link);
+		put(header, 257, 6, "ustar");
+		put(header, 263, 2, "00");
+		Arrays.fill(header, 148, 156, (byte) ' ');
+		long checksum = 0;
+		for (byte b : header) {
+			checksum += b & 0xFF;
+		}
+		put(header, 148, 8, String.format("%06o", checksum));
+		header[154] = 0;
+		return header;
+	}
+
+	/** Writes value truncated to field length, overflowing names are within PAX header */
+	private static void put(byte[] header, int offset, int length, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		System.arraycopy(bytes, 0, header, offset, Math.min(bytes.length, length));
+	}
+
+	private static boolean fits(String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		return bytes.length <= 100 && bytes.length == value.length();
+	}
+
+	/** PAX record length includes its own decimal digits */
+	private static String paxRecord(String key, String value) {
+		int length = (" " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8).length;
+		int total = length + String.valueOf(length).length();
+		if (String.valueOf(total).length() != String.valueOf(length).length()) {
+			total++;
+		}
+		return total + " " + key + "=" + value + "\n";
+	}
+
+	private static void pad(OutputStream os, long size) throws IOException {
+		int padding = (int) ((BLOCK - size % BLOCK) % BLOCK);
+		if (padding > 0) {
+			os.write(new byte[padding]);
+		}
+	}
+
+	private static String name(Path baseDir, Path path) {
+		return baseDir.relativize(path).toString().replace('\\', '/');
+	}
+
+	private static int mode(Path path, int defaultMode) throws IOException {
+		PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class);
+		if (view == null) {
+			return defaultMode;
+		}
+		Set<PosixFilePermission> permissions = view.readAttributes().permissions();
+		int mode = 0;
+		for (int i = 0; i < PERMISSIONS.length; i++) {
+			if (permissions.contains(PERMISSIONS[i])) {
+				mode |= 1 << i;
+			}
+		}
+		return mode;
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Index of already verified files and their SHA-256 checksums. Each
+ * entry is bound to file size and last modification time, so that a
+ * replaced file is never mistaken for verified one. The index allows
+ * skipping re-hashing of large archives on every setup. Every verified
+ * file has its own entry file replaced atomically, so that concurrent
+ * builds sharing the index never lose entries of each other.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class ChecksumIndex {
+
+	private final Path indexDir;
+
+	/**
+	 * Creates index stored in given directory.
+	 * @param indexDir Index directory
+	 */
+	public ChecksumIndex(Path indexDir) {
+		this.indexDir = indexDir;
+	}
+
+	/**
+	 * Get index directory location
+	 * @return Index directory
+	 */
+	public Path getIndexDir() {
+		return indexDir;
+	}
+
+	/**
+	 * Looks up checksum of previously verified file.
+	 * @param file File to look up
+	 * @return Checksum of file if it was verified and has not changed since
+	 * @throws IOException File attributes read error
+	 */
+	public Optional<String> lookup(Path file) throws IOException {
+		Path entryFile = getEntryFile(file);
+		if (!Files.isRegularFile(entryFile)) {
+			return Optional.empty();
+		}
+		// entry is [file, stamp, checksum], file name of entry may collide
+		List<String> entry = Files.readAllLines(entryFile, StandardCharsets.UTF_8);
+		if (entry.size() != 3 || !entry.get(0).equals(key(file)) || !entry.get(1).equals(stamp(file))) {
+			return Optional.empty();
+		}
+		return Optional.of(entry.get(2));
+	}
+
+	/**
+	 * Records checksum of verified file.
+	 * @param file Verified file
+	 * @param sha256 Verified checksum of the file
+	 * @throws IOException Index write error
+	 */
+	public void record(Path file, String sha256) throws IOException {
+		Path entryFile = getEntryFile(file);
+		String entry = String.join("\n", key(file), stamp(file), sha256) + "\n";
+
+		// other builds may read the entry at the same time
+		Files.createDirectories(indexDir);
+		Path temp = Files.createTempFile(indexDir, entryFile.getFileName().toString(), ".tmp");
+		try {
+			Files.writeString(temp, entry, StandardCharsets.UTF_8);
+			Files.move(temp, entryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private Path getEntryFile(Path file) {
+		String key = key(file);
+		return indexDir.resolve(file.getFileName() + "-" + Integer.toHexString(key.hashCode()) + ".sha256");
+	}
+
+	private static String key(Path file) {
+		return file.toAbsolutePath().normalize().toString();
+	}
+
+	private static String stamp(Path file) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		return attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+	}
+
+}
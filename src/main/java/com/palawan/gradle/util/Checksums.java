@@ -0,0 +1,144 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Computes file checksums. Files are read via memory mapped regions
+ * to avoid copying archive content through heap buffers.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class Checksums {
+
+	/** Size of single mapped region */
+	private static final long REGION_SIZE = 64L * 1024 * 1024;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private Checksums() {}
+
+	/**
+	 * Computes SHA-256 checksum of given file.
+	 * @param file File to compute checksum of
+	 * @return Lower case hex encoded checksum
+	 * @throws IOException File read error
+	 */
+	public static String sha256(Path file) throws IOException {
+		return hex(digest(file, "SHA-256"));
+	}
+
+	/**
+	 * Reads checksums file in format of {@code sha256sum} utility, i.e.
+	 * lines of checksum followed by file name.
+	 * @param file Checksums file, e.g. {@code SHASUMS256.txt}
+	 * @return Checksums by file name
+	 * @throws IOException File read error
+	 */
+	public static Map<String, String> readSums(Path file) throws IOException {
+		return parseSums(Files.readAllLines(file));
+	}
+
+	/**
+	 * Parses lines of checksums file.
+	 * @see #readSums(Path)
+	 * @param lines Checksums file lines
+	 * @return Checksums by file name
+	 */
+	public static Map<String, String> parseSums(List<String> lines) {
+		Map<String, String> sums = new HashMap<>();
+		for (String line : lines) {
+			String[] parts = line.trim().split("\\s+", 2);
+			if (parts.length == 2) {
+				// binary mode entries are prefixed by asterisk
+				String name = parts[1].startsWith("*") ? parts[1].substring(1) : parts[1];
+				sums.put(name, parts[0].toLowerCase(Locale.ROOT));
+			}
+		}
+		return sums;
+	}
+
+	/**
+	 * Computes digest of given file using specified algorithm.
+	 * @param file File to compute digest of
+	 * @param algorithm Digest algorithm name
+	 * @return Digest bytes
+	 * @throws IOException File read error
+	 */
+	public static byte[] digest(Path file, String algorithm) throws IOException {
+		MessageDigest digest = messageDigest(algorithm);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			for (long position = 0; position < size; position += REGION_SIZE) {
+				MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(REGION_SIZE, size - position));
+				digest.update(region);
+			}
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * Creates message digest of given algorithm.
+	 * @param algorithm Digest algorithm name
+	 * @return New message digest
+	 */
+	public static MessageDigest messageDigest(String algorithm) {
+		try {
+			return MessageDigest.getInstance(algorithm);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Unsupported digest " + algorithm, e);
+		}
+	}
+
+	/**
+	 * Encodes bytes as lower case hex string.
+	 * @param bytes Bytes to encode
+	 * @return Hex string
+	 */
+	public static String hex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+			chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+}
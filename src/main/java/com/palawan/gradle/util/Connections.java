@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.time.Duration;
+
+/**
+ * Opens remote resources with connect and read timeouts, so that
+ * repository or registry which stopped responding fails with
+ * {@link java.net.SocketTimeoutException} instead of blocking the build.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class Connections {
+
+	/** Maximum time to establish connection */
+	public static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+	/** Maximum time to wait for data of established connection */
+	public static final Duration READ_TIMEOUT = Duration.ofSeconds(60);
+
+	private Connections() {}
+
+	/**
+	 * Opens connection of given URL with default timeouts.
+	 * @param url Resource URL
+	 * @return Opened connection
+	 * @throws IOException Connection error
+	 */
+	public static URLConnection open(String url) throws IOException {
+		URLConnection connection = new URL(url).openConnection();
+		connection.setConnectTimeout((int) CONNECT_TIMEOUT.toMillis());
+		connection.setReadTimeout((int) READ_TIMEOUT.toMillis());
+		return connection;
+	}
+
+	/**
+	 * Opens content stream of given URL with default timeouts.
+	 * @param url Resource URL
+	 * @return Content stream
+	 * @throws IOException Connection or timeout error
+	 */
+	public static InputStream openStream(String url) throws IOException {
+		return open(url).getInputStream();
+	}
+
+}
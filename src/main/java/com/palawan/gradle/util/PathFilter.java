@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.util;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Filter of relative paths defined by include and exclude patterns. The
+ * patterns use ant style wildcards, i.e. {@code *} and {@code ?} within
+ * single path segment and {@code **} across segments. Pattern matching a
+ * directory applies to whole content of the directory. Path is accepted
+ * when it matches any include pattern (or no include pattern is defined)
+ * and doesn't match any exclude pattern.
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+public class PathFilter implements Predicate<String> {
+
+	private final List<String> includes;
+	private final List<String> excludes;
+	private final List<Pattern> includePatterns;
+	private final List<Pattern> excludePatterns;
+
+	/**
+	 * Creates filter of given patterns.
+	 * @param includes Include patterns, all paths included when empty
+	 * @param excludes Exclude patterns
+	 */
+	public PathFilter(Collection<String> includes, Collection<String> excludes) {
+		this.includes = List.copyOf(includes);
+		this.excludes = List.copyOf(excludes);
+		this.includePatterns = compile(this.includes);
+		this.excludePatterns = compile(this.excludes);
+	}
+
+	/**
+	 * Checks whether filter accepts all paths.
+	 * @return {@code true} when neither include nor exclude patterns are defined
+	 */
+	public boolean isEmpty() {
+		return includes.isEmpty() && excludes.isEmpty();
+	}
+
+	@Override
+	public boolean test(String path) {
+		String normalized = normalize(path);
+		return (includePatterns.isEmpty() || matches(includePatterns, normalized)) &&
+				!matches(excludePatterns, normalized);
+	}
+
+	/**
+	 * Describes filter patterns, empty string for empty filter.
+	 * @return Filter description
+	 */
+	@Override
+	public String toString() {
+		if (isEmpty()) {
+			return "";
+		}
+		return "include=" + String.join(",", includes) + ";exclude=" + String.join(",", excludes);
+	}
+
+	private static boolean matches(List<Pattern> patterns, String path) {
+		// pattern matching any parent directory matches the path too
+		for (String candidate = path; !candidate.isEmpty(); candidate = parent(candidate)) {
+			for (Pattern pattern : patterns) {
+				if (pattern.matcher(candidate).matches()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static String parent(String path) {
+		int index = path.lastIndexOf('/');
+		return index < 0 ? "" : path.substring(0, index);
+	}
+
+	private static String normalize(String path) {
+		String normalized = path.replace('\\', '/');
+		while (normalized.startsWith("./")) {
+			normalized = normalized.substring(2);
+		}
+		while (normalized.endsWith("/")) {
+			normalized = normalized.substring(0, normalized.length() - 1);
+		}
+		return normalized;
+	}
+
+	private static List<Pattern> compile(List<String> patterns) {
+		return patterns.stream()
+				.map(PathFilter::normalize)
+				// 'dir/**' is the same as 'dir' as directory pattern matches its content
+				.map(p -> p.endsWith("/**") ? p.substring(0, p.length() - 3) : p)
+				.map(PathFilter::toRegex)
+				.map(Pattern::compile)
+				.collect(Collectors.toList());
+	}
+
+	private static String toRegex(String glob) {
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < glob.length(); i++) {
+			char c = glob.charAt(i);
+			if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+				// '**/' matches any number of directories including none
+				if (i + 2 < glob.length() && glob.charAt(i + 2) == '/') {
+					regex.append("(?:.*/)?");
+					i += 2;
+				} else {
+					regex.append(".*");
+					i++;
+				}
+			} else if (c == '*') {
+				regex.append("[^/]*");
+			} else if (c == '?') {
+				regex.append("[^/]");
+			} else {
+				regex.append(Pattern.quote(String.valueOf(c)));
+			}
+		}
+		return regex.toString();
+	}
+
+}
@@ -0,0 +1,201 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+/*
+ * Node daemon executing scripts of NodeTask within single long-lived
+ * process, so that node startup and loading of tooling modules are paid
+ * only once. Requests and responses are JSON lines:
+ *
+ *   stdin:  {"script": "...", "args": [...], "env": {...}, "cwd": "..."}
+ *   stdout: {"type": "out" | "err", "data": "..."}
+ *           {"type": "exit", "code": 0, "recycle": false}
+ *           {"type": "fallback"}
+ *
+ * Arguments: idle timeout in milliseconds, maximum resident memory in bytes.
+ */
+'use strict';
+
+const Module = require('module');
+const path = require('path');
+const readline = require('readline');
+
+const idleTimeout = Number(process.argv[2] || 300000);
+const maxMemory = Number(process.argv[3] || 0);
+
+const stdoutWrite = process.stdout.write;
+const stderrWrite = process.stderr.write;
+const exit = process.exit;
+const nodeModules = path.sep + 'node_modules' + path.sep;
+
+class ExitSignal {
+	constructor(code) {
+		this.code = code;
+	}
+}
+
+let current = null;
+let idleTimer = null;
+
+function send(message) {
+	stdoutWrite.call(process.stdout, JSON.stringify(message) + '\n');
+}
+
+function activeResources() {
+	if (typeof process.getActiveResourcesInfo === 'function') {
+		return process.getActiveResourcesInfo().length;
+	}
+	return process._getActiveHandles().length + process._getActiveRequests().length;
+}
+
+function capture(type) {
+	return function (chunk, encoding, callback) {
+		if (typeof encoding === 'function') {
+			callback = encoding;
+			encoding = undefined;
+		}
+		if (current) {
+			send({type: type, data: Buffer.isBuffer(chunk) ? chunk.toString('utf8') : String(chunk)});
+		} else {
+			// output of scripts running after their request finished
+			stderrWrite.call(process.stderr, chunk);
+		}
+		if (callback) {
+			process.nextTick(callback);
+		}
+		return true;
+	};
+}
+
+function restore() {
+	const saved = current.saved;
+	current = null;
+	process.exitCode = undefined;
+	process.env = saved.env;
+	process.argv = saved.argv;
+	process.chdir(saved.cwd);
+}
+
+function finish(code, pending) {
+	if (!current) {
+		return;
+	}
+	restore();
+	const recycle = pending || (maxMemory > 0 && process.memoryUsage().rss > maxMemory);
+	send({type: 'exit', code: code, recycle: recycle});
+	if (recycle) {
+		exit.call(process, 0);
+	}
+	scheduleIdle();
+}
+
+function fail(error) {
+	if (!current) {
+		stderrWrite.call(process.stderr, (error && error.stack ? error.stack : String(error)) + '\n');
+		return;
+	}
+	if (error instanceof ExitSignal) {
+		finish(error.code, activeResources() > current.baseline);
+		return;
+	}
+	process.stderr.write((error && error.stack ? error.stack : String(error)) + '\n');
+	finish(1, true);
+}
+
+function awaitCompletion() {
+	if (!current) {
+		return;
+	}
+	if (activeResources() > current.baseline) {
+		setTimeout(awaitCompletion, 1);
+		return;
+	}
+	finish(process.exitCode || 0, false);
+}
+
+function run(request) {
+	const cwd = path.resolve(request.cwd || process.cwd());
+	const script = path.resolve(cwd, request.script);
+	current = {
+		saved: {env: process.env, argv: process.argv, cwd: process.cwd()},
+		baseline: activeResources()
+	};
+
+	// project scripts are evaluated again, tooling of node_modules stays loaded
+	Object.keys(require.cache)
+		.filter(f => !f.includes(nodeModules))
+		.forEach(f => delete require.cache[f]);
+
+	process.env = Object.assign({}, request.env);
+	process.chdir(cwd);
+	process.argv = [process.execPath, script].concat(request.args || []);
+	process.exitCode = undefined;
+
+	try {
+		const main = new Module(script, null);
+		main.filename = script;
+		main.paths = Module._nodeModulePaths(path.dirname(script));
+		process.mainModule = main;
+		Module._cache[script] = main;
+		main.load(script);
+	} catch (error) {
+		if (error && (error.code === 'ERR_REQUIRE_ESM' || error.code === 'ERR_REQUIRE_ASYNC_MODULE')) {
+			// ES modules can't be evaluated again, executed by separate process
+			delete Module._cache[script];
+			restore();
+			send({type: 'fallback'});
+			scheduleIdle();
+			return;
+		}
+		fail(error);
+		return;
+	}
+	setTimeout(awaitCompletion, 0);
+}
+
+function scheduleIdle() {
+	clearTimeout(idleTimer);
+	idleTimer = setTimeout(() => exit.call(process, 0), idleTimeout);
+	idleTimer.unref();
+}
+
+process.exit = function (code) {
+	throw new ExitSignal(code === undefined ? (process.exitCode || 0) : Number(code));
+};
+process.stdout.write = capture('out');
+process.stderr.write = capture('err');
+process.on('uncaughtException', fail);
+process.on('unhandledRejection', fail);
+
+readline.createInterface({input: process.stdin, terminal: false})
+	.on('line', line => {
+		clearTimeout(idleTimer);
+		// baseline of active resources is measured within timer callback
+		// just like completion, so that the running timer is counted by both
+		const request = JSON.parse(line);
+		setTimeout(() => run(request), 0);
+	})
+	.on('close', () => exit.call(process, 0));
+
+scheduleIdle();
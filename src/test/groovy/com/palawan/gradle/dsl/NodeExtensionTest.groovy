@@ -58,6 +58,20 @@ class NodeExtensionTest extends AbstractProjectTest {
         node.getVersion() == NodePlugin.LTS_VERSION
         isSameFile(node.getWorkingDir().toString(), testProjectDir.resolve(".gradle/nodejs"))
         node.getUrl() == "https://nodejs.org/dist"
+        !node.getSharedStore()
+        node.getStoreDir() == new File(project.gradle.gradleUserHomeDir, "nodejs")
+        node.getFingerprintDistribution()
+        node.getVerifyChecksum()
+        node.getExtractIncludes().isEmpty()
+        node.getExtractExcludes().isEmpty()
+        !node.getMinimalRuntime()
+        !node.getOffline()
+        node.getMirrors().isEmpty()
+        node.getCacheDir() == null
+        node.getNodeManager().getCacheEnvironment().isEmpty()
+        !node.getDaemon().isEnabled()
+        node.getDaemon().getIdleTimeout() == 300
+        node.getDaemon().getMaxMemory() == 1024L * 1024 * 1024
 
     }
 
@@ -89,6 +103,60 @@ class NodeExtensionTest extends AbstractProjectTest {
         then:
         node.getUrl() == "https://company.org/dist"
 
+        when:
+        node.setSharedStore(true)
+        node.setStoreDir(testProjectDir.resolve("store").toFile())
+        then:
+        node.getSharedStore()
+        node.getStoreDir() == testProjectDir.resolve("store").toFile()
+
+        when:
+        node.setFingerprintDistribution(false)
+        then:
+        !node.getFingerprintDistribution()
+
+        when:
+        node.setVerifyChecksum(false)
+        then:
+        !node.getVerifyChecksum()
+
+        when:
+        node.setExtractIncludes(["bin/**"])
+        node.setExtractExcludes(["include"])
+        node.setMinimalRuntime(true)
+        then:
+        node.getExtractIncludes() == ["bin/**"]
+        node.getExtractExcludes() == ["include"]
+        node.getMinimalRuntime()
+
+        when:
+        node.setOffline(true)
+        then:
+        node.getOffline()
+
+        when:
+        node.setMirrors(["https://mirror.example.com/nodejs"])
+        then:
+        node.getMirrors() == ["https://mirror.example.com/nodejs"]
+        node.getNodeManager().getMirrors() == ["https://nodejs.org/dist", "https://mirror.example.com/nodejs"]
+
+        when:
+        node.setCacheDir(project.file("cache"))
+        then:
+        node.getCacheDir() == project.file("cache")
+        node.getNodeManager().getCacheEnvironment() == [
+                "npm_config_cache": project.file("cache/npm").absolutePath,
+                "npm_config_store_dir": project.file("cache/pnpm-store").absolutePath,
+                "YARN_CACHE_FOLDER": project.file("cache/yarn").absolutePath
+        ]
+
+        when:
+        node.daemon { it.setEnabled(true).setIdleTimeout(60).setMaxMemory(512L * 1024 * 1024) }
+        then:
+        node.getDaemon().isEnabled()
+        node.getDaemon().getIdleTimeout() == 60
+        node.getDaemon().getMaxMemory() == 512L * 1024 * 1024
+
     }
 
     def "Npm"() {
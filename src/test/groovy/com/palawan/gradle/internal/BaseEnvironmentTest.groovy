@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal
+
+import spock.lang.Specification
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class BaseEnvironmentTest extends Specification {
+
+    def "Snapshot reflects current system variables"() {
+
+        when:
+        def first = BaseEnvironment.of([PATH: "/usr/bin", HOME: "/home"], ["/node"])
+        def changed = BaseEnvironment.of([PATH: "/bin", HOME: "/home"], ["/node"])
+
+        then:
+        first.variables == [PATH: "/usr/bin${File.pathSeparator}/node", HOME: "/home"]
+        changed.variables.PATH == "/bin${File.pathSeparator}/node"
+
+    }
+
+    def "Overrides are applied on top of base variables"() {
+
+        given:
+        def base = BaseEnvironment.of([PATH: "/usr/bin", HOME: "/home"], ["/node"])
+
+        when:
+        def environment = base.with([HOME: "/tmp", NODE_ENV: "production"])
+
+        then:
+        environment == [PATH: "/usr/bin${File.pathSeparator}/node", HOME: "/tmp", NODE_ENV: "production"]
+        base.with([:]).is(base.variables)
+        base.overrides([HOME: "/tmp"]) == [HOME: "/tmp"]
+
+    }
+
+    def "Path locations are appended to overridden path"() {
+
+        given:
+        def base = BaseEnvironment.of([Path: "c:\\Windows"], ["/node"])
+
+        expect:
+        base.with([Path: "c:\\Tools"]) == [Path: "c:\\Tools${File.pathSeparator}/node"]
+        base.overrides([Path: "c:\\Tools"]) == [Path: "c:\\Tools${File.pathSeparator}/node"]
+
+    }
+
+    def "Base variables are immutable"() {
+
+        when:
+        BaseEnvironment.of([HOME: "/home"], []).variables.put("HOME", "/tmp")
+
+        then:
+        thrown(UnsupportedOperationException)
+
+    }
+
+}
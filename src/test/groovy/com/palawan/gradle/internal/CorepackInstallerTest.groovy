@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal
+
+import com.palawan.gradle.util.PlatformSpecific
+import com.palawan.gradle.util.ProcessExecutor
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class CorepackInstallerTest extends Specification {
+
+    Path testDir
+
+    def setup() {
+        testDir = Files.createTempDirectory("junit")
+    }
+
+    def cleanup() {
+        testDir.toFile().deleteDir()
+    }
+
+    def "Environment offline"() {
+
+        when:
+        def environment = installer("Linux", true).getEnvironment()
+
+        then:
+        environment["COREPACK_HOME"] == testDir.resolve("corepack").toAbsolutePath().toString()
+        environment["COREPACK_ENABLE_DOWNLOAD_PROMPT"] == "0"
+        environment["COREPACK_ENABLE_NETWORK"] == "0"
+
+    }
+
+    def "GetPrepareArgs"() {
+
+        expect:
+        installer("Linux", false).getPrepareArgs("pnpm", "7.1.0") == ["pnpm@7.1.0", "--version"]
+        installer("Linux", false).getPrepareArgs("yarn", "latest") == ["yarn", "--version"]
+
+    }
+
+    def "WriteShims"() {
+
+        given:
+        def prefix = testDir.resolve("pnpm-v7.1.0")
+
+        when:
+        installer("Linux", true).writeShims(prefix, ["pnpm": "pnpm", "pnpx": "pnpx"], "7.1.0")
+
+        then:
+        Files.readString(prefix.resolve("bin/pnpm")).endsWith("exec corepack pnpm@7.1.0 \"\$@\"\n")
+        Files.readString(prefix.resolve("bin/pnpx")).contains("COREPACK_HOME=")
+        !Files.readString(prefix.resolve("bin/pnpm")).contains("COREPACK_ENABLE_NETWORK")
+        Files.isExecutable(prefix.resolve("bin/pnpm")) || System.getProperty("os.name").contains("Windows")
+
+    }
+
+    def "WriteShims windows"() {
+
+        given:
+        def prefix = testDir.resolve("yarn-v1.22.17")
+
+        when:
+        installer("Windows 10", false).writeShims(prefix, ["yarn.cmd": "yarn"], "1.22.17")
+
+        then:
+        Files.readString(prefix.resolve("yarn.cmd")).endsWith("corepack yarn@1.22.17 %*\r\n")
+
+    }
+
+    def "WriteShims escapes environment"() {
+
+        given:
+        def home = testDir.resolve("it's 100% \"R&D\"")
+        def properties = new Properties()
+        properties.setProperty(PlatformSpecific.OS_NAME, osName)
+        def installer = new CorepackInstaller(home, false, PlatformSpecific.getInstance(properties, Mock(ProcessExecutor)))
+
+        when:
+        installer.writeShims(testDir, [(shim): "pnpm"], "7.1.0")
+
+        then:
+        Files.readString(testDir.resolve(path)).contains(line.replace("DIR", home.toAbsolutePath().parent.toString()))
+
+        where:
+        osName       | shim       | path       | line
+        "Linux"      | "pnpm"     | "bin/pnpm" | "COREPACK_HOME='DIR${File.separator}it'\\''s 100% \"R&D\"'\n"
+        "Windows 10" | "pnpm.cmd" | "pnpm.cmd" | "SET COREPACK_HOME=DIR${File.separator}it's 100%% ^\"R^&D^\"\r\n"
+
+    }
+
+    private CorepackInstaller installer(String osName, boolean offline) {
+        def properties = new Properties()
+        properties.setProperty(PlatformSpecific.OS_NAME, osName)
+        return new CorepackInstaller(testDir.resolve("corepack"), offline,
+                PlatformSpecific.getInstance(properties, Mock(ProcessExecutor)))
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class DependencyDeltaTest extends Specification {
+
+    Path testDir
+
+    def setup() {
+        testDir = Files.createTempDirectory("junit")
+    }
+
+    def cleanup() {
+        testDir.toFile().deleteDir()
+    }
+
+    def "Compute changed dependencies"() {
+
+        given:
+        def previous = snapshot('{"name":"app","dependencies":{"lodash.merge":"^4.0.0","react":"^17.0.0"},"devDependencies":{"eslint":"^7.0.0","jest":"^27.0.0"}}')
+        def current = snapshot('{"name":"app","dependencies":{"lodash.merge":"^4.0.0","react":"^18.0.0","jest":"^27.0.0"},"devDependencies":{"eslint":"^8.0.0"}}')
+
+        when:
+        def delta = DependencyDelta.compute(previous, current, 5).get()
+
+        then:
+        delta.getAdded() == [dependencies: ["jest@^27.0.0", "react@^18.0.0"], devDependencies: ["eslint@^8.0.0"]]
+        delta.getRemoved().isEmpty()
+
+    }
+
+    def "Compute removed dependencies"() {
+
+        given:
+        def previous = snapshot('{"dependencies":{"lodash.merge":"^4.0.0","react":"^17.0.0"}}')
+        def current = snapshot('{"dependencies":{"lodash.merge":"^4.0.0"}}')
+
+        when:
+        def delta = DependencyDelta.compute(previous, current, 5).get()
+
+        then:
+        delta.getAdded().isEmpty()
+        delta.getRemoved() == ["react"]
+
+    }
+
+    def "Compute unchanged dependencies"() {
+
+        given:
+        def previous = snapshot('{"dependencies":{"react":"^17.0.0"}}')
+
+        expect:
+        DependencyDelta.compute(previous, previous, 5).get().isEmpty()
+
+    }
+
+    def "Compute requires full install"() {
+
+        given:
+        def previous = snapshot('{"name":"app","dependencies":{"react":"^17.0.0","vue":"^3.0.0"}}')
+
+        expect:
+        !DependencyDelta.compute([:], previous, 5).isPresent()
+        !DependencyDelta.compute(previous, snapshot('{"name":"other","dependencies":{"react":"^17.0.0","vue":"^3.0.0"}}'), 5).isPresent()
+        !DependencyDelta.compute(previous, snapshot('{"name":"app","dependencies":{"react":"^18.0.0","vue":"^3.1.0"}}'), 1).isPresent()
+        !DependencyDelta.compute(previous, snapshot('{"name":"app","dependencies":{"react":"^17.0.0","vue":"^3.0.0","lib":"file:../lib"}}'), 5).isPresent()
+
+    }
+
+    private Map<String, String> snapshot(String json) {
+        def packageJson = testDir.resolve("package.json")
+        Files.writeString(packageJson, json)
+        return DependencyDelta.snapshot(packageJson, new InstallState(testDir.resolve("delta.properties"))
+                .put("packager", "npm@8.0.0")).getValues()
+    }
+
+}
@@ -65,8 +65,8 @@ class ExecutableDataTest extends Specification {
                 final String pathName = System.getenv().containsKey("Path") ? "Path" : "PATH"
                 assert env[pathName] == System.getenv().get(pathName) + File.pathSeparator +
                         "/tmp/junit-nodejs/bin${File.pathSeparator}/tmp/junit-npm/bin"
-                assert env["NODE_HOME"] == "/tmp/junit-nodejs/bin"
             }
+            1 * environment([NODE_HOME: "/tmp/junit-nodejs/bin", YARN_HOME: "/tmp/junit-yarn/bin"])
             0 * _                           // don't allow any other interaction
         }
 
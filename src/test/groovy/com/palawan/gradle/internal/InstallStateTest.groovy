@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class InstallStateTest extends Specification {
+
+    Path testDir
+
+    def setup() {
+        testDir = Files.createTempDirectory("junit")
+    }
+
+    def cleanup() {
+        testDir.toFile().deleteDir()
+    }
+
+    def "IsCurrent"() {
+
+        given:
+        def lockFile = testDir.resolve("package-lock.json")
+        def stampFile = Files.createDirectories(testDir.resolve("node_modules")).resolve(".package-lock.json")
+        Files.writeString(lockFile, "{}")
+        Files.writeString(stampFile, "{}")
+        def stateFile = testDir.resolve("node_modules/.state.properties")
+
+        expect:
+        !state(stateFile, lockFile, stampFile).isCurrent()
+
+        when:
+        state(stateFile, lockFile, stampFile).write()
+
+        then:
+        state(stateFile, lockFile, stampFile).isCurrent()
+        !new InstallState(stateFile).put("node", "18.0.0").putFile("lock", lockFile).putFile("stamp", stampFile).isCurrent()
+
+        when:
+        Files.writeString(stampFile, '{"lockfileVersion":2}')
+
+        then:
+        !state(stateFile, lockFile, stampFile).isCurrent()
+
+        when:
+        Files.delete(stampFile)
+
+        then:
+        !state(stateFile, lockFile, stampFile).isCurrent()
+
+    }
+
+    private static InstallState state(Path stateFile, Path lockFile, Path stampFile) {
+        return new InstallState(stateFile)
+                .put("node", "16.13.2")
+                .putFile("lock", lockFile)
+                .putFile("stamp", stampFile)
+    }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal
+
+import com.palawan.gradle.internal.data.CleanupData
+import org.gradle.api.services.BuildServiceParameters
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.time.Duration
+import java.time.Instant
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class InstallationCleanerTest extends Specification {
+
+    Path testDir
+    Instant now = Instant.parse("2022-03-01T12:00:00Z")
+    InstallationUsageService usage = new InstallationUsageService() {
+        @Override
+        BuildServiceParameters.None getParameters() {
+            return null
+        }
+    }
+
+    def setup() {
+        testDir = Files.createTempDirectory("junit")
+    }
+
+    def cleanup() {
+        usage.close()
+        testDir.toFile().deleteDir()
+    }
+
+    def "Cleanup max versions"() {
+
+        given:
+        def current = install("node-v16.0.0", 30, 10)
+        install("node-v14.0.0", 10, 10)
+        install("node-v15.0.0", 20, 10)
+        install("node-v12.0.0", 40, 10)
+        def cleaner = new InstallationCleaner(new CleanupData().setMaxVersions(2), usage, now)
+
+        when:
+        def removed = cleaner.cleanup(testDir, { it.startsWith("node-v") }, [current])
+
+        then:
+        removed*.fileName*.toString().sort() == ["node-v12.0.0", "node-v15.0.0"]
+        Files.isDirectory(current)
+        Files.isDirectory(testDir.resolve("node-v14.0.0"))
+        !Files.exists(testDir.resolve(".node-v12.0.0.used"))
+
+    }
+
+    def "Cleanup max age"() {
+
+        given:
+        install("node-v16.0.0", 1, 10)
+        install("node-v14.0.0", 40, 10)
+        def cleaner = new InstallationCleaner(new CleanupData().setMaxAgeDays(30), usage, now)
+
+        when:
+        def removed = cleaner.cleanup(testDir, { true }, [])
+
+        then:
+        removed*.fileName*.toString() == ["node-v14.0.0"]
+
+    }
+
+    def "Cleanup max size"() {
+
+        given:
+        install("node-v16.0.0", 1, 100)
+        install("node-v15.0.0", 2, 100)
+        install("node-v14.0.0", 3, 10)
+        def cleaner = new InstallationCleaner(new CleanupData().setMaxSize(150), usage, now)
+
+        when:
+        def removed = cleaner.cleanup(testDir, { true }, [])
+
+        then:
+        removed*.fileName*.toString() == ["node-v15.0.0"]
+
+    }
+
+    def "Cleanup keeps recently used"() {
+
+        given:
+        install("node-v16.0.0", 0, 10)
+        install("node-v14.0.0", 0, 10)
+        def cleaner = new InstallationCleaner(new CleanupData().setMaxVersions(1), usage, now)
+
+        when:
+        def removed = cleaner.cleanup(testDir, { true }, [])
+
+        then:
+        removed.isEmpty()
+
+    }
+
+    def "Cleanup skips locked installation"() {
+
+        given:
+        install("node-v16.0.0", 1, 10)
+        def locked = install("node-v14.0.0", 2, 10)
+        def cleaner = new InstallationCleaner(new CleanupData().setMaxVersions(1), usage, now)
+        def lock = InstallationLock.acquire(new Installation(locked, { true }).getLockFile(), Duration.ofSeconds(1))
+
+        when:
+        def removed = cleaner.cleanup(testDir, { true }, [])
+
+        then:
+        removed.isEmpty()
+        Files.isDirectory(locked)
+
+        cleanup:
+        lock.close()
+
+    }
+
+    def "Cleanup skips installation in use past grace period"() {
+
+        given:
+        install("node-v16.0.0", 1, 10)
+        def used = install("node-v14.0.0", 2, 10)
+        def installation = new Installation(used, { true })
+        installation.markUsed(usage)
+        Files.setLastModifiedTime(installation.getUsageFile(), FileTime.from(now.minus(Duration.ofDays(2))))
+        def cleaner = new InstallationCleaner(new CleanupData().setMaxVersions(1), usage, now)
+
+        when:
+        def removed = cleaner.cleanup(testDir, { true }, [])
+
+        then:
+        removed.isEmpty()
+        Files.isDirectory(used)
+
+    }
+
+    def "Cleanup removes installation used by finished build"() {
+
+        given:
+        install("node-v16.0.0", 1, 10)
+        def used = install("node-v14.0.0", 2, 10)
+        def installation = new Installation(used, { true })
+        def finished = new InstallationUsageService() {
+            @Override
+            BuildServiceParameters.None getParameters() {
+                return null
+            }
+        }
+        installation.markUsed(finished)
+        finished.close()
+        Files.setLastModifiedTime(installation.getUsageFile(), FileTime.from(now.minus(Duration.ofDays(2))))
+        def cleaner = new InstallationCleaner(new CleanupData().setMaxVersions(1), usage, now)
+
+        when:
+        def removed = cleaner.cleanup(testDir, { true }, [])
+
+        then:
+        removed == [used]
+        !Files.exists(used)
+
+    }
+
+    def "Cleanup reports each removed installation"() {
+
+        given:
+        install("node-v16.0.0", 2, 10)
+        def first = install("node-v15.0.0", 3, 10)
+        def second = install("node-v14.0.0", 4, 10)
+        def listener = Mock(InstallationCleaner.Listener)
+        def cleaner = new InstallationCleaner(new CleanupData().setMaxVersions(1), usage, listener, now)
+
+        when:
+        cleaner.cleanup(testDir, { true }, [])
+
+        then:
+        1 * listener.removed(first)
+        1 * listener.removed(second)
+        0 * listener.failed(_, _)
+
+    }
+
+    def "Cleanup removes abandoned temporary directories"() {
+
+        given:
+        def abandoned = Files.createDirectories(testDir.resolve(".node-v16.0.0-123"))
+        Files.setLastModifiedTime(abandoned, FileTime.from(now.minus(Duration.ofDays(2))))
+        def running = Files.createDirectories(testDir.resolve(".node-v16.0.0-456"))
+        Files.setLastModifiedTime(running, FileTime.from(now.minus(Duration.ofMinutes(5))))
+        def cleaner = new InstallationCleaner(new CleanupData().setMaxVersions(1), usage, now)
+
+        when:
+        cleaner.cleanup(testDir, { true }, [])
+
+        then:
+        !Files.exists(abandoned)
+        Files.exists(running)
+
+    }
+
+    private Path install(String name, int daysAgo, int size) {
+        def dir = Files.createDirectories(testDir.resolve(name))
+        Files.write(dir.resolve("node"), new byte[size])
+        def installation = new Installation(dir, { true })
+        def time = FileTime.from(now.minus(Duration.ofDays(daysAgo)))
+        Files.setLastModifiedTime(dir, time)
+        Files.createFile(installation.getUsageFile())
+        Files.setLastModifiedTime(installation.getUsageFile(), time)
+        return dir
+    }
+
+}
@@ -0,0 +1,292 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class InstallationTest extends Specification {
+
+    Path testDir
+
+    def setup() {
+        testDir = Files.createTempDirectory("junit")
+    }
+
+    def cleanup() {
+        testDir.toFile().deleteDir()
+    }
+
+    def "Install into empty directory"() {
+
+        given:
+        def installation = new Installation(testDir.resolve("node-v1"), { m -> m.getProperty("version") == "1" })
+
+        when:
+        def installed = installation.install({ Path d ->
+            Files.writeString(d.resolve("node"), "node")
+            return [version: "1"]
+        })
+
+        then:
+        installed
+        installation.isComplete()
+        Files.readString(testDir.resolve("node-v1/node")) == "node"
+        Files.list(testDir).collect { it.fileName.toString() }.sort() == [".node-v1.lock", "node-v1"]
+
+    }
+
+    def "Install writes marker"() {
+
+        given:
+        def installation = new Installation(testDir.resolve("node-v1"), { m -> true })
+
+        when:
+        installation.install({ Path d ->
+            Files.createDirectories(d.resolve("bin"))
+            Files.writeString(d.resolve("bin/node"), "node")
+            Files.writeString(d.resolve("README.md"), "readme")
+            return [version: "1", sha256: "abc"]
+        })
+
+        then:
+        installation.getMarkerFile() == testDir.resolve("node-v1/.installation.properties")
+        with(installation.readMarker().orElseThrow()) {
+            getProperty(Installation.VERSION) == "1"
+            getProperty("sha256") == "abc"
+            getProperty(Installation.FILES) == "2"
+            getProperty(Installation.SIZE) == "10"
+        }
+
+    }
+
+    def "Install skips complete installation"() {
+
+        given:
+        def installation = new Installation(testDir.resolve("node-v1"), { m -> m.getProperty("version") == "1" })
+        Files.createDirectories(testDir.resolve("node-v1"))
+        Files.writeString(testDir.resolve("node-v1/.installation.properties"), "version=1")
+
+        and:
+        Installation.Installer installer = Mock()
+
+        when:
+        def installed = installation.install(installer)
+
+        then:
+        !installed
+        0 * installer.install(_)
+
+    }
+
+    def "Install replaces incomplete installation"() {
+
+        given:
+        def installation = new Installation(testDir.resolve("node-v1"), { m -> m.getProperty("version") == "2" })
+        Files.createDirectories(testDir.resolve("node-v1/lib"))
+        Files.writeString(testDir.resolve("node-v1/.installation.properties"), "version=1")
+
+        when:
+        def installed = installation.install({ Path d ->
+            Files.writeString(d.resolve("node"), "node")
+            return [version: "2"]
+        })
+
+        then:
+        installed
+        installation.isComplete()
+        !Files.exists(testDir.resolve("node-v1/lib"))
+
+    }
+
+    def "Reinstall keeps previous installation until replaced"() {
+
+        given:
+        def installation = new Installation(testDir.resolve("node-v1"), { m -> true })
+        installation.install({ Path d ->
+            Files.writeString(d.resolve("node"), "old")
+            return [version: "1"]
+        })
+        def visible = []
+
+        when:
+        installation.reinstall({ Path d ->
+            visible << Files.readString(testDir.resolve("node-v1/node"))
+            Files.writeString(d.resolve("node"), "new")
+            return [version: "1"]
+        })
+
+        then:
+        visible == ["old"]
+        Files.readString(testDir.resolve("node-v1/node")) == "new"
+        Files.list(testDir).collect { it.fileName.toString() }.sort() == [".node-v1.lock", "node-v1"]
+
+    }
+
+    def "Failed install leaves no content"() {
+
+        given:
+        def installation = new Installation(testDir.resolve("node-v1"), { m -> true })
+
+        when:
+        installation.reinstall({ Path d ->
+            Files.writeString(d.resolve("node"), "node")
+            throw new IOException("Broken archive")
+        })
+
+        then:
+        thrown(NodeException)
+        !installation.isComplete()
+        Files.list(testDir).collect { it.fileName.toString() } == [".node-v1.lock"]
+
+    }
+
+    def "Concurrent install runs installer once"() {
+
+        given:
+        def installs = new AtomicInteger()
+        def start = new CountDownLatch(1)
+        def pool = Executors.newFixedThreadPool(4)
+
+        when:
+        def results = (1..4).collect {
+            pool.submit({
+                start.await()
+                new Installation(testDir.resolve("node-v1"), { m -> m.getProperty("version") == "1" })
+                        .install({ Path d ->
+                            installs.incrementAndGet()
+                            Thread.sleep(100)
+                            Files.writeString(d.resolve("node"), "node")
+                            return [version: "1"]
+                        })
+            } as Callable<Boolean>)
+        }
+        start.countDown()
+
+        then:
+        results.collect { it.get() }.count { it } == 1
+        installs.get() == 1
+        Files.readString(testDir.resolve("node-v1/node")) == "node"
+
+        cleanup:
+        pool.shutdownNow()
+
+    }
+
+    def "Reinstall reuses installation completed while waiting"() {
+
+        given:
+        def installation = new Installation(testDir.resolve("node-v1"), { m -> m.getProperty("version") == "1" })
+        def locked = new CountDownLatch(1)
+        def first = Thread.start {
+            installation.reinstall({ Path d ->
+                locked.countDown()
+                Thread.sleep(300)
+                Files.writeString(d.resolve("node"), "first")
+                return [version: "1"]
+            })
+        }
+        locked.await()
+
+        when:
+        installation.reinstall({ Path d ->
+            Files.writeString(d.resolve("node"), "second")
+            return [version: "1"]
+        })
+        first.join()
+
+        then:
+        Files.readString(testDir.resolve("node-v1/node")) == "first"
+
+    }
+
+    def "Install lock timeout"() {
+
+        given:
+        def installation = new Installation(testDir.resolve("node-v1"), { m -> true })
+                .lockTimeout(Duration.ofMillis(300))
+        def locked = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def holder = Thread.start {
+            installation.install({ Path d ->
+                locked.countDown()
+                release.await()
+                return [version: "1"]
+            })
+        }
+        locked.await()
+
+        when:
+        installation.reinstall({ Path d -> [version: "1"] })
+
+        then:
+        def e = thrown(NodeException)
+        e.getCause().getMessage().startsWith("Timeout")
+
+        cleanup:
+        release.countDown()
+        holder.join()
+
+    }
+
+    def "MarkUsed"() {
+
+        given:
+        def installation = new Installation(testDir.resolve("node-v1"), { m -> true })
+
+        when:
+        installation.markUsed(null)
+
+        then: "nothing recorded for missing installation"
+        !Files.exists(installation.getUsageFile())
+
+        when:
+        installation.install({ Path d -> [version: "1"] })
+        Files.setLastModifiedTime(installation.getDirectory(), FileTime.from(Instant.EPOCH))
+        Files.setLastModifiedTime(installation.getMarkerFile(), FileTime.from(Instant.EPOCH))
+        installation.markUsed(null)
+
+        then:
+        installation.getUsageFile() == testDir.resolve(".node-v1.used")
+        installation.getLastUsed().isAfter(Instant.now().minusSeconds(60))
+
+    }
+
+}
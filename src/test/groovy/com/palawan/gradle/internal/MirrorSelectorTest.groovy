@@ -0,0 +1,169 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class MirrorSelectorTest extends Specification {
+
+    Path testDir
+    Path statsFile
+
+    def setup() {
+        testDir = Files.createTempDirectory("junit")
+        statsFile = testDir.resolve(MirrorSelector.STATS_FILE)
+    }
+
+    def cleanup() {
+        testDir.toFile().deleteDir()
+    }
+
+    def "GetOrdered without statistics"() {
+
+        given:
+        def selector = new MirrorSelector(["a", "b", "c"], statsFile)
+
+        expect:
+        selector.getOrdered() == ["a", "b", "c"]
+        !Files.exists(statsFile)
+
+    }
+
+    def "GetOrdered by latency and health"() {
+
+        given:
+        def selector = new MirrorSelector(["a", "b", "c"], statsFile)
+
+        when:
+        selector.success("a", Duration.ofMillis(900))
+        selector.success("b", Duration.ofMillis(100))
+        selector.success("c", Duration.ofMillis(10))
+        selector.failure("c")
+        selector.failure("c")
+
+        then:
+        selector.getHealth("a") == 1.0d
+        selector.getHealth("c") < MirrorSelector.HEALTH_THRESHOLD
+        selector.getOrdered() == ["b", "a", "c"]
+        new MirrorSelector(["a", "b", "c"], statsFile).getOrdered() == ["b", "a", "c"]
+
+    }
+
+    def "Select falls back to next mirror"() {
+
+        given:
+        def selector = new MirrorSelector(["a", "b"], statsFile)
+
+        when:
+        def result = selector.select("archive", { m ->
+            if (m == "a") {
+                throw new IllegalStateException("Mirror down")
+            }
+            return m
+        })
+
+        then:
+        result == "b"
+        selector.getHealth("a") == 0.0d
+        selector.getHealth("b") == 1.0d
+        selector.getOrdered() == ["b", "a"]
+
+    }
+
+    def "Select records no latency of possibly cached download"() {
+
+        given:
+        def selector = new MirrorSelector(["a", "b"], statsFile)
+        selector.success("a", Duration.ofMillis(500))
+        selector.success("b", Duration.ofMillis(100))
+
+        when:
+        selector.select("archive", { m -> m })
+
+        then:
+        selector.getOrdered() == ["b", "a"]
+        selector.getHealth("b") == 1.0d
+
+    }
+
+    def "Fetch records reported latency"() {
+
+        given:
+        def selector = new MirrorSelector(["a", "b"], statsFile)
+        selector.success("a", Duration.ofMillis(500))
+        selector.success("b", Duration.ofMillis(100))
+
+        when:
+        3.times {
+            selector.fetch("index", { m, latency ->
+                latency.accept(Duration.ofMillis(m == "b" ? 2000 : 50))
+                return m
+            } as MirrorSelector.Fetch)
+        }
+
+        then:
+        selector.getOrdered() == ["a", "b"]
+
+    }
+
+    def "Select fails when all mirrors fail"() {
+
+        given:
+        def selector = new MirrorSelector(["a", "b"], statsFile)
+
+        when:
+        selector.select("archive", { m -> throw new IllegalStateException("Mirror down " + m) })
+
+        then:
+        def e = thrown(NodeException)
+        e.getSuppressed().size() == 2
+
+    }
+
+    def "Select single mirror"() {
+
+        given:
+        def selector = new MirrorSelector(["a"], statsFile)
+
+        when:
+        selector.select("archive", { m -> throw new IllegalStateException("Mirror down") })
+
+        then:
+        thrown(IllegalStateException)
+        !Files.exists(statsFile)
+
+    }
+
+}
@@ -30,7 +30,6 @@ import com.palawan.gradle.NodePlugin
 import com.palawan.gradle.tasks.DefaultPackagerCliTask
 import com.palawan.gradle.tasks.DefaultPackagerTask
 import com.palawan.gradle.tasks.NodeTask
-import spock.lang.IgnoreIf
 
 import java.nio.file.Files
 import java.nio.file.Path
@@ -89,6 +88,24 @@ class NodeManagerTest extends AbstractProjectTest {
         setupTask.get().description == NodePlugin.NODE_SETUP_TASK_DESC
     }
 
+    def "AfterEvaluate automatic cleanup"() {
+
+        given:
+        nodeExtension.setDownload(true)
+        nodeExtension.cleanup { it.setMaxVersions(2).setAutomatic(true) }
+        nodeManager.apply(project)
+
+        when:
+        nodeManager.afterEvaluate(project, nodeExtension)
+        def setupTask = project.getTasks().named(NodePlugin.NODE_SETUP_TASK_NAME).get()
+        def cleanupTask = project.getTasks().named(NodePlugin.NODE_CLEANUP_TASK_NAME).get()
+
+        then:
+        cleanupTask.description == NodePlugin.NODE_CLEANUP_TASK_DESC
+        setupTask.getFinalizedBy().getDependencies(setupTask).contains(cleanupTask)
+
+    }
+
     def "AfterEvaluate no download"() {
 
         given:
@@ -238,118 +255,154 @@ class NodeManagerTest extends AbstractProjectTest {
 
     }
 
-    def "GetBinDir windows"() {
+    def "GetBinDir shared store"() {
 
         given:
-        mockWindows()
+        mockLinux()
+
+        and:
+        nodeExtension.setSharedStore(true)
+        nodeExtension.setStoreDir(testProjectDir.resolve("store").toFile())
 
         when:
         def bin = nodeManager.getBinDir()
 
         then:
-        isSameFile(bin, testProjectDir.resolve(".gradle/nodejs/node-v${NodePlugin.LTS_VERSION}-win-x64"))
+        isSameFile(bin, testProjectDir.resolve("store/node-v${NodePlugin.LTS_VERSION}-linux-x64/bin"))
 
     }
 
-    def "GetPackagerWorkingDir"() {
+    def "GetBinDir shared store filtered"() {
 
         given:
         mockLinux()
 
+        and:
+        nodeExtension.setSharedStore(true)
+        nodeExtension.setStoreDir(testProjectDir.resolve("store").toFile())
+        nodeExtension.setMinimalRuntime(true)
+
         when:
-        def npm = nodeManager.getPackagerWorkingDir()
+        def bin = nodeManager.getBinDir()
 
         then:
-        isSameFile(npm, testProjectDir.resolve(".gradle/nodejs/node-v${NodePlugin.LTS_VERSION}-linux-x64/lib/node_modules/npm"))
+        bin.getParent().getFileName().toString() ==~ /node-v${NodePlugin.LTS_VERSION}-linux-x64-[0-9a-f]{8}/
+        isSameFile(bin.getParent().getParent(), testProjectDir.resolve("store"))
 
     }
 
-    def "GetPackagerWorkingDir windows"() {
+    def "GetExtractionFilter"() {
 
         given:
-        mockWindows()
+        mockLinux()
+
+        expect:
+        nodeManager.getExtractionFilter().isEmpty()
 
         when:
-        def npm = nodeManager.getPackagerWorkingDir()
+        nodeExtension.setMinimalRuntime(true)
+        nodeExtension.setExtractExcludes(["lib/node_modules/npm/docs"])
+        def filter = nodeManager.getExtractionFilter()
 
         then:
-        isSameFile(npm, testProjectDir.resolve(".gradle/nodejs/node-v${NodePlugin.LTS_VERSION}-win-x64/node_modules/npm"))
+        filter.test("bin/node")
+        filter.test("lib/node_modules/npm/bin/npm-cli.js")
+        !filter.test("lib/node_modules/npm/docs/index.html")
+        !filter.test("include/node/v8.h")
+        !filter.test("share/man/man1/node.1")
 
     }
 
-    @IgnoreIf({ System.getProperty("os.name").contains("Windows") })
-    def "setExecutablePosixRights"() {
+    def "GetVersion alias"() {
 
         given:
-        def nodeJs = defineNodeExecutables()
+        def mirror = Files.createDirectories(testProjectDir.resolve("mirror"))
+        Files.writeString(mirror.resolve("index.json"), '[{"version":"v18.1.0","lts":false},{"version":"v16.15.0","lts":"Gallium"}]')
+        nodeExtension.setUrl(mirror.toUri().toString())
+        nodeExtension.setStoreDir(testProjectDir.resolve("store").toFile())
 
-        and:
-        mockLinux()
+        expect:
+        nodeManager.getVersion() == NodePlugin.LTS_VERSION
 
         when:
-        nodeManager.setExecutablePosixRights()
+        nodeExtension.setVersion("lts/gallium")
 
         then:
-        Files.isExecutable(nodeJs.resolve("bin/node"))
-        Files.isExecutable(nodeJs.resolve("bin/npm"))
-        Files.isSymbolicLink(nodeJs.resolve("bin/npm"))
-        Files.isExecutable(nodeJs.resolve("bin/npx"))
-        Files.isSymbolicLink(nodeJs.resolve("bin/npx"))
-        Files.isExecutable(nodeJs.resolve("bin/npm"))
-        Files.isExecutable(nodeJs.resolve("lib/node_modules/npm/bin/npm-cli.js"))
-        Files.isExecutable(nodeJs.resolve("lib/node_modules/npm/bin/npx-cli.js"))
+        nodeExtension.getVersion() == "lts/gallium"
+        nodeManager.getVersion() == "16.15.0"
 
     }
 
-    @IgnoreIf({ System.getProperty("os.name").contains("Windows") })
-    def "setExecutablePosixRights not downloaded"() {
+    def "GetInstallation"() {
 
         given:
         mockLinux()
 
-        and:
-        def nodeJs = defineNodeExecutables(".gradle/nodejs")
+        when:
+        def installation = nodeManager.getInstallation()
+
+        then:
+        isSameFile(installation.getDirectory(), testProjectDir.resolve(".gradle/nodejs/node-v${NodePlugin.LTS_VERSION}-linux-x64"))
+        !installation.isComplete()
 
         when:
-        nodeManager.setExecutablePosixRights()
+        def nodeJs = defineNodeExecutables()
 
         then:
-        !Files.isExecutable(nodeJs.resolve("bin/node"))
+        !installation.isComplete()
+
+        when:
+        Files.writeString(nodeJs.resolve(Installation.MARKER), "version=${NodePlugin.LTS_VERSION}")
+
+        then:
+        installation.isComplete()
+
+        when:
+        nodeExtension.setVersion("10.0.0")
+
+        then:
+        !installation.isComplete()
 
     }
 
-    def "setExecutablePosixRights windows"() {
+    def "GetBinDir windows"() {
 
         given:
         mockWindows()
 
         when:
-        nodeManager.setExecutablePosixRights()
+        def bin = nodeManager.getBinDir()
 
         then:
-        thrown(NodeException.class)
+        isSameFile(bin, testProjectDir.resolve(".gradle/nodejs/node-v${NodePlugin.LTS_VERSION}-win-x64"))
 
     }
 
-//    def "setExecutablePosixRights IOException"() {
-//
-//        given:
-//        def packager = Mock(PackagerInternal)
-//        packager.setExecutablePosixRights(_) >> { throw new IOException("Unable to set permissions") }
-//
-//        and:
-//        nodeManager.packager = packager
-//
-//        and:
-//        mockLinux()
-//
-//        when:
-//        nodeManager.setExecutablePosixRights()
-//
-//        then:
-//        thrown(NodeException.class)
-//
-//    }
+    def "GetPackagerWorkingDir"() {
+
+        given:
+        mockLinux()
+
+        when:
+        def npm = nodeManager.getPackagerWorkingDir()
+
+        then:
+        isSameFile(npm, testProjectDir.resolve(".gradle/nodejs/node-v${NodePlugin.LTS_VERSION}-linux-x64/lib/node_modules/npm"))
+
+    }
+
+    def "GetPackagerWorkingDir windows"() {
+
+        given:
+        mockWindows()
+
+        when:
+        def npm = nodeManager.getPackagerWorkingDir()
+
+        then:
+        isSameFile(npm, testProjectDir.resolve(".gradle/nodejs/node-v${NodePlugin.LTS_VERSION}-win-x64/node_modules/npm"))
+
+    }
 
     private Path defineNodeExecutables() {
         defineNodeExecutables(".gradle/nodejs/node-v${NodePlugin.LTS_VERSION}-linux-x64")
@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Instant
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class NodeModulesCacheTest extends Specification {
+
+    Path testDir
+    Path projectDir
+    NodeModulesCache cache
+
+    def setup() {
+        testDir = Files.createTempDirectory("junit")
+        projectDir = Files.createDirectories(testDir.resolve("project"))
+        cache = new NodeModulesCache(testDir.resolve("cache"))
+    }
+
+    def cleanup() {
+        testDir.toFile().deleteDir()
+    }
+
+    def "Key ignores attribute order"() {
+
+        expect:
+        NodeModulesCache.key(["node": "16.13.2", "packager": "npm@8.1.2"]) ==
+                NodeModulesCache.key(new LinkedHashMap(["packager": "npm@8.1.2", "node": "16.13.2"]))
+        NodeModulesCache.key(["node": "16.13.2"]) != NodeModulesCache.key(["node": "18.0.0"])
+
+    }
+
+    def "Store and restore"() {
+
+        given:
+        def key = NodeModulesCache.key(["input.package-lock.json": "abc"])
+        Files.createDirectories(projectDir.resolve("node_modules/lodash"))
+        Files.writeString(projectDir.resolve("node_modules/lodash/index.js"), "lodash")
+
+        expect:
+        !cache.restore(key, projectDir, ["node_modules"])
+
+        when:
+        cache.store(key, projectDir, ["node_modules"])
+        Files.writeString(projectDir.resolve("node_modules/stale.js"), "stale")
+        def restored = cache.restore(key, projectDir, ["node_modules"])
+
+        then:
+        restored
+        Files.readString(projectDir.resolve("node_modules/lodash/index.js")) == "lodash"
+        !Files.exists(projectDir.resolve("node_modules/stale.js"))
+
+        when:
+        def removed = cache.cleanup(Instant.now().plusSeconds(60), Mock(InstallationCleaner.Listener))
+
+        then:
+        removed == [cache.getArchive(key)]
+        !cache.restore(key, projectDir, ["node_modules"])
+
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal
+
+import org.gradle.api.provider.Property
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class NodeProcessLimiterTest extends Specification {
+
+    def "Acquire limited by processes"() {
+
+        given:
+        def limiter = limiter(2, 0L)
+        def first = limiter.acquire(100)
+        def second = limiter.acquire(100)
+
+        when:
+        def started = acquireAsync(limiter, 100)
+
+        then:
+        !started.await(200, TimeUnit.MILLISECONDS)
+
+        when:
+        first.close()
+
+        then:
+        started.await(5, TimeUnit.SECONDS)
+
+        cleanup:
+        second.close()
+
+    }
+
+    def "Acquire limited by memory budget"() {
+
+        given:
+        def limiter = limiter(0, 1000L)
+        def first = limiter.acquire(600)
+
+        when:
+        def started = acquireAsync(limiter, 500)
+
+        then:
+        !started.await(200, TimeUnit.MILLISECONDS)
+
+        when:
+        first.close()
+
+        then:
+        started.await(5, TimeUnit.SECONDS)
+
+    }
+
+    def "Acquire process over budget when nothing runs"() {
+
+        given:
+        def limiter = limiter(1, 1000L)
+
+        when:
+        limiter.acquire(5000).close()
+
+        then:
+        noExceptionThrown()
+
+    }
+
+    private NodeProcessLimiter limiter(int maxProcesses, long memoryBudget) {
+        Property<Integer> processes = Mock()
+        Property<Long> budget = Mock()
+        processes.get() >> maxProcesses
+        budget.get() >> memoryBudget
+        NodeProcessLimiter.Parameters parameters = Mock()
+        parameters.getMaxProcesses() >> processes
+        parameters.getMemoryBudget() >> budget
+        return new NodeProcessLimiter() {
+            @Override
+            NodeProcessLimiter.Parameters getParameters() {
+                return parameters
+            }
+        }
+    }
+
+    private static CountDownLatch acquireAsync(NodeProcessLimiter limiter, long memory) {
+        def started = new CountDownLatch(1)
+        Thread.start {
+            limiter.acquire(memory).close()
+            started.countDown()
+        }
+        return started
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class NodeVersionResolverTest extends Specification {
+
+    static final String INDEX = """[
+        {"version":"v18.1.0","lts":false},
+        {"version":"v18.0.0","lts":false},
+        {"version":"v16.15.0","lts":"Gallium"},
+        {"version":"v16.9.1","lts":"Gallium"},
+        {"version":"v16.13.2","lts":"Gallium"},
+        {"version":"v14.19.1","lts":"Fermium"},
+        {"version":"v17.9.0","lts":false}
+    ]"""
+
+    Path testDir
+    Path mirrorDir
+    Path cacheDir
+
+    def setup() {
+        testDir = Files.createTempDirectory("junit")
+        mirrorDir = Files.createDirectories(testDir.resolve("mirror"))
+        cacheDir = testDir.resolve("cache")
+        Files.writeString(mirrorDir.resolve("index.json"), INDEX)
+    }
+
+    def cleanup() {
+        testDir.toFile().deleteDir()
+    }
+
+    def "Resolve"() {
+
+        given:
+        def resolver = new NodeVersionResolver(mirrorDir.toUri().toString(), cacheDir, Duration.ofHours(1))
+
+        expect:
+        resolver.resolve(alias) == version
+
+        where:
+        alias           | version
+        "16.13.2"       | "16.13.2"
+        "v16.13.2"      | "16.13.2"
+        "lts"           | "16.15.0"
+        "lts/*"         | "16.15.0"
+        "lts/gallium"   | "16.15.0"
+        "lts/Fermium"   | "14.19.1"
+        "latest"        | "18.1.0"
+        "current"       | "18.1.0"
+        "latest-16"     | "16.15.0"
+        "16"            | "16.15.0"
+        "16.9"          | "16.9.1"
+        "v17"           | "17.9.0"
+    }
+
+    def "Resolve unknown alias"() {
+
+        given:
+        def resolver = new NodeVersionResolver(mirrorDir.toUri().toString(), cacheDir, Duration.ofHours(1))
+
+        when:
+        resolver.resolve(alias)
+
+        then:
+        thrown(NodeException)
+
+        where:
+        alias << ["lts/hydrogen", "latest-20", "stable-ish"]
+    }
+
+    def "Resolve exact version without index"() {
+
+        given:
+        def resolver = new NodeVersionResolver("file:///not/existing", cacheDir, Duration.ofHours(1))
+
+        expect:
+        NodeVersionResolver.isExact("16.13.2")
+        !NodeVersionResolver.isExact("lts")
+        resolver.resolve("16.13.2") == "16.13.2"
+        !Files.exists(cacheDir)
+
+    }
+
+    def "Resolve from cached index"() {
+
+        given:
+        def resolver = new NodeVersionResolver(mirrorDir.toUri().toString(), cacheDir, Duration.ofHours(1))
+        resolver.resolve("lts")
+
+        when:
+        Files.writeString(mirrorDir.resolve("index.json"), '[{"version":"v18.12.0","lts":"Hydrogen"}]')
+
+        then:
+        Files.isRegularFile(resolver.getIndexFile())
+        resolver.resolve("lts") == "16.15.0"
+
+    }
+
+    def "Resolve refreshes expired index"() {
+
+        given:
+        def resolver = new NodeVersionResolver(mirrorDir.toUri().toString(), cacheDir, Duration.ZERO)
+        resolver.resolve("lts")
+
+        when:
+        Files.writeString(mirrorDir.resolve("index.json"), '[{"version":"v18.12.0","lts":"Hydrogen"}]')
+
+        then:
+        resolver.resolve("lts") == "18.12.0"
+
+    }
+
+    def "Resolve offline uses expired index"() {
+
+        given:
+        def resolver = new NodeVersionResolver(mirrorDir.toUri().toString(), cacheDir, Duration.ZERO)
+        resolver.resolve("lts")
+
+        when:
+        Files.delete(mirrorDir.resolve("index.json"))
+
+        then:
+        resolver.resolve("lts") == "16.15.0"
+
+    }
+
+    def "Resolve without any index"() {
+
+        given:
+        def resolver = new NodeVersionResolver(mirrorDir.toUri().toString(), cacheDir, Duration.ZERO)
+        Files.delete(mirrorDir.resolve("index.json"))
+
+        when:
+        resolver.resolve("lts")
+
+        then:
+        thrown(NodeException)
+
+    }
+
+    def "Resolve offline"() {
+
+        given:
+        new NodeVersionResolver(mirrorDir.toUri().toString(), cacheDir, Duration.ofHours(1)).resolve("lts")
+        def resolver = new NodeVersionResolver(mirrorDir.toUri().toString(), cacheDir, Duration.ZERO).offline(true)
+
+        when:
+        Files.writeString(mirrorDir.resolve("index.json"), '[{"version":"v18.12.0","lts":"Hydrogen"}]')
+
+        then: "expired index is used without refresh"
+        resolver.resolve("lts") == "16.15.0"
+
+    }
+
+    def "Resolve offline without cached index"() {
+
+        given:
+        def resolver = new NodeVersionResolver(mirrorDir.toUri().toString(), cacheDir, Duration.ofHours(1)).offline(true)
+
+        when:
+        resolver.resolve("lts")
+
+        then:
+        def e = thrown(NodeException)
+        e.getMessage().contains("offline")
+
+    }
+
+    def "Resolve from mirror"() {
+
+        given:
+        def mirrors = new MirrorSelector([testDir.resolve("down").toUri().toString(), mirrorDir.toUri().toString()],
+                cacheDir.resolve(MirrorSelector.STATS_FILE))
+        def resolver = new NodeVersionResolver(mirrors, cacheDir, Duration.ofHours(1))
+
+        expect:
+        resolver.resolve("lts") == "16.15.0"
+        mirrors.getOrdered() == [mirrorDir.toUri().toString(), testDir.resolve("down").toUri().toString()]
+
+    }
+
+}
@@ -29,12 +29,8 @@ import com.palawan.gradle.AbstractProjectTest
 import com.palawan.gradle.NodePlugin
 import com.palawan.gradle.internal.data.PackagerData
 import com.palawan.gradle.tasks.*
-import spock.lang.IgnoreIf
 
 import java.nio.file.Files
-import java.nio.file.Path
-import java.nio.file.attribute.PosixFilePermission
-import java.nio.file.attribute.PosixFilePermissions
 
 /**
  *
@@ -215,6 +211,47 @@ class PackagerInternalTest extends AbstractProjectTest {
 
     }
 
+    def "AfterEvaluate shared store"() {
+
+        given:
+        packager = PackagerInternal.yarn()
+                .workingDir(project.file(".gradle/yarn").toPath())
+        packager.getData().setVersion("1.22.17")
+
+        and:
+        nodeExtension.setDownload(true)
+        nodeExtension.setSharedStore(true)
+        nodeExtension.setStoreDir(project.file("store"))
+
+        when:
+        packager.afterEvaluate(project, nodeExtension)
+
+        then:
+        packager.isSharedStore()
+        packager.getWorkingDir() == project.file("store/packagers/yarn/yarn-v1.22.17").toPath()
+
+    }
+
+    def "AfterEvaluate corepack package manager"() {
+
+        given:
+        mockLinux()
+        Files.writeString(testProjectDir.resolve("package.json"), '{"packageManager":"pnpm@7.1.0+sha256.abc"}')
+        packager = PackagerInternal.pnpm()
+                .workingDir(project.file(".gradle/pnpm").toPath())
+        packager.getData().setVersion("6.27.1").setCorepack(true)
+
+        when:
+        packager.afterEvaluate(project, nodeExtension)
+
+        then:
+        packager.isCorepack()
+        packager.getVersion() == "7.1.0"
+        packager.getWorkingDir() == project.file(".gradle/pnpm/pnpm-v7.1.0").toPath()
+        packager.getCorepackBinaries() == ["pnpm": "pnpm", "pnpx": "pnpx"]
+
+    }
+
     def "AfterEvaluateDefault"() {
 
         given:
@@ -899,120 +936,4 @@ class PackagerInternalTest extends AbstractProjectTest {
 
     }
 
-    @IgnoreIf({ System.getProperty("os.name").contains("Windows") })
-    def "setExecutablePosixRights"() {
-
-        given:
-        mockLinux()
-
-        and:
-        def nodeJs = defineNodeExecutables()
-
-        and:
-        packager = PackagerInternal.npm(nodeExtension.getNodeManager())
-
-        and:
-        Set<PosixFilePermission> executable = PosixFilePermissions.fromString("rwxr--r--");
-
-        when:
-        packager.setExecutablePosixRights(executable)
-
-        then:
-        !Files.isExecutable(nodeJs.resolve("bin/node"))
-        Files.isExecutable(nodeJs.resolve("bin/npm"))
-        Files.isSymbolicLink(nodeJs.resolve("bin/npm"))
-        Files.isExecutable(nodeJs.resolve("bin/npx"))
-        Files.isSymbolicLink(nodeJs.resolve("bin/npx"))
-
-    }
-
-    @IgnoreIf({ System.getProperty("os.name").contains("Windows") })
-    def "setExecutablePosixRights yarn"() {
-
-        given:
-        mockLinux()
-
-        and:
-        def nodeJs = defineNodeExecutables()
-
-        and:
-        packager = new PackagerInternal("yarn", new PackagerData()
-                .setCommand("yarn")
-                .setWorkingDir(testProjectDir.resolve(".gradle/yarn"))
-                .setLocalScript("bin/yarn.js")
-                .setNpmPackage("yarn"), nodeExtension.getNodeManager())
-
-        and:
-        Set<PosixFilePermission> executable = PosixFilePermissions.fromString("rwxr--r--");
-
-        when:
-        packager.setExecutablePosixRights(executable)
-
-        then:
-        !Files.isExecutable(nodeJs.resolve("bin/node"))
-        !Files.isExecutable(nodeJs.resolve("bin/npm"))
-        !Files.isSymbolicLink(nodeJs.resolve("bin/npm"))
-        !Files.isExecutable(nodeJs.resolve("bin/npx"))
-        !Files.isSymbolicLink(nodeJs.resolve("bin/npx"))
-
-    }
-
-    def "setExecutablePosixRights no script"() {
-
-        given:
-        mockLinux()
-
-        and:
-        packager = new PackagerInternal("yarn", new PackagerData()
-                .setCommand("yarn")
-                .setWorkingDir(testProjectDir.resolve(".gradle/yarn"))
-                .setNpmPackage("yarn"), nodeExtension.getNodeManager())
-
-        and:
-        Set<PosixFilePermission> executable = PosixFilePermissions.fromString("rwxr--r--");
-
-        when:
-        packager.setExecutablePosixRights(executable)
-
-        then:
-        thrown(NodeException.class)
-
-    }
-
-    def "setExecutablePosixRights no nodeManager"() {
-
-        given:
-        mockLinux()
-
-        and:
-        packager = PackagerInternal.yarn()
-
-        and:
-        Set<PosixFilePermission> executable = PosixFilePermissions.fromString("rwxr--r--");
-
-        when:
-        packager.setExecutablePosixRights(executable)
-
-        then:
-        thrown(NullPointerException.class)
-
-    }
-
-    private Path defineNodeExecutables() {
-        Path nodeJs = testProjectDir.resolve(".gradle/nodejs/node-v${NodePlugin.LTS_VERSION}-linux-x64")
-
-        Files.createDirectories(nodeJs)
-        Files.createDirectories(nodeJs.resolve("bin"))
-        Files.createDirectories(nodeJs.resolve("lib/node_modules/npm/bin"))
-
-        Files.writeString(nodeJs.resolve("bin/node"), "#!/bin/env node")
-        Files.createFile(nodeJs.resolve("bin/npm"))
-        Files.createFile(nodeJs.resolve("bin/npx"))
-        Files.writeString(nodeJs.resolve("bin/node"), "#!/bin/env node")
-        Files.writeString(nodeJs.resolve("lib/node_modules/npm/bin/npm-cli.js"), "#!/bin/env node")
-        Files.writeString(nodeJs.resolve("lib/node_modules/npm/bin/npx-cli.js"), "#!/bin/env node")
-
-        return nodeJs
-    }
-
 }
@@ -0,0 +1,245 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal
+
+import com.palawan.gradle.util.PlatformSpecific
+import com.palawan.gradle.util.ProcessExecutor
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.security.MessageDigest
+import java.util.zip.GZIPOutputStream
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class RegistryInstallerTest extends Specification {
+
+    Path testDir
+    Path registryDir
+    Path prefix
+
+    def setup() {
+        testDir = Files.createTempDirectory("junit")
+        registryDir = Files.createDirectories(testDir.resolve("registry"))
+        prefix = testDir.resolve("prefix")
+    }
+
+    def cleanup() {
+        testDir.toFile().deleteDir()
+    }
+
+    @IgnoreIf({ System.getProperty("os.name").contains("Windows") })
+    def "Install package without dependencies"() {
+
+        given:
+        def tarball = tarball("pnpm-7.0.0.tgz", ["package/bin/pnpm.cjs": "#!/usr/bin/env node", "package/package.json": "{}"])
+        publish("pnpm", "7.0.0", """{"name":"pnpm","version":"7.0.0","bin":{"pnpm":"bin/pnpm.cjs"},
+            "dist":{"tarball":"${tarball.toUri()}","integrity":"${integrity(tarball)}"}}""")
+
+        when:
+        def installed = installer("Linux").install("pnpm", "7.0.0", prefix)
+
+        then:
+        installed
+        Files.readString(prefix.resolve("lib/node_modules/pnpm/bin/pnpm.cjs")) == "#!/usr/bin/env node"
+        Files.isSymbolicLink(prefix.resolve("bin/pnpm"))
+        Files.readSymbolicLink(prefix.resolve("bin/pnpm")).toString() == "../lib/node_modules/pnpm/bin/pnpm.cjs"
+        Files.isExecutable(prefix.resolve("bin/pnpm"))
+        Files.list(prefix).count() == 2
+
+    }
+
+    def "Install package with windows shim"() {
+
+        given:
+        def tarball = tarball("yarn-1.22.17.tgz", ["package/bin/yarn.js": "yarn"])
+        publish("yarn", "latest", """{"name":"yarn","version":"1.22.17","bin":{"yarn":"./bin/yarn.js"},
+            "dist":{"tarball":"${tarball.toUri()}","shasum":"${hex(tarball, "SHA-1")}"}}""")
+
+        when:
+        def installed = installer("Windows 10").install("yarn", "latest", prefix)
+
+        then:
+        installed
+        Files.readString(prefix.resolve("node_modules/yarn/bin/yarn.js")) == "yarn"
+        Files.readString(prefix.resolve("yarn.cmd")).contains("node \"%~dp0\\node_modules\\yarn\\bin\\yarn.js\" %*")
+
+    }
+
+    def "Install package with dependencies"() {
+
+        given:
+        publish("cnpm", "7.1.0", """{"name":"cnpm","version":"7.1.0","dependencies":{"npm":"^6.0.0"},
+            "dist":{"tarball":"missing.tgz"}}""")
+
+        when:
+        def installed = installer("Linux").install("cnpm", "7.1.0", prefix)
+
+        then:
+        !installed
+        !Files.exists(prefix)
+
+    }
+
+    def "Install package integrity mismatch"() {
+
+        given:
+        def tarball = tarball("pnpm-7.0.0.tgz", ["package/package.json": "{}"])
+        publish("pnpm", "7.0.0", """{"name":"pnpm","version":"7.0.0",
+            "dist":{"tarball":"${tarball.toUri()}","integrity":"sha512-AAAA sha1-BBBB"}}""")
+
+        when:
+        installer("Linux").install("pnpm", "7.0.0", prefix)
+
+        then:
+        def e = thrown(NodeException)
+        e.message.startsWith("Integrity check of pnpm@7.0.0 failed")
+        !Files.exists(prefix.resolve("lib"))
+
+    }
+
+    @IgnoreIf({ System.getProperty("os.name").contains("Windows") })
+    def "Install stored tarball offline"() {
+
+        given:
+        def store = testDir.resolve("store")
+        def tarball = tarball("pnpm-7.0.0.tgz", ["package/bin/pnpm.cjs": "#!/usr/bin/env node",
+                                                 "package/package.json": '{"bin":{"pnpm":"bin/pnpm.cjs"}}'])
+        publish("pnpm", "7.0.0", """{"name":"pnpm","version":"7.0.0","bin":{"pnpm":"bin/pnpm.cjs"},
+            "dist":{"tarball":"${tarball.toUri()}","integrity":"${integrity(tarball)}"}}""")
+
+        expect:
+        !installer("Linux").tarballStore(store).installStored("pnpm", "7.0.0", prefix)
+
+        when:
+        installer("Linux").tarballStore(store).install("pnpm", "7.0.0", testDir.resolve("online"))
+        registryDir.toFile().deleteDir()
+        def installed = installer("Linux").tarballStore(store).installStored("pnpm", "7.0.0", prefix)
+
+        then:
+        Files.readAllBytes(store.resolve("pnpm/7.0.0.tgz")) == Files.readAllBytes(tarball)
+        installed
+        Files.readString(prefix.resolve("lib/node_modules/pnpm/bin/pnpm.cjs")) == "#!/usr/bin/env node"
+        Files.readSymbolicLink(prefix.resolve("bin/pnpm")).toString() == "../lib/node_modules/pnpm/bin/pnpm.cjs"
+
+    }
+
+    def "Install stored tarball offline by alias"() {
+
+        given:
+        def store = testDir.resolve("store")
+        def tarball = tarball("pnpm-7.0.0.tgz", ["package/package.json": "{}"])
+        publish("pnpm", "latest", """{"name":"pnpm","version":"7.0.0",
+            "dist":{"tarball":"${tarball.toUri()}","integrity":"${integrity(tarball)}"}}""")
+        installer("Linux").tarballStore(store).install("pnpm", "latest", testDir.resolve("online"))
+        registryDir.toFile().deleteDir()
+
+        expect:
+        Files.exists(store.resolve("pnpm/7.0.0.tgz"))
+        !Files.exists(store.resolve("pnpm/latest.tgz"))
+        installer("Linux").tarballStore(store).resolveStored("pnpm", "latest") == Optional.of("7.0.0")
+        installer("Linux").tarballStore(store).resolveStored("pnpm", "7.0.0") == Optional.of("7.0.0")
+        installer("Linux").tarballStore(store).resolveStored("pnpm", "^7.0.0").isEmpty()
+        installer("Linux").tarballStore(store).installStored("pnpm", "latest", prefix)
+        Files.exists(prefix.resolve("lib/node_modules/pnpm/package.json"))
+
+    }
+
+    def "Install from unavailable registry"() {
+
+        when:
+        installer("Linux").install("pnpm", "7.0.0", prefix)
+
+        then:
+        thrown(UncheckedIOException)
+
+    }
+
+    private RegistryInstaller installer(String osName) {
+        def properties = new Properties()
+        properties.setProperty(PlatformSpecific.OS_NAME, osName)
+        return new RegistryInstaller(registryDir.toUri().toString(),
+                PlatformSpecific.getInstance(properties, Mock(ProcessExecutor)))
+    }
+
+    private void publish(String name, String version, String manifest) {
+        Files.writeString(Files.createDirectories(registryDir.resolve(name)).resolve(version), manifest)
+    }
+
+    private Path tarball(String name, Map<String, String> files) {
+        def archive = testDir.resolve(name)
+        new GZIPOutputStream(Files.newOutputStream(archive)).withCloseable { os ->
+            files.each { path, content ->
+                def bytes = content.getBytes(StandardCharsets.UTF_8)
+                os.write(header(path, bytes.length))
+                os.write(bytes)
+                os.write(new byte[(512 - bytes.length % 512) % 512])
+            }
+            os.write(new byte[1024])
+        }
+        return archive
+    }
+
+    private static String integrity(Path file) {
+        def digest = MessageDigest.getInstance("SHA-512").digest(Files.readAllBytes(file))
+        return "sha512-" + Base64.encoder.encodeToString(digest)
+    }
+
+    private static String hex(Path file, String algorithm) {
+        return MessageDigest.getInstance(algorithm).digest(Files.readAllBytes(file)).encodeHex().toString()
+    }
+
+    private static byte[] header(String name, long size) {
+        def header = new byte[512]
+        put(header, 0, name)
+        put(header, 100, "0000644")
+        put(header, 108, "0000000")
+        put(header, 116, "0000000")
+        put(header, 124, String.format("%011o", size))
+        put(header, 136, String.format("%011o", 0))
+        header[156] = (byte) '0'
+        put(header, 257, "ustar")
+        put(header, 263, "00")
+        Arrays.fill(header, 148, 156, (byte) ' ')
+        long checksum = 0
+        header.each { checksum += (it & 0xFF) }
+        put(header, 148, String.format("%06o", checksum))
+        header[154] = 0
+        return header
+    }
+
+    private static void put(byte[] header, int offset, String value) {
+        def bytes = value.getBytes(StandardCharsets.UTF_8)
+        System.arraycopy(bytes, 0, header, offset, bytes.length)
+    }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.internal
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class WorkspacesTest extends Specification {
+
+    Path testDir
+
+    def setup() {
+        testDir = Files.createTempDirectory("junit")
+    }
+
+    def cleanup() {
+        testDir.toFile().deleteDir()
+    }
+
+    def "Detect package.json workspaces"() {
+
+        given:
+        write("package.json", '{"workspaces":["packages/*","./apps/**","!packages/skip"]}')
+        write("packages/a/package.json", '{"name":"@acme/a"}')
+        write("packages/b/package.json", '{}')
+        write("packages/skip/package.json", '{"name":"skip"}')
+        write("apps/web/package.json", '{"name":"web"}')
+        write("apps/web/node_modules/dep/package.json", '{"name":"dep"}')
+
+        expect:
+        Workspaces.detect(testDir) == ["@acme/a": "packages/a", "packages/b": "packages/b", "web": "apps/web"]
+
+    }
+
+    def "Detect yarn packages workspaces"() {
+
+        given:
+        write("package.json", '{"workspaces":{"packages":["tools"],"nohoist":["**/x"]}}')
+        write("tools/package.json", '{"name":"tools"}')
+
+        expect:
+        Workspaces.detect(testDir) == ["tools": "tools"]
+
+    }
+
+    def "Detect pnpm workspaces"() {
+
+        given:
+        write("package.json", '{}')
+        write("pnpm-workspace.yaml", "# workspace\npackages:\n  - 'packages/*'\n  - \"!**/skip\"\n  - apps/web # app\ncatalog:\n  react: 18.0.0\n")
+        write("packages/a/package.json", '{"name":"a"}')
+        write("packages/skip/package.json", '{"name":"skip"}')
+        write("apps/web/package.json", '{"name":"web"}')
+
+        expect:
+        Workspaces.readPatterns(testDir) == ["packages/*", "!**/skip", "apps/web"]
+        Workspaces.detect(testDir) == ["a": "packages/a", "web": "apps/web"]
+
+    }
+
+    def "Detect skips build directory"() {
+
+        given:
+        write("package.json", '{"workspaces":["**"]}')
+        write("packages/a/package.json", '{"name":"a"}')
+        write("build/dist/package.json", '{"name":"a-dist"}')
+
+        expect:
+        Workspaces.detect(testDir) == ["a": "packages/a", "a-dist": "build/dist"]
+        Workspaces.detect(testDir, [testDir.resolve("build")]) == ["a": "packages/a"]
+
+    }
+
+    def "Detect no workspaces"() {
+
+        given:
+        write("package.json", '{"name":"single"}')
+        write("lib/package.json", '{"name":"lib"}')
+
+        expect:
+        Workspaces.detect(testDir).isEmpty()
+
+    }
+
+    def "Detect no workspaces in malformed package.json"() {
+
+        given:
+        write("package.json", '{"workspaces":["packages/*"]')
+        write("packages/a/package.json", '{"name":')
+
+        expect:
+        Workspaces.detect(testDir).isEmpty()
+
+    }
+
+    private void write(String path, String content) {
+        def file = testDir.resolve(path)
+        Files.createDirectories(file.getParent())
+        Files.writeString(file, content)
+    }
+
+}
@@ -77,6 +77,48 @@ class CommandExecutionTaskTest extends AbstractProjectTest {
 		}
 	}
 
+	def "Uses package cache environment"() {
+		given:
+		ExecSpec spec = Mock()
+		def task = project.tasks.create("packager", TestTask)
+		nodeExtension.getNodeManager().getPackager().afterEvaluate(project, nodeExtension)
+		nodeExtension.setCacheDir(project.file("cache"))
+
+		and:
+		task.setEnvironment(["YARN_CACHE_FOLDER": "custom"])
+
+		when:
+		task.prepare(task.getExecutable()).execute(spec)
+
+		then:
+		1 * spec.environment({
+			it["npm_config_cache"] == project.file("cache/npm").absolutePath && it["YARN_CACHE_FOLDER"] == "custom"
+		})
+	}
+
+	def "Submits command to worker when asynchronous"() {
+		given:
+		def task = project.tasks.create("packager", TestTask)
+		def install = project.tasks.create("install", NodeInstallTask)
+
+		expect:
+		!task.isSubmitted()
+		!install.isSubmitted()
+
+		when:
+		nodeExtension.setAsync(true)
+
+		then:
+		task.isSubmitted()
+		!install.isSubmitted()
+
+		when:
+		task.setAsync(false)
+
+		then:
+		!task.isSubmitted()
+	}
+
 	static class TestTask extends CommandExecutionTask {
 
 		@Override
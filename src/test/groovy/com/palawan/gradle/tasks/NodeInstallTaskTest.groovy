@@ -0,0 +1,232 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.tasks
+
+import com.palawan.gradle.AbstractProjectTest
+import com.palawan.gradle.internal.ExecutableData
+import com.palawan.gradle.internal.NodeException
+import org.gradle.process.ExecResult
+import org.gradle.process.ExecSpec
+
+import java.nio.file.Files
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class NodeInstallTaskTest extends AbstractProjectTest {
+
+    def "Executable frozen npm"() {
+
+        given:
+        ExecSpec spec = Mock()
+        nodeExtension.getNodeManager().getPackager().afterEvaluate(project, nodeExtension)
+        def task = project.tasks.create("nodeInstallTest", NodeInstallTask)
+        task.setFrozenLockfile(true)
+        task.addArgument("--no-audit")
+
+        when:
+        task.getExecutable().execute(spec)
+
+        then:
+        1 * spec.setArgs({ it.last() == "--no-audit" && it[-2] == "ci" })
+        task.getInputFiles().toList() == ["package.json", "package-lock.json"]
+        task.getOutputFiles().isEmpty()
+
+    }
+
+    def "Executable frozen pnpm"() {
+
+        given:
+        nodeExtension.pnpm { }
+        def task = project.tasks.create("nodeInstallTest", NodeInstallTask)
+        task.setFrozenLockfile(true)
+
+        expect:
+        task.getCommand() == "install"
+        task.getArguments() == ["--frozen-lockfile"]
+        task.getInputFiles().toList() == ["package.json", "pnpm-lock.yaml"]
+
+    }
+
+    def "Executable frozen yarn berry"() {
+
+        given:
+        nodeExtension.yarn { it.setVersion("3.2.0") }
+        def task = project.tasks.create("nodeInstallTest", NodeInstallTask)
+        task.setFrozenLockfile(true)
+
+        expect:
+        task.getArguments() == ["--immutable"]
+
+    }
+
+    def "Executable frozen not supported"() {
+
+        given:
+        nodeExtension.cnpm { }
+        def task = project.tasks.create("nodeInstallTest", NodeInstallTask)
+        task.setFrozenLockfile(true)
+
+        when:
+        task.getCommand()
+
+        then:
+        thrown(NodeException)
+
+    }
+
+    def "Executable not frozen"() {
+
+        given:
+        def task = project.tasks.create("nodeInstallTest", NodeInstallTask)
+
+        expect:
+        task.getCommand() == "install"
+        task.getArguments().isEmpty()
+        task.getOutputFiles().toList() == ["package-lock.json"]
+
+    }
+
+    def "Workspaces tracked by state manifest"() {
+
+        given:
+        Files.writeString(testProjectDir.resolve("package.json"), '{"workspaces":["packages/*"]}')
+        Files.createDirectories(testProjectDir.resolve("packages/a"))
+        Files.writeString(testProjectDir.resolve("packages/a/package.json"), '{"name":"a"}')
+        def packager = nodeExtension.getNodeManager().getPackager()
+        packager.afterEvaluateDefault(project, nodeExtension)
+        def task = project.tasks.create("nodeInstallTest", NodeInstallTask)
+
+        expect:
+        packager.getWorkspaces() == ["a": "packages/a"]
+        task.getInputFiles().toList() == ["package.json", "package-lock.json", "packages/a/package.json"]
+        task.getOutputDirectories().isEmpty()
+        task.getStateFile() == project.file("node_modules/" + NodeInstallTask.STATE_FILE)
+
+    }
+
+    def "Workspaces detected from install task inputs only"() {
+
+        given:
+        Files.writeString(testProjectDir.resolve("package.json"), '{"workspaces":')
+        def packager = nodeExtension.getNodeManager().getPackager()
+        packager.afterEvaluateDefault(project, nodeExtension)
+        Files.writeString(testProjectDir.resolve("package.json"), '{"workspaces":["packages/*"]}')
+        Files.createDirectories(testProjectDir.resolve("packages/a"))
+        Files.writeString(testProjectDir.resolve("packages/a/package.json"), '{"name":"a"}')
+        def task = project.tasks.create("nodeInstallTest", NodeInstallTask)
+
+        expect:
+        task.getInputFiles().toList() == ["package.json", "package-lock.json", "packages/a/package.json"]
+
+    }
+
+    def "State manifest tracks lock file of pnpm"() {
+
+        given:
+        nodeExtension.setDownload(false)
+        nodeExtension.pnpm { }
+        Files.writeString(testProjectDir.resolve("package.json"), '{"dependencies":{"a":"^1.0.0"}}')
+        Files.writeString(testProjectDir.resolve("pnpm-lock.yaml"), "a: 1.0.0")
+        def task = project.tasks.create("nodeInstallTest", NodeInstallTask)
+        task.setStateManifest(true)
+        task.computeState().write()
+
+        expect:
+        task.computeState().isCurrent()
+
+        when:
+        Files.writeString(testProjectDir.resolve("pnpm-lock.yaml"), "a: 1.1.0")
+
+        then:
+        !task.computeState().isCurrent()
+
+    }
+
+    def "Cache key includes lock file of pnpm"() {
+
+        given:
+        nodeExtension.setDownload(false)
+        nodeExtension.pnpm { }
+        Files.writeString(testProjectDir.resolve("package.json"), '{"dependencies":{"a":"^1.0.0"}}')
+        Files.writeString(testProjectDir.resolve("pnpm-lock.yaml"), "a: 1.0.0")
+        def task = project.tasks.create("nodeInstallTest", NodeInstallTask)
+        def key = task.computeCacheKey()
+
+        when:
+        Files.writeString(testProjectDir.resolve("pnpm-lock.yaml"), "a: 1.1.0")
+
+        then:
+        task.computeCacheKey() != key
+
+    }
+
+    def "Delta install keeps package.json and installs fully with unchanged dependencies"() {
+
+        given:
+        nodeExtension.setDownload(false)
+        nodeExtension.getNodeManager().getPackager().afterEvaluateDefault(project, nodeExtension)
+        Files.writeString(testProjectDir.resolve("package.json"), '{"dependencies":{"a":"^1.0.0"}}')
+        Files.createDirectories(testProjectDir.resolve("node_modules"))
+        def task = project.tasks.create("nodeInstallTest", RecordingInstallTask)
+        task.setDeltaInstall(true)
+        task.execute()
+        task.executed.clear()
+
+        when: "dependency changed"
+        Files.writeString(testProjectDir.resolve("package.json"), '{"dependencies":{"a":"^2.0.0"}}')
+        task.execute()
+
+        then: "changed package installed and package.json kept"
+        task.executed == [["install", "a@^2.0.0", "--save-prod"]]
+        Files.readString(testProjectDir.resolve("package.json")) == '{"dependencies":{"a":"^2.0.0"}}'
+
+        when: "task runs again with unchanged dependencies"
+        task.executed.clear()
+        task.execute()
+
+        then:
+        task.executed == [["install"]]
+
+    }
+
+    static class RecordingInstallTask extends NodeInstallTask {
+
+        List<List<String>> executed = []
+
+        @Override
+        protected ExecResult execute(ExecutableData executable) {
+            executed << executable.getArgs()
+            // packagers rewrite package.json in their own format
+            def packageJson = project.file("package.json")
+            packageJson.text = packageJson.text.replace('{"', '{\n  "')
+            return null
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.tasks
+
+import com.palawan.gradle.AbstractProjectTest
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class ParallelNodeInstallTaskTest extends AbstractProjectTest {
+
+    def "Package roots distributed into lanes"() {
+
+        given:
+        def task = project.tasks.create("parallelInstallTest", ParallelNodeInstallTask)
+        task.packageRoots("a", "b", "c", "d", "e")
+        task.setMaxParallelInstalls(2)
+
+        when:
+        def lanes = task.computeLanes()
+
+        then:
+        lanes.size() == 2
+        lanes[0]*.name == ["a", "c", "e"]
+        lanes[1]*.name == ["b", "d"]
+
+    }
+
+    def "Lanes limited by package roots"() {
+
+        given:
+        def task = project.tasks.create("parallelInstallTest", ParallelNodeInstallTask)
+        task.packageRoots("a", "b")
+
+        expect:
+        task.computeLanes().size() == 2
+
+    }
+
+    def "Inputs and outputs of package roots"() {
+
+        given:
+        def task = project.tasks.create("parallelInstallTest", ParallelNodeInstallTask)
+        task.packageRoots("a", "b")
+        def a = testProjectDir.resolve("a")
+        def b = testProjectDir.resolve("b")
+
+        expect:
+        task.getInputFiles().toList() == [
+                a.resolve("package.json"), a.resolve("package-lock.json"),
+                b.resolve("package.json"), b.resolve("package-lock.json")
+        ]*.toString()
+        task.getOutputDirectories().toList() == [a.resolve("node_modules"), b.resolve("node_modules")]*.toString()
+        task.getStateFile() == null
+
+    }
+
+}
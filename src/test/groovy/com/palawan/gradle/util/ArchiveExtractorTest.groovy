@@ -0,0 +1,236 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.util
+
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.PosixFilePermissions
+import java.util.zip.GZIPOutputStream
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class ArchiveExtractorTest extends Specification {
+
+    Path testDir
+
+    def setup() {
+        testDir = Files.createTempDirectory("junit")
+    }
+
+    def cleanup() {
+        testDir.toFile().deleteDir()
+    }
+
+    def "Extract tar strips root directory"() {
+
+        given:
+        def archive = tar("node.tar.gz") {
+            directory(it, "node-v1/", 0755)
+            directory(it, "node-v1/bin/", 0755)
+            file(it, "node-v1/bin/node", "binary", 0755)
+            file(it, "node-v1/README.md", "readme", 0644)
+        }
+        def target = testDir.resolve("out")
+
+        when:
+        def entries = new ArchiveExtractor().stripComponents(1).extract(archive, target)
+
+        then:
+        entries == 3
+        Files.readString(target.resolve("bin/node")) == "binary"
+        Files.readString(target.resolve("README.md")) == "readme"
+        !Files.exists(target.resolve("node-v1"))
+
+    }
+
+    @IgnoreIf({ System.getProperty("os.name").contains("Windows") })
+    def "Extract tar keeps permissions and links"() {
+
+        given:
+        def archive = tar("node.tar.gz") {
+            file(it, "node-v1/bin/node", "binary", 0755)
+            file(it, "node-v1/lib/cli.js", "script", 0644)
+            link(it, "node-v1/bin/npm", "../lib/cli.js")
+        }
+        def target = testDir.resolve("out")
+
+        when:
+        new ArchiveExtractor().stripComponents(1).extract(archive, target)
+
+        then:
+        PosixFilePermissions.toString(Files.getPosixFilePermissions(target.resolve("bin/node"))) == "rwxr-xr-x"
+        PosixFilePermissions.toString(Files.getPosixFilePermissions(target.resolve("lib/cli.js"))) == "rw-r--r--"
+        Files.isSymbolicLink(target.resolve("bin/npm"))
+        Files.readSymbolicLink(target.resolve("bin/npm")).toString() == "../lib/cli.js"
+        Files.readString(target.resolve("bin/npm")) == "script"
+
+    }
+
+    def "Extract tar large file"() {
+
+        given:
+        def content = "x" * (1024 * 1024 + 3)
+        def archive = tar("node.tar.gz") {
+            file(it, "node-v1/large.bin", content, 0644)
+            file(it, "node-v1/small.bin", "small", 0644)
+        }
+        def target = testDir.resolve("out")
+
+        when:
+        new ArchiveExtractor().stripComponents(1).threads(2).extract(archive, target)
+
+        then:
+        Files.size(target.resolve("large.bin")) == content.length()
+        Files.readString(target.resolve("small.bin")) == "small"
+
+    }
+
+    def "Extract tar filtered"() {
+
+        given:
+        def archive = tar("node.tar.gz") {
+            directory(it, "node-v1/", 0755)
+            directory(it, "node-v1/include/", 0755)
+            file(it, "node-v1/include/node.h", "header", 0644)
+            file(it, "node-v1/bin/node", "binary", 0755)
+            file(it, "node-v1/lib/node_modules/npm/index.js", "npm", 0644)
+            file(it, "node-v1/lib/node_modules/corepack/index.js", "corepack", 0644)
+        }
+        def target = testDir.resolve("out")
+
+        when:
+        def entries = new ArchiveExtractor()
+                .stripComponents(1)
+                .filter(new PathFilter(["bin", "lib/node_modules/npm"], []))
+                .extract(archive, target)
+
+        then:
+        entries == 2
+        Files.readString(target.resolve("bin/node")) == "binary"
+        Files.readString(target.resolve("lib/node_modules/npm/index.js")) == "npm"
+        !Files.exists(target.resolve("include"))
+        !Files.exists(target.resolve("lib/node_modules/corepack"))
+
+    }
+
+    def "Extract tar entry outside of target"() {
+
+        given:
+        def archive = tar("node.tar.gz") {
+            file(it, "node-v1/../../evil", "evil", 0644)
+        }
+
+        when:
+        new ArchiveExtractor().stripComponents(1).extract(archive, testDir.resolve("out"))
+
+        then:
+        thrown(IOException)
+        !Files.exists(testDir.resolve("evil"))
+
+    }
+
+    def "Extract zip"() {
+
+        given:
+        def archive = testDir.resolve("node.zip")
+        new ZipOutputStream(Files.newOutputStream(archive)).withCloseable { zip ->
+            zip.putNextEntry(new ZipEntry("node-v1/"))
+            zip.putNextEntry(new ZipEntry("node-v1/node.exe"))
+            zip.write("binary".getBytes(StandardCharsets.UTF_8))
+            zip.putNextEntry(new ZipEntry("node-v1/node_modules/npm/package.json"))
+            zip.write("{}".getBytes(StandardCharsets.UTF_8))
+        }
+        def target = testDir.resolve("out")
+
+        when:
+        def entries = new ArchiveExtractor().stripComponents(1).extract(archive, target)
+
+        then:
+        entries == 2
+        Files.readString(target.resolve("node.exe")) == "binary"
+        Files.readString(target.resolve("node_modules/npm/package.json")) == "{}"
+
+    }
+
+    private Path tar(String name, Closure entries) {
+        def archive = testDir.resolve(name)
+        new GZIPOutputStream(Files.newOutputStream(archive)).withCloseable { os ->
+            entries(os)
+            os.write(new byte[1024])
+        }
+        return archive
+    }
+
+    private static void directory(OutputStream os, String name, int mode) {
+        os.write(header(name, mode, 0, '5' as char, ""))
+    }
+
+    private static void file(OutputStream os, String name, String content, int mode) {
+        def bytes = content.getBytes(StandardCharsets.UTF_8)
+        os.write(header(name, mode, bytes.length, '0' as char, ""))
+        os.write(bytes)
+        os.write(new byte[(512 - bytes.length % 512) % 512])
+    }
+
+    private static void link(OutputStream os, String name, String target) {
+        os.write(header(name, 0777, 0, '2' as char, target))
+    }
+
+    private static byte[] header(String name, int mode, long size, char type, String link) {
+        def header = new byte[512]
+        put(header, 0, name)
+        put(header, 100, String.format("%07o", mode))
+        put(header, 108, "0000000")
+        put(header, 116, "0000000")
+        put(header, 124, String.format("%011o", size))
+        put(header, 136, String.format("%011o", 0))
+        header[156] = (byte) type
+        put(header, 157, link)
+        put(header, 257, "ustar")
+        put(header, 263, "00")
+        Arrays.fill(header, 148, 156, (byte) ' ')
+        long checksum = 0
+        header.each { checksum += (it & 0xFF) }
+        put(header, 148, String.format("%06o", checksum))
+        header[154] = 0
+        return header
+    }
+
+    private static void put(byte[] header, int offset, String value) {
+        def bytes = value.getBytes(StandardCharsets.UTF_8)
+        System.arraycopy(bytes, 0, header, offset, bytes.length)
+    }
+
+}
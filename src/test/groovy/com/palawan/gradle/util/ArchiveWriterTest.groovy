@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.util
+
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.PosixFilePermissions
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class ArchiveWriterTest extends Specification {
+
+    Path testDir
+
+    def setup() {
+        testDir = Files.createTempDirectory("junit")
+    }
+
+    def cleanup() {
+        testDir.toFile().deleteDir()
+    }
+
+    def "Write and extract long names"() {
+
+        given:
+        def longName = "node_modules/" + ("very-long-package-name/" * 8) + "index.js"
+        Files.createDirectories(testDir.resolve("source").resolve(longName).getParent())
+        Files.writeString(testDir.resolve("source").resolve(longName), "long")
+        Files.writeString(testDir.resolve("source/node_modules/small.js"), "small")
+        def archive = testDir.resolve("cache/modules.tar.gz")
+
+        when:
+        def written = new ArchiveWriter().write(testDir.resolve("source"), ["node_modules", "missing"], archive)
+        new ArchiveExtractor().extract(archive, testDir.resolve("target"))
+
+        then:
+        written == 11
+        Files.readString(testDir.resolve("target").resolve(longName)) == "long"
+        Files.readString(testDir.resolve("target/node_modules/small.js")) == "small"
+        Files.list(testDir.resolve("cache")).count() == 1
+
+    }
+
+    @IgnoreIf({ System.getProperty("os.name").contains("Windows") })
+    def "Write keeps permissions and links"() {
+
+        given:
+        def source = Files.createDirectories(testDir.resolve("source/node_modules/.bin"))
+        def script = Files.writeString(testDir.resolve("source/node_modules/cli.js"), "script")
+        Files.setPosixFilePermissions(script, PosixFilePermissions.fromString("rwxr-xr-x"))
+        Files.createSymbolicLink(source.resolve("cli"), Path.of("../cli.js"))
+        def archive = testDir.resolve("modules.tar.gz")
+
+        when:
+        new ArchiveWriter().write(testDir.resolve("source"), ["node_modules"], archive)
+        new ArchiveExtractor().extract(archive, testDir.resolve("target"))
+
+        then:
+        Files.isSymbolicLink(testDir.resolve("target/node_modules/.bin/cli"))
+        Files.readSymbolicLink(testDir.resolve("target/node_modules/.bin/cli")).toString() == "../cli.js"
+        PosixFilePermissions.toString(Files.getPosixFilePermissions(testDir.resolve("target/node_modules/cli.js"))) == "rwxr-xr-x"
+
+    }
+
+}
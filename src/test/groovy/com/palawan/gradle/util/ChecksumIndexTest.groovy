@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.util
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class ChecksumIndexTest extends Specification {
+
+    Path testDir
+
+    def setup() {
+        testDir = Files.createTempDirectory("junit")
+    }
+
+    def cleanup() {
+        testDir.toFile().deleteDir()
+    }
+
+    def "Lookup recorded checksum"() {
+
+        given:
+        def archive = Files.writeString(testDir.resolve("archive.txt"), "Hello World")
+        def index = new ChecksumIndex(testDir.resolve("index/verified"))
+
+        expect:
+        !index.lookup(archive).isPresent()
+
+        when:
+        index.record(archive, "abc")
+
+        then:
+        index.lookup(archive).get() == "abc"
+        new ChecksumIndex(index.getIndexDir()).lookup(archive).get() == "abc"
+
+    }
+
+    def "Lookup changed file"() {
+
+        given:
+        def archive = Files.writeString(testDir.resolve("archive.txt"), "Hello World")
+        def index = new ChecksumIndex(testDir.resolve("verified"))
+        index.record(archive, "abc")
+
+        when:
+        Files.writeString(archive, "Hello World!")
+
+        then:
+        !index.lookup(archive).isPresent()
+
+    }
+
+    def "Record keeps entries of other files"() {
+
+        given:
+        def first = Files.writeString(testDir.resolve("first.txt"), "Hello")
+        def second = Files.writeString(testDir.resolve("second.txt"), "World")
+        def index = new ChecksumIndex(testDir.resolve("verified"))
+        def concurrent = new ChecksumIndex(testDir.resolve("verified"))
+
+        when:
+        index.record(first, "abc")
+        concurrent.record(second, "def")
+
+        then:
+        index.lookup(first).get() == "abc"
+        index.lookup(second).get() == "def"
+
+    }
+
+}
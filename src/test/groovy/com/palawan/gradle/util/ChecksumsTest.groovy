@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.util
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class ChecksumsTest extends Specification {
+
+    Path testDir
+
+    def setup() {
+        testDir = Files.createTempDirectory("junit")
+    }
+
+    def cleanup() {
+        testDir.toFile().deleteDir()
+    }
+
+    def "Sha256"() {
+
+        given:
+        def file = Files.writeString(testDir.resolve("archive.txt"), "Hello World")
+
+        expect:
+        Checksums.sha256(file) == "a591a6d40bf420404a011733cfb7b190d62c65bf0bcda32b57b277d9ad9f146e"
+
+    }
+
+    def "Sha256 empty file"() {
+
+        given:
+        def file = Files.createFile(testDir.resolve("empty.txt"))
+
+        expect:
+        Checksums.sha256(file) == "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855"
+
+    }
+
+    def "Hex"() {
+
+        expect:
+        Checksums.hex([0x00, 0x0f, 0xa0, 0xff] as byte[]) == "000fa0ff"
+
+    }
+
+    def "ParseSums"() {
+
+        when:
+        def sums = Checksums.parseSums([
+                "AB12  node-v16.14.0-linux-x64.tar.gz",
+                "cd34 *node-v16.14.0-win-x64.zip",
+                "",
+                "invalid"
+        ])
+
+        then:
+        sums == [
+                "node-v16.14.0-linux-x64.tar.gz": "ab12",
+                "node-v16.14.0-win-x64.zip": "cd34"
+        ]
+
+    }
+
+}
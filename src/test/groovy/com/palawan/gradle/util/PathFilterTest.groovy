@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Petr Langr
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.palawan.gradle.util
+
+import spock.lang.Specification
+
+/**
+ *
+ * @author petr.langr
+ * @since 1.0.0
+ */
+class PathFilterTest extends Specification {
+
+    def "Empty filter"() {
+
+        given:
+        def filter = new PathFilter([], [])
+
+        expect:
+        filter.isEmpty()
+        filter.toString() == ""
+        filter.test("include/node/v8.h")
+
+    }
+
+    def "Filter"() {
+
+        given:
+        def filter = new PathFilter(["bin/node", "lib/node_modules/npm", "**/*.md"],
+                ["**/docs/**", "lib/node_modules/npm/man"])
+
+        expect:
+        filter.test(path) == accepted
+
+        where:
+        path                                     | accepted
+        "bin/node"                               | true
+        "bin/npx"                                | false
+        "bin/"                                   | false
+        "lib/node_modules/npm/"                  | true
+        "lib/node_modules/npm/bin/npm-cli.js"    | true
+        "lib/node_modules/npm/docs/index.html"   | false
+        "lib/node_modules/npm/man/npm.1"         | false
+        "README.md"                              | true
+        "share/doc/README.md"                    | true
+        "include/node/v8.h"                      | false
+    }
+
+    def "Exclude directory"() {
+
+        given:
+        def filter = new PathFilter([], ["include", "share/**"])
+
+        expect:
+        !filter.isEmpty()
+        !filter.test("include/node/v8.h")
+        !filter.test("share/")
+        !filter.test("share/man/man1/node.1")
+        filter.test("bin/node")
+
+    }
+
+}